@@ -0,0 +1,426 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.ec4j.core.model.EditorConfig;
+
+/**
+ * A {@link Cache} holding a limited number (or a limited total weight) of entries that can optionally expire after a
+ * given time since they were loaded or since they were last accessed. Use {@link #builder()} to create new instances.
+ * <p>
+ * The entries are evicted using the segmented LRU policy: a newly loaded entry enters the probationary segment and it
+ * is promoted to the protected segment only when it is hit again. The eviction victims are taken from the least
+ * recently used end of the probationary segment first. Hence a one-off scan over many {@code .editorconfig} files
+ * cannot flush the frequently used entries out of the protected segment.
+ * <p>
+ * Instances of this class can be accessed from concurrent threads safely. Like with {@link ConcurrentCache}, only one
+ * of several threads asking for the same {@link Resource} at once calls {@link EditorConfigLoader#load(Resource)} and
+ * the others wait for its result. No monitors are held while waiting or loading, so that the class is safe to be used
+ * from virtual threads.
+ *
+ * @since 1.2.1
+ */
+public class BoundedCache implements Cache {
+
+    /**
+     * A {@link BoundedCache} builder.
+     */
+    public static class Builder {
+        private long expireAfterAccessNanos = -1;
+        private long expireAfterWriteNanos = -1;
+        private long maximumWeight = -1;
+        private LongSupplier ticker = Caches.SYSTEM_TICKER;
+        private Weigher weigher = null;
+
+        /**
+         * @return a new {@link BoundedCache}
+         */
+        public BoundedCache build() {
+            if (maximumWeight < 0) {
+                throw new IllegalStateException("Either maximumSize or maximumWeight must be set to build a "
+                        + BoundedCache.class.getName());
+            }
+            return new BoundedCache(maximumWeight, weigher == null ? SINGLETON_WEIGHER : weigher,
+                    expireAfterWriteNanos, expireAfterAccessNanos, ticker);
+        }
+
+        /**
+         * Entries will be removed once the given {@code duration} elapses since the entry was last returned by
+         * {@link BoundedCache#get(Resource, EditorConfigLoader)}.
+         *
+         * @param duration the time to keep the entry after its last access
+         * @param unit the unit of {@code duration}
+         * @return this {@link Builder}
+         */
+        public Builder expireAfterAccess(long duration, TimeUnit unit) {
+            this.expireAfterAccessNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Entries will be removed once the given {@code duration} elapses since the entry was loaded.
+         *
+         * @param duration the time to keep the entry after it was loaded
+         * @param unit the unit of {@code duration}
+         * @return this {@link Builder}
+         */
+        public Builder expireAfterWrite(long duration, TimeUnit unit) {
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of entries. Mutually exclusive with {@link #maximumWeight(long, Weigher)}.
+         *
+         * @param maximumSize the maximum number of entries
+         * @return this {@link Builder}
+         */
+        public Builder maximumSize(long maximumSize) {
+            this.maximumWeight = maximumSize;
+            this.weigher = null;
+            return this;
+        }
+
+        /**
+         * Sets the maximum total weight of the entries. Mutually exclusive with {@link #maximumSize(long)}.
+         *
+         * @param maximumWeight the maximum sum of weights of all entries
+         * @param weigher the {@link Weigher} to compute the weights of the entries
+         * @return this {@link Builder}
+         */
+        public Builder maximumWeight(long maximumWeight, Weigher weigher) {
+            this.maximumWeight = maximumWeight;
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Sets the time source in nanoseconds. Meant for testing.
+         *
+         * @param ticker the time source to use instead of {@link System#nanoTime()}
+         * @return this {@link Builder}
+         */
+        Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+    }
+
+    /**
+     * A node in {@link BoundedCache#probation} or {@link BoundedCache#protectedSegment}.
+     */
+    private static class Entry {
+        private long accessTime;
+        private boolean inProtectedSegment;
+        private final EditorConfig value;
+        private final long weight;
+        private final long writeTime;
+
+        private Entry(EditorConfig value, long weight, long now) {
+            super();
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * Computes the weight of the entries of a {@link BoundedCache}.
+     */
+    public interface Weigher {
+        /**
+         * @param editorConfigFile the {@link Resource} out of which the given {@code editorConfig} was loaded
+         * @param editorConfig the {@link EditorConfig} to weigh
+         * @return the weight of the given entry, must not be negative
+         */
+        long weigh(Resource editorConfigFile, EditorConfig editorConfig);
+    }
+
+    /** The share of the maximum weight reserved for the protected segment */
+    private static final int PROTECTED_PERCENT = 80;
+    private static final Weigher SINGLETON_WEIGHER = new Weigher() {
+        @Override
+        public long weigh(Resource editorConfigFile, EditorConfig editorConfig) {
+            return 1;
+        }
+    };
+
+    /**
+     * @return a new {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final long expireAfterAccessNanos;
+    private final long expireAfterWriteNanos;
+    private final ConcurrentMap<Resource, CompletableFuture<EditorConfig>> loading = new ConcurrentHashMap<>();
+    /** Guards the segments; not a monitor so that the virtual threads waiting for it can unmount */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long maximumWeight;
+    /** Entries hit only once, in access order */
+    private final LinkedHashMap<Resource, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final long protectedMaximumWeight;
+    /** Entries hit more than once, in access order */
+    private final LinkedHashMap<Resource, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long protectedWeight;
+    private final LongSupplier ticker;
+    private long totalWeight;
+    private final Weigher weigher;
+
+    BoundedCache(long maximumWeight, Weigher weigher, long expireAfterWriteNanos, long expireAfterAccessNanos,
+            LongSupplier ticker) {
+        super();
+        this.maximumWeight = maximumWeight;
+        this.protectedMaximumWeight = maximumWeight * PROTECTED_PERCENT / 100;
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.expireAfterAccessNanos = expireAfterAccessNanos;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Removes the expired entries from this {@link Cache}. Note that expired entries are never returned from
+     * {@link #get(Resource, EditorConfigLoader)} even without calling this method. Calling this method only makes sure
+     * that the memory occupied by the expired entries is released early.
+     */
+    public void cleanUp() {
+        lock.lock();
+        try {
+            final long now = ticker.getAsLong();
+            removeExpired(probation, now);
+            removeExpired(protectedSegment, now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all entries from this {@link Cache}. The loads in progress are not stored once they finish.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            loading.clear();
+            probation.clear();
+            protectedSegment.clear();
+            protectedWeight = 0;
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public EditorConfig get(Resource editorConfigFile, EditorConfigLoader loader) throws IOException {
+        final EditorConfig cached = getIfPresent(editorConfigFile);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<EditorConfig> entry = loading.get(editorConfigFile);
+        if (entry == null) {
+            final CompletableFuture<EditorConfig> newEntry = new CompletableFuture<>();
+            entry = loading.putIfAbsent(editorConfigFile, newEntry);
+            if (entry == null) {
+                /* This thread won the race; still, a concurrent load might have finished in the meantime */
+                final EditorConfig present = getIfPresent(editorConfigFile);
+                if (present != null) {
+                    newEntry.complete(present);
+                    loading.remove(editorConfigFile, newEntry);
+                    return present;
+                }
+                final EditorConfig result = CacheLoading.load(editorConfigFile, loader, newEntry, loading);
+                putIfStillLoading(editorConfigFile, result, newEntry);
+                return result;
+            }
+        }
+        return CacheLoading.await(entry);
+    }
+
+    private EditorConfig getIfPresent(Resource editorConfigFile) {
+        lock.lock();
+        try {
+            Entry entry = probation.get(editorConfigFile);
+            if (entry == null) {
+                entry = protectedSegment.get(editorConfigFile);
+            }
+            if (entry == null) {
+                return null;
+            }
+            final long now = ticker.getAsLong();
+            if (isExpired(entry, now)) {
+                remove(editorConfigFile);
+                return null;
+            }
+            entry.accessTime = now;
+            if (!entry.inProtectedSegment) {
+                /* The second hit: promote to the protected segment */
+                probation.remove(editorConfigFile);
+                entry.inProtectedSegment = true;
+                protectedSegment.put(editorConfigFile, entry);
+                protectedWeight += entry.weight;
+                final Iterator<Map.Entry<Resource, Entry>> it = protectedSegment.entrySet().iterator();
+                while (protectedWeight > protectedMaximumWeight && protectedSegment.size() > 1) {
+                    /* Demote the least recently used protected entries back to the probation */
+                    final Map.Entry<Resource, Entry> lru = it.next();
+                    it.remove();
+                    final Entry demoted = lru.getValue();
+                    demoted.inProtectedSegment = false;
+                    protectedWeight -= demoted.weight;
+                    probation.put(lru.getKey(), demoted);
+                }
+            }
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A load of the given {@code editorConfigFile} in progress is not stored once it finishes, because it might have
+     * read the content from before the change that caused this invalidation.
+     */
+    @Override
+    public void invalidate(Resource editorConfigFile) {
+        lock.lock();
+        try {
+            loading.remove(editorConfigFile);
+            remove(editorConfigFile);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return (expireAfterWriteNanos >= 0 && now - entry.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos >= 0 && now - entry.accessTime >= expireAfterAccessNanos);
+    }
+
+    private void put(Resource editorConfigFile, EditorConfig editorConfig) {
+        lock.lock();
+        try {
+            remove(editorConfigFile);
+            final long now = ticker.getAsLong();
+            if (expireAfterAccessNanos >= 0) {
+                /* Both segments are in access order so the expired entries are at their heads */
+                removeExpiredHeads(probation, now);
+                removeExpiredHeads(protectedSegment, now);
+            }
+            final Entry entry = new Entry(editorConfig, weigher.weigh(editorConfigFile, editorConfig), now);
+            probation.put(editorConfigFile, entry);
+            totalWeight += entry.weight;
+            while (totalWeight > maximumWeight) {
+                final LinkedHashMap<Resource, Entry> segment = probation.isEmpty() ? protectedSegment
+                        : probation;
+                final Iterator<Map.Entry<Resource, Entry>> it = segment.entrySet().iterator();
+                final Entry victim = it.next().getValue();
+                it.remove();
+                removed(victim);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the given {@code editorConfig} unless {@link #invalidate(Resource)} or {@link #clear()} was called while
+     * it was loading.
+     *
+     * @param editorConfigFile the {@link Resource} the {@code editorConfig} was loaded from
+     * @param editorConfig the loaded {@link EditorConfig}
+     * @param loadingEntry the {@link CompletableFuture} registered in {@link #loading} before loading
+     */
+    private void putIfStillLoading(Resource editorConfigFile, EditorConfig editorConfig,
+            CompletableFuture<EditorConfig> loadingEntry) {
+        lock.lock();
+        try {
+            if (loading.remove(editorConfigFile, loadingEntry)) {
+                put(editorConfigFile, editorConfig);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(Resource editorConfigFile) {
+        Entry entry = probation.remove(editorConfigFile);
+        if (entry == null) {
+            entry = protectedSegment.remove(editorConfigFile);
+        }
+        if (entry != null) {
+            removed(entry);
+        }
+    }
+
+    private void removed(Entry entry) {
+        totalWeight -= entry.weight;
+        if (entry.inProtectedSegment) {
+            protectedWeight -= entry.weight;
+        }
+    }
+
+    private void removeExpired(LinkedHashMap<Resource, Entry> segment, long now) {
+        final Iterator<Entry> it = segment.values().iterator();
+        while (it.hasNext()) {
+            final Entry entry = it.next();
+            if (isExpired(entry, now)) {
+                it.remove();
+                removed(entry);
+            }
+        }
+    }
+
+    private void removeExpiredHeads(LinkedHashMap<Resource, Entry> segment, long now) {
+        final Iterator<Entry> it = segment.values().iterator();
+        while (it.hasNext()) {
+            final Entry entry = it.next();
+            if (now - entry.accessTime < expireAfterAccessNanos) {
+                break;
+            }
+            it.remove();
+            removed(entry);
+        }
+    }
+
+    /**
+     * @return the number of entries currently held by this {@link Cache} including the expired ones that were not
+     *         removed yet
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return probation.size() + protectedSegment.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -17,8 +17,13 @@
 package org.ec4j.core;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
 
 import org.ec4j.core.model.EditorConfig;
 
@@ -64,6 +69,12 @@ public interface Cache {
                 return result;
             }
 
+            /** {@inheritDoc} */
+            @Override
+            public void invalidate(Resource editorConfigFile) {
+                entries.remove(editorConfigFile);
+            }
+
         }
 
         /** {@link #NO_CACHE} keeps no state, we can thus have a singleton */
@@ -86,6 +97,33 @@ public interface Cache {
             return NO_CACHE;
         }
 
+        /** The default time source of the {@link Cache}s that need one */
+        static final LongSupplier SYSTEM_TICKER = new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return System.nanoTime();
+            }
+        };
+
+        /**
+         * A shorthand for {@code BoundedCache.builder().maximumSize(maximumSize).build()}.
+         *
+         * @param maximumSize the maximum number of entries the returned {@link Cache} should hold
+         * @return a new {@link BoundedCache}
+         * @since 1.2.1
+         */
+        public static BoundedCache bounded(long maximumSize) {
+            return BoundedCache.builder().maximumSize(maximumSize).build();
+        }
+
+        /**
+         * @return a new {@link ConcurrentCache}
+         * @since 1.2.1
+         */
+        public static ConcurrentCache concurrent() {
+            return new ConcurrentCache();
+        }
+
         /**
          * @return a new {@link PermanentCache}
          */
@@ -93,10 +131,220 @@ public interface Cache {
             return new PermanentCache();
         }
 
+        /**
+         * A shorthand for {@code watching(delegate, WatchingCache.DEFAULT_MAX_DIRECTORIES)}.
+         *
+         * @param delegate the {@link Cache} to store the entries
+         * @return a new {@link WatchingCache} decorating the given {@code delegate}
+         * @throws IOException if the {@link java.nio.file.WatchService} cannot be created
+         * @since 1.2.1
+         */
+        public static WatchingCache watching(Cache delegate) throws IOException {
+            return new WatchingCache(delegate, WatchingCache.DEFAULT_MAX_DIRECTORIES);
+        }
+
+        /**
+         * @param delegate the {@link Cache} to store the entries
+         * @param maxDirectories the maximal number of directories to watch at once; the least recently used directory
+         *        is not watched anymore when the limit is exceeded
+         * @return a new {@link WatchingCache} decorating the given {@code delegate}
+         * @throws IOException if the {@link java.nio.file.WatchService} cannot be created
+         * @since 1.2.1
+         */
+        public static WatchingCache watching(Cache delegate, int maxDirectories) throws IOException {
+            return new WatchingCache(delegate, maxDirectories);
+        }
+
+        /**
+         * A shorthand for {@code directory(directory, PropertyTypeRegistry.default_())}.
+         *
+         * @param directory the cache directory; created if it does not exist
+         * @return a new {@link DirectoryCache}
+         * @throws IOException if the cache {@code directory} cannot be created
+         * @since 1.2.1
+         */
+        public static DirectoryCache directory(Path directory) throws IOException {
+            return new DirectoryCache(directory, PropertyTypeRegistry.default_());
+        }
+
+        /**
+         * @param directory the cache directory; created if it does not exist
+         * @param registry the {@link PropertyTypeRegistry} to look up the types of the deserialized properties in
+         * @return a new {@link DirectoryCache}
+         * @throws IOException if the cache {@code directory} cannot be created
+         * @since 1.2.1
+         */
+        public static DirectoryCache directory(Path directory, PropertyTypeRegistry registry) throws IOException {
+            return new DirectoryCache(directory, registry);
+        }
+
+        /**
+         * A shorthand for
+         * {@code sharedMapped(file, SharedMappedCache.DEFAULT_CAPACITY, PropertyTypeRegistry.default_())}.
+         *
+         * @param file the store file shared with other processes; created if it does not exist
+         * @return a new {@link SharedMappedCache}
+         * @throws IOException on I/O problems when opening or initializing the store {@code file}
+         * @since 1.2.1
+         */
+        public static SharedMappedCache sharedMapped(Path file) throws IOException {
+            return new SharedMappedCache(file, SharedMappedCache.DEFAULT_CAPACITY, PropertyTypeRegistry.default_());
+        }
+
+        /**
+         * @param file the store file shared with other processes; created if it does not exist
+         * @param capacity the size of the store file in bytes if it needs to be created; the capacity of an existing
+         *        store file is kept
+         * @param registry the {@link PropertyTypeRegistry} to look up the types of the deserialized properties in
+         * @return a new {@link SharedMappedCache}
+         * @throws IOException on I/O problems when opening or initializing the store {@code file}
+         * @since 1.2.1
+         */
+        public static SharedMappedCache sharedMapped(Path file, long capacity, PropertyTypeRegistry registry)
+                throws IOException {
+            return new SharedMappedCache(file, capacity, registry);
+        }
+
+        /**
+         * A shorthand for {@code snapshot(file, PropertyTypeRegistry.default_())}.
+         *
+         * @param file the snapshot file to read the entries from and to write them to; does not need to exist
+         * @return a new {@link SnapshotCache}
+         * @throws IOException on I/O problems when reading the snapshot {@code file}
+         * @since 1.2.1
+         */
+        public static SnapshotCache snapshot(Path file) throws IOException {
+            return new SnapshotCache(file, PropertyTypeRegistry.default_());
+        }
+
+        /**
+         * @param file the snapshot file to read the entries from and to write them to; does not need to exist
+         * @param registry the {@link PropertyTypeRegistry} to look up the types of the deserialized properties in
+         * @return a new {@link SnapshotCache}
+         * @throws IOException on I/O problems when reading the snapshot {@code file}
+         * @since 1.2.1
+         */
+        public static SnapshotCache snapshot(Path file, PropertyTypeRegistry registry) throws IOException {
+            return new SnapshotCache(file, registry);
+        }
+
+        /**
+         * A shorthand for {@code ValidatingCache.builder().build()}.
+         *
+         * @return a new {@link ValidatingCache} with the default settings
+         * @since 1.2.1
+         */
+        public static ValidatingCache validating() {
+            return ValidatingCache.builder().build();
+        }
+
         private Caches() {
         }
 
     }
 
+    /**
+     * A callback notified by the {@link Cache}s that learn about changes of the {@code .editorconfig} files on their
+     * own, such as {@link WatchingCache}.
+     *
+     * @since 1.2.1
+     */
+    interface InvalidationListener {
+
+        /**
+         * Called when the given {@code editorConfigFile} was created, modified or deleted, or when its entry was
+         * removed from the {@link Cache} for any other reason.
+         *
+         * @param editorConfigFile the {@link Resource} whose entry is not valid anymore
+         */
+        void invalidated(Resource editorConfigFile);
+
+    }
+
+    /**
+     * Registers the given {@link InvalidationListener}. The {@link Cache}s that cannot detect any changes of the
+     * {@code .editorconfig} files never call the listeners and thus this default implementation does nothing.
+     *
+     * @param listener the {@link InvalidationListener} to notify
+     * @since 1.2.1
+     */
+    default void addInvalidationListener(InvalidationListener listener) {
+    }
+
+    /**
+     * Unregisters the given {@link InvalidationListener} registered via
+     * {@link #addInvalidationListener(InvalidationListener)} before. This default implementation does nothing.
+     *
+     * @param listener the {@link InvalidationListener} not to notify anymore
+     * @since 1.2.1
+     */
+    default void removeInvalidationListener(InvalidationListener listener) {
+    }
+
+    /**
+     * Tells whether the given {@code editorConfigFile} exists. {@link ResourcePropertiesService} calls this method
+     * before calling {@link #get(Resource, EditorConfigLoader)} so that the implementations can observe or remember the
+     * results of the existence checks. This default implementation simply returns {@link Resource#exists()}.
+     *
+     * @param editorConfigFile the {@link Resource} to check
+     * @return {@code true} if the given {@code editorConfigFile} exists; {@code false} otherwise
+     * @since 1.2.1
+     */
+    default boolean exists(Resource editorConfigFile) {
+        return editorConfigFile.exists();
+    }
+
+    /**
+     * Returns an {@link EditorConfig} for the given {@code editorConfigFile}, either a cached one or a new one obtained
+     * via {@link EditorConfigLoader#load(Resource)}.
+     *
+     * @param editorConfigFile the {@link Resource} to get the {@link EditorConfig} for
+     * @param loader the {@link EditorConfigLoader} to use if the {@link EditorConfig} needs to be loaded
+     * @return the {@link EditorConfig} for the given {@code editorConfigFile}
+     * @throws IOException on I/O problems during the loading
+     */
     EditorConfig get(Resource editorConfigFile, EditorConfigLoader loader) throws IOException;
-}
\ No newline at end of file
+
+    /**
+     * An asynchronous variant of {@link #get(Resource, EditorConfigLoader)} that does not block the calling thread.
+     * This default implementation calls {@link #get(Resource, EditorConfigLoader)} on the given {@code executor}.
+     *
+     * @param editorConfigFile the {@link Resource} to get the {@link EditorConfig} for
+     * @param loader the {@link EditorConfigLoader} to use if the {@link EditorConfig} needs to be loaded
+     * @param executor the {@link Executor} to perform any blocking work on
+     * @return a {@link CompletableFuture} completed with the {@link EditorConfig} for the given
+     *         {@code editorConfigFile} or completed exceptionally with the {@link IOException} thrown during the
+     *         loading
+     * @since 1.2.1
+     */
+    default CompletableFuture<EditorConfig> getAsync(final Resource editorConfigFile, final EditorConfigLoader loader,
+            Executor executor) {
+        final CompletableFuture<EditorConfig> result = new CompletableFuture<>();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        result.complete(get(editorConfigFile, loader));
+                    } catch (IOException | RuntimeException | Error e) {
+                        result.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Removes any state associated with the given {@code editorConfigFile} from this {@link Cache} so that it gets
+     * loaded again on the next {@link #get(Resource, EditorConfigLoader)} call. This default implementation does
+     * nothing, which is right for {@link Cache}s that keep no state.
+     *
+     * @param editorConfigFile the {@link Resource} whose entry should be removed
+     * @since 1.2.1
+     */
+    default void invalidate(Resource editorConfigFile) {
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+import org.ec4j.core.model.EditorConfig;
+
+/**
+ * The helpers shared by the {@link Cache}s that load each {@link EditorConfig} only once even if several threads ask
+ * for it at once.
+ */
+final class CacheLoading {
+
+    /**
+     * @param future the {@link CompletableFuture} to copy
+     * @param <T> the type of the result
+     * @return a new {@link CompletableFuture} completed with the same result or exception as the given {@code future}
+     *         once it completes
+     */
+    static <T> CompletableFuture<T> copy(CompletableFuture<T> future) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T value, Throwable e) {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Waits for the given {@code entry} to complete and returns its result.
+     *
+     * @param entry the {@link CompletableFuture} to wait for
+     * @param <T> the type of the result
+     * @return the result the given {@code entry} was completed with
+     * @throws IOException if the given {@code entry} was completed with an {@link IOException} or if the current thread
+     *         was interrupted while waiting
+     */
+    static <T> T await(CompletableFuture<T> entry) throws IOException {
+        try {
+            return entry.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final InterruptedIOException ie = new InterruptedIOException(
+                    "Interrupted while waiting for an EditorConfig file to load");
+            ie.initCause(e);
+            throw ie;
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    /**
+     * Loads the given {@code editorConfigFile} using the given {@code loader} and completes the given {@code entry}
+     * with the result. If the loading fails, the {@code entry} is completed exceptionally and it is removed from
+     * {@code entries}.
+     *
+     * @param editorConfigFile the {@link Resource} to load
+     * @param loader the {@link EditorConfigLoader} to use
+     * @param entry the {@link CompletableFuture} to complete
+     * @param entries the {@link Map} to remove the {@code entry} from if the loading fails
+     * @return the loaded {@link EditorConfig}
+     * @throws IOException passed through from {@link EditorConfigLoader#load(Resource)}
+     */
+    static EditorConfig load(Resource editorConfigFile, EditorConfigLoader loader,
+            CompletableFuture<EditorConfig> entry, Map<Resource, CompletableFuture<EditorConfig>> entries)
+            throws IOException {
+        try {
+            final EditorConfig result = loader.load(editorConfigFile);
+            entry.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            entries.remove(editorConfigFile, entry);
+            entry.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private CacheLoading() {
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.ec4j.core.model.EditorConfig;
+
+/**
+ * A {@link ConcurrentHashMap} based {@link Cache} whose entries are kept forever unless {@link #clear()} or
+ * {@link #invalidate(Resource)} is called.
+ * <p>
+ * Instances of this class can be accessed from concurrent threads safely. Getting an entry that was loaded already does
+ * not lock. If several threads ask for the same {@link Resource} at once, only one of them calls
+ * {@link EditorConfigLoader#load(Resource)} and the others wait for its result. If the loading fails, the waiting
+ * threads get the same exception and the next {@link #get(Resource, EditorConfigLoader)} call tries to load again.
+ * <p>
+ * Note that the {@link EditorConfigLoader} passed to {@link #get(Resource, EditorConfigLoader)} may still be called
+ * from concurrent threads for distinct {@link Resource}s.
+ *
+ * @since 1.2.1
+ */
+public class ConcurrentCache implements Cache {
+    private final ConcurrentMap<Resource, CompletableFuture<EditorConfig>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Removes all entries from this {@link Cache}.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public EditorConfig get(Resource editorConfigFile, EditorConfigLoader loader) throws IOException {
+        CompletableFuture<EditorConfig> entry = entries.get(editorConfigFile);
+        if (entry == null) {
+            final CompletableFuture<EditorConfig> newEntry = new CompletableFuture<>();
+            entry = entries.putIfAbsent(editorConfigFile, newEntry);
+            if (entry == null) {
+                /* This thread won the race and has to do the loading */
+                return CacheLoading.load(editorConfigFile, loader, newEntry, entries);
+            }
+        }
+        return CacheLoading.await(entry);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Concurrent calls for a {@link Resource} that is being loaded share the same loading; the callers do not block on
+     * it.
+     */
+    @Override
+    public CompletableFuture<EditorConfig> getAsync(final Resource editorConfigFile,
+            final EditorConfigLoader loader, Executor executor) {
+        CompletableFuture<EditorConfig> entry = entries.get(editorConfigFile);
+        if (entry == null) {
+            final CompletableFuture<EditorConfig> newEntry = new CompletableFuture<>();
+            entry = entries.putIfAbsent(editorConfigFile, newEntry);
+            if (entry == null) {
+                /* This thread won the race and has to arrange the loading */
+                entry = newEntry;
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                CacheLoading.load(editorConfigFile, loader, newEntry, entries);
+                            } catch (IOException | RuntimeException | Error e) {
+                                /* newEntry was completed exceptionally by load() */
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    entries.remove(editorConfigFile, newEntry);
+                    newEntry.completeExceptionally(e);
+                }
+            }
+        }
+        /* A copy so that the callers cannot complete or cancel the cached entry */
+        return CacheLoading.copy(entry);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void invalidate(Resource editorConfigFile) {
+        entries.remove(editorConfigFile);
+    }
+
+}
@@ -0,0 +1,288 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.ec4j.core.Resource.Metadata;
+import org.ec4j.core.Resource.Resources.PathResource;
+import org.ec4j.core.model.EditorConfig;
+import org.ec4j.core.model.EditorConfigSnapshot;
+
+/**
+ * A {@link Cache} persisting the loaded {@link EditorConfig}s in a cache directory, one file per {@code .editorconfig}
+ * file, so that they survive between JVM runs. This is useful e.g. for build tool plugins that load the same
+ * {@code .editorconfig} files in a fresh JVM or class loader on every build.
+ * <p>
+ * The entries are keyed by the canonical path of the {@link Resource} and they store a hash of the content of the
+ * {@link Resource} at the time of loading. Before an entry is reused, the hash of the current content is compared
+ * with the stored one, so that a changed {@code .editorconfig} file is always reloaded even if its modification time
+ * is not. Within a single JVM, the validated entries are kept in memory and the content is hashed again only when
+ * the {@link Metadata} of the {@link Resource} changes.
+ * <p>
+ * The entry files are written to temporary files first which then atomically replace the entry files, so that
+ * several JVMs can share the same cache directory without locking: a reader sees either the old or the new entry
+ * file, but never a partially written one. Corrupted and outdated entry files are ignored and overwritten.
+ * <p>
+ * The {@link Resource}s providing no {@link Metadata} are not cached at all.
+ * <p>
+ * Instances of this class can be accessed from concurrent threads safely. Two threads asking for the same uncached
+ * {@link Resource} at once may both load it.
+ *
+ * @since 1.2.1
+ */
+public class DirectoryCache implements Cache {
+
+    /**
+     * A validated {@link EditorConfig} together with the state of its {@link Resource}.
+     */
+    private static class Entry {
+        private final EditorConfig editorConfig;
+        private final byte[] hash;
+        private final Metadata metadata;
+
+        private Entry(EditorConfig editorConfig, Metadata metadata, byte[] hash) {
+            super();
+            this.editorConfig = editorConfig;
+            this.metadata = metadata;
+            this.hash = hash;
+        }
+    }
+
+    /** The first four bytes of an entry file: {@code EC4D} */
+    private static final int MAGIC = 0x45433444;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * @param editorConfigFile the {@link Resource} to find the key for
+     * @return the real path of the given {@link PathResource} or the {@link Resource#toString()} of other
+     *         {@link Resource}s
+     */
+    static String canonicalKey(Resource editorConfigFile) {
+        if (editorConfigFile instanceof PathResource) {
+            final Path path = ((PathResource) editorConfigFile).path;
+            try {
+                return "path:" + path.toRealPath();
+            } catch (IOException e) {
+                return "path:" + path.toAbsolutePath().normalize();
+            }
+        }
+        return editorConfigFile.toString();
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        final byte[] result = new byte[in.getInt()];
+        in.get(result);
+        return result;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private final Path directory;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final PropertyTypeRegistry registry;
+
+    /**
+     * Use {@link Cache.Caches#directory(Path)} or {@link Cache.Caches#directory(Path, PropertyTypeRegistry)} to create
+     * new instances.
+     *
+     * @param directory the cache directory
+     * @param registry the {@link PropertyTypeRegistry} to pass to {@link EditorConfigSnapshot}
+     * @throws IOException if the cache {@code directory} cannot be created
+     */
+    DirectoryCache(Path directory, PropertyTypeRegistry registry) throws IOException {
+        super();
+        this.directory = Files.createDirectories(directory.toAbsolutePath());
+        this.registry = registry;
+    }
+
+    /**
+     * @param key the canonical key of a {@link Resource}
+     * @return the path of the entry file for the given {@code key}
+     */
+    Path entryFile(String key) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+        final char[] name = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            name[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+            name[2 * i + 1] = HEX_DIGITS[hash[i] & 0xf];
+        }
+        return directory.resolve(new String(name) + ".ec4j");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public EditorConfig get(Resource editorConfigFile, EditorConfigLoader loader) throws IOException {
+        Metadata metadata;
+        try {
+            metadata = editorConfigFile.getMetadata();
+        } catch (IOException e) {
+            /* e.g. the file does not exist; let the loader report the problem */
+            metadata = null;
+        }
+        if (metadata == null) {
+            return loader.load(editorConfigFile);
+        }
+        final String key = canonicalKey(editorConfigFile);
+        final Entry entry = entries.get(key);
+        if (entry != null && entry.metadata.equals(metadata)) {
+            return entry.editorConfig;
+        }
+        final byte[] hash = ValidatingCache.hash(editorConfigFile);
+        if (entry != null && Arrays.equals(entry.hash, hash)) {
+            entries.put(key, new Entry(entry.editorConfig, metadata, hash));
+            return entry.editorConfig;
+        }
+        final Path entryFile = entryFile(key);
+        final EditorConfig stored = readEntryFile(entryFile, key, hash);
+        if (stored != null) {
+            entries.put(key, new Entry(stored, metadata, hash));
+            return stored;
+        }
+        final EditorConfig result = loader.load(editorConfigFile);
+        entries.put(key, new Entry(result, metadata, hash));
+        writeEntryFile(entryFile, key, hash, result);
+        return result;
+    }
+
+    /**
+     * @return the cache directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Removes the entry of the given {@link Resource} both from memory and from the cache directory.
+     *
+     * @param editorConfigFile the {@link Resource} whose entry should be removed
+     */
+    @Override
+    public void invalidate(Resource editorConfigFile) {
+        final String key = canonicalKey(editorConfigFile);
+        entries.remove(key);
+        try {
+            Files.deleteIfExists(entryFile(key));
+        } catch (IOException e) {
+            /* The stale entry file will be ignored anyway as its hash does not match */
+        }
+    }
+
+    /**
+     * @param entryFile the entry file to read
+     * @param key the expected key
+     * @param hash the expected hash of the content
+     * @return the stored {@link EditorConfig} or {@code null} if the {@code entryFile} does not exist, is corrupted or
+     *         outdated or if it does not match the given {@code key} and {@code hash}
+     */
+    private EditorConfig readEntryFile(Path entryFile, String key, byte[] hash) {
+        final ByteBuffer in;
+        try {
+            in = ByteBuffer.wrap(Files.readAllBytes(entryFile));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            /* Unreadable; it will be overwritten */
+            return null;
+        }
+        try {
+            if (in.remaining() < 8 || in.getInt() != MAGIC || in.getInt() != EditorConfigSnapshot.FORMAT_VERSION) {
+                return null;
+            }
+            if (!key.equals(new String(readBytes(in), StandardCharsets.UTF_8))
+                    || !Arrays.equals(hash, readBytes(in))) {
+                /* A different file with the same SHA-1 of the key (unlikely) or a changed content */
+                return null;
+            }
+            return EditorConfigSnapshot.read(in, registry);
+        } catch (IOException | RuntimeException e) {
+            /* A corrupted entry file; it will be overwritten */
+            return null;
+        }
+    }
+
+    /**
+     * Writes the given {@link EditorConfig} to a temporary file and atomically moves it to the given {@code entryFile}.
+     * A failure to write is not fatal because the {@link EditorConfig} was loaded already.
+     *
+     * @param entryFile the entry file to write
+     * @param key the canonical key of the {@link Resource} the {@code editorConfig} was loaded from
+     * @param hash the hash of the content the {@code editorConfig} was loaded from
+     * @param editorConfig the {@link EditorConfig} to store
+     */
+    private void writeEntryFile(Path entryFile, String key, byte[] hash, EditorConfig editorConfig) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeInt(EditorConfigSnapshot.FORMAT_VERSION);
+            writeBytes(out, key.getBytes(StandardCharsets.UTF_8));
+            writeBytes(out, hash);
+            EditorConfigSnapshot.write(editorConfig, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(directory, entryFile.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                buffer.writeTo(out);
+            }
+            try {
+                Files.move(tempFile, entryFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+        } catch (IOException e) {
+            /* e.g. a read-only cache directory; the next JVM will load the file again */
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    /* ignore */
+                }
+            }
+        }
+    }
+
+}
@@ -17,8 +17,12 @@
 package org.ec4j.core;
 
 import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.ec4j.core.model.EditorConfig;
+import org.ec4j.core.model.Interner;
 import org.ec4j.core.model.Version;
 import org.ec4j.core.parser.EditorConfigModelHandler;
 import org.ec4j.core.parser.EditorConfigParser;
@@ -26,6 +30,16 @@ import org.ec4j.core.parser.ErrorHandler;
 
 /**
  * Implements the capability of loading an {@link EditorConfig} object out of a {@link Resource}.
+ * <p>
+ * {@link EditorConfigLoader}s created via {@link #default_()}, {@link #of(Version)} and the other factory methods
+ * are safe to be used by multiple threads concurrently: each {@link #load(Resource)} invocation uses its own
+ * {@link EditorConfigModelHandler} and an {@link EditorConfigParser} borrowed from a bounded pool. An
+ * {@link EditorConfigLoader} created via {@link #EditorConfigLoader(EditorConfigModelHandler, ErrorHandler)} has
+ * to share the given {@link EditorConfigModelHandler} among all {@link #load(Resource)} invocations and therefore
+ * serializes them.
+ * <p>
+ * Unless created with a given {@link EditorConfigModelHandler}, the {@link EditorConfigLoader}s share the immutable
+ * model elements of the loaded {@link EditorConfig}s via {@link Interner#global()}.
  *
  * @author <a href="https://github.com/ppalaga">Peter Palaga</a>
  */
@@ -36,7 +50,7 @@ public class EditorConfigLoader {
      *         and {@link ErrorHandler#THROW_SYNTAX_ERRORS_IGNORE_OTHERS}
      */
     public static EditorConfigLoader default_() {
-        return new EditorConfigLoader(new EditorConfigModelHandler(PropertyTypeRegistry.default_(), Version.CURRENT),
+        return new EditorConfigLoader(PropertyTypeRegistry.default_(), Version.CURRENT,
                 ErrorHandler.THROW_SYNTAX_ERRORS_IGNORE_OTHERS);
     }
 
@@ -49,18 +63,96 @@ public class EditorConfigLoader {
     }
 
     public static EditorConfigLoader of(Version version, PropertyTypeRegistry registry, ErrorHandler errorHandler) {
-        return new EditorConfigLoader(new EditorConfigModelHandler(registry, version), errorHandler);
+        return new EditorConfigLoader(registry, version, errorHandler);
     }
 
+    /**
+     * @param version the {@link Version} of the EditorConfig specification to comply with
+     * @param registry the {@link PropertyTypeRegistry} to use
+     * @param errorHandler the {@link ErrorHandler} to notify on parse errors
+     * @param lazyValues if {@code true} the loaded property values having a
+     *        {@link org.ec4j.core.model.PropertyType} will be parsed on first access rather than at load time; see
+     *        {@link EditorConfigModelHandler}
+     * @return a new {@link EditorConfigLoader}
+     * @since 1.2.1
+     */
+    public static EditorConfigLoader of(Version version, PropertyTypeRegistry registry, ErrorHandler errorHandler,
+            boolean lazyValues) {
+        return new EditorConfigLoader(registry, version, errorHandler, lazyValues);
+    }
+
+    /** The upper bound of the number of idle {@link EditorConfigParser}s kept in {@link #parsers} */
+    private static final int MAX_POOLED_PARSERS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
     private final ErrorHandler errorHandler;
 
+    /** The handler passed via {@link #EditorConfigLoader(EditorConfigModelHandler, ErrorHandler)} or {@code null} */
     private final EditorConfigModelHandler handler;
-    private final EditorConfigParser parser;
 
+    /**
+     * Serializes the usage of {@link #handler} or {@code null} if {@link #handler} is {@code null}; a
+     * {@link ReentrantLock} rather than a monitor so that a virtual thread waiting for it or reading under it does not
+     * pin its carrier thread
+     */
+    private final ReentrantLock handlerLock;
+
+    /** The idle {@link EditorConfigParser}s */
+    private final BlockingQueue<EditorConfigParser> parsers = new ArrayBlockingQueue<>(MAX_POOLED_PARSERS);
+
+    private final boolean lazyValues;
+    private final PropertyTypeRegistry registry;
+    private final Version version;
+
+    /**
+     * Creates a new {@link EditorConfigLoader} that uses the given {@code handler} for all {@link #load(Resource)}
+     * invocations. Because {@link EditorConfigModelHandler} is stateful, the {@link #load(Resource)} invocations are
+     * serialized. Prefer {@link #EditorConfigLoader(PropertyTypeRegistry, Version, ErrorHandler)} if this
+     * {@link EditorConfigLoader} is to be used by multiple threads.
+     *
+     * @param handler the {@link EditorConfigModelHandler} to use
+     * @param errorHandler the {@link ErrorHandler} to notify on parse errors
+     */
     public EditorConfigLoader(EditorConfigModelHandler handler, ErrorHandler errorHandler) {
         super();
-        this.parser = EditorConfigParser.default_();
         this.handler = handler;
+        this.handlerLock = new ReentrantLock();
+        this.registry = null;
+        this.version = null;
+        this.lazyValues = false;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Creates a new {@link EditorConfigLoader} that can be used by multiple threads concurrently.
+     *
+     * @param registry the {@link PropertyTypeRegistry} to pass to the {@link EditorConfigModelHandler}s
+     * @param version the {@link Version} to pass to the {@link EditorConfigModelHandler}s
+     * @param errorHandler the {@link ErrorHandler} to notify on parse errors
+     * @since 1.2.1
+     */
+    public EditorConfigLoader(PropertyTypeRegistry registry, Version version, ErrorHandler errorHandler) {
+        this(registry, version, errorHandler, false);
+    }
+
+    /**
+     * Creates a new {@link EditorConfigLoader} that can be used by multiple threads concurrently.
+     *
+     * @param registry the {@link PropertyTypeRegistry} to pass to the {@link EditorConfigModelHandler}s
+     * @param version the {@link Version} to pass to the {@link EditorConfigModelHandler}s
+     * @param errorHandler the {@link ErrorHandler} to notify on parse errors
+     * @param lazyValues if {@code true} the loaded property values having a
+     *        {@link org.ec4j.core.model.PropertyType} will be parsed on first access rather than at load time; see
+     *        {@link EditorConfigModelHandler}
+     * @since 1.2.1
+     */
+    public EditorConfigLoader(PropertyTypeRegistry registry, Version version, ErrorHandler errorHandler,
+            boolean lazyValues) {
+        super();
+        this.handler = null;
+        this.handlerLock = null;
+        this.registry = registry;
+        this.version = version;
+        this.lazyValues = lazyValues;
         this.errorHandler = errorHandler;
     }
 
@@ -74,12 +166,30 @@ public class EditorConfigLoader {
      *         on I/O problems during the reading from the given {@link Resource}
      */
     public EditorConfig load(Resource configFile) throws IOException {
+        if (handler != null) {
+            handlerLock.lock();
+            try {
+                return load(configFile, handler);
+            } finally {
+                handlerLock.unlock();
+            }
+        }
+        return load(configFile, new EditorConfigModelHandler(registry, version, lazyValues, Interner.global()));
+    }
+
+    private EditorConfig load(Resource configFile, EditorConfigModelHandler useHandler) throws IOException {
+        EditorConfigParser parser = parsers.poll();
+        if (parser == null) {
+            parser = EditorConfigParser.default_();
+        }
         try {
-            parser.parse(configFile, handler, errorHandler);
-            EditorConfig result = handler.getEditorConfig();
+            parser.parse(configFile, useHandler, errorHandler);
+            EditorConfig result = useHandler.getEditorConfig();
+            /* A parser that has thrown is not returned to the pool, as it might be left in an inconsistent state */
+            parsers.offer(parser);
             return result;
         } catch (IOException e) {
             throw new IOException("Could not load " + configFile.getPath(), e);
         }
     }
-}
\ No newline at end of file
+}
@@ -25,12 +25,16 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Locale;
@@ -159,6 +163,40 @@ public interface Resource {
             }
         }
 
+        /**
+         * If the given {@code charset} is a {@link BomCharset}, skips the BOM sequence in the given {@code buffer} by
+         * advancing its position and returns the given {@code buffer}; otherwise just returns the given
+         * {@code buffer}.
+         *
+         * @param buffer the {@link ByteBuffer} to process
+         * @param charset the encoding of the {@code buffer}
+         * @return {@code buffer}
+         * @since 1.2.1
+         */
+        public static ByteBuffer skipBom(ByteBuffer buffer, Charset charset) {
+            if (charset instanceof BomCharset) {
+                final Bom bom = ((BomCharset) charset).getBom();
+                final int bomLength = bom.bomBytes.length;
+                final int start = buffer.position();
+                if (!buffer.hasRemaining()) {
+                    /* Handle zero length files as valid */
+                    return buffer;
+                } else if (bomLength > buffer.remaining()) {
+                    throw new IllegalStateException("Input too short; expected to start with Byte Order Mark (BOM)");
+                }
+                for (int i = 0; i < bomLength; i++) {
+                    byte c = buffer.get(start + i);
+                    if (c != bom.bomBytes[i]) {
+                        throw new IllegalStateException(String.format(
+                                "Input expected to start with Byte Order Mark (BOM) [%s], found [0x%02X] at offset [%d]",
+                                bom.bomBytesHumanReadable(), c, i));
+                    }
+                }
+                buffer.position(start + bomLength);
+            }
+            return buffer;
+        }
+
         /**
          * If the given {@code charset} is a {@link BomCharset}, skips the BOM sequence in the given {@code inputStream}
          * and returns the given {@code inputStream}; otherwise just returns the given {@code inputStream}.
@@ -297,6 +335,70 @@ public interface Resource {
 
     }
 
+    /**
+     * The modification time and the size of a {@link Resource} that can be used to find out cheaply whether the
+     * {@link Resource} has changed since it was read last time.
+     *
+     * @since 1.2.1
+     */
+    class Metadata {
+        private final long lastModifiedTime;
+        private final long size;
+
+        /**
+         * @param lastModifiedTime the time of the last modification in milliseconds since the epoch
+         * @param size the size of the resource; typically in bytes
+         */
+        public Metadata(long lastModifiedTime, long size) {
+            super();
+            this.lastModifiedTime = lastModifiedTime;
+            this.size = size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            Metadata other = (Metadata) obj;
+            return lastModifiedTime == other.lastModifiedTime && size == other.size;
+        }
+
+        /**
+         * @return the time of the last modification in milliseconds since the epoch
+         */
+        public long getLastModifiedTime() {
+            return lastModifiedTime;
+        }
+
+        /**
+         * @return the size of the resource; typically in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + (int) (lastModifiedTime ^ (lastModifiedTime >>> 32));
+            result = prime * result + (int) (size ^ (size >>> 32));
+            return result;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return "Metadata [lastModifiedTime=" + lastModifiedTime + ", size=" + size + "]";
+        }
+    }
+
     /**
      * A readed allowing to access a character on any offset in the underlying resource.
      */
@@ -452,6 +554,13 @@ public interface Resource {
                 return Files.exists(path);
             }
 
+            /** {@inheritDoc} */
+            @Override
+            public Metadata getMetadata() throws IOException {
+                final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return new Metadata(attributes.lastModifiedTime().toMillis(), attributes.size());
+            }
+
             /** {@inheritDoc} */
             @Override
             public ResourcePath getParent() {
@@ -477,6 +586,32 @@ public interface Resource {
                 return new StringRandomReader(Bom.skipBom(Files.readAllBytes(path), encoding));
             }
 
+            /**
+             * {@inheritDoc}
+             * <p>
+             * The content is available only if the {@link #encoding} is UTF-8 or {@code utf-8-bom}. It is read into a
+             * heap buffer rather than memory-mapped, so that no mapping outlives the parsing and keeps the file
+             * locked on some platforms until the buffer gets garbage collected.
+             */
+            @Override
+            public ByteBuffer openUtf8Buffer() throws IOException {
+                if (!StandardCharsets.UTF_8.equals(encoding) && encoding != Bom.UTF_8_BOM.getCharset()) {
+                    return null;
+                }
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    final long size = channel.size();
+                    if (size > Integer.MAX_VALUE) {
+                        return null;
+                    }
+                    final ByteBuffer result = ByteBuffer.allocate((int) size);
+                    while (result.hasRemaining() && channel.read(result) >= 0) {
+                        /* read till the buffer is full or till the end of the file */
+                    }
+                    result.flip();
+                    return Bom.skipBom(result, encoding);
+                }
+            }
+
             /** {@inheritDoc} */
             @Override
             public Reader openReader() throws IOException {
@@ -597,6 +732,17 @@ public interface Resource {
                 return resources.get(path) != null;
             }
 
+            /**
+             * {@inheritDoc}
+             * <p>
+             * The content of a {@link StringResource} never changes, so the returned {@link Metadata} never changes
+             * either.
+             */
+            @Override
+            public Metadata getMetadata() {
+                return content == null ? null : new Metadata(0L, content.length());
+            }
+
             /** {@inheritDoc} */
             @Override
             public ResourcePath getParent() {
@@ -749,6 +895,20 @@ public interface Resource {
      */
     boolean exists();
 
+    /**
+     * Returns the {@link Metadata} of this {@link Resource} that allows to find out cheaply whether the content of
+     * this {@link Resource} has changed. This default implementation returns {@code null}, which means that the
+     * {@link Metadata} is not available.
+     *
+     * @return the current {@link Metadata} of this {@link Resource} or {@code null} if the {@link Metadata} is not
+     *         available
+     * @throws IOException on I/O problems, e.g. if this {@link Resource} does not exist
+     * @since 1.2.1
+     */
+    default Metadata getMetadata() throws IOException {
+        return null;
+    }
+
     /**
      * @return the {@link ResourcePath} of the parent of this {@link Resource} or {@code null} if this {@link Resource}
      *         has no parent
@@ -768,6 +928,22 @@ public interface Resource {
      */
     RandomReader openRandomReader() throws IOException;
 
+    /**
+     * Returns the whole content of this {@link Resource} as UTF-8 encoded bytes between the position and the limit of
+     * the returned {@link ByteBuffer}, if such a representation is available without decoding the content. The BOM
+     * sequence is skipped for {@code utf-8-bom} encoded {@link Resource}s. The returned {@link ByteBuffer} may be
+     * memory-mapped and is owned by the caller. This default implementation returns {@code null}, which means that
+     * {@link #openReader()} has to be used instead.
+     *
+     * @return a {@link ByteBuffer} containing the UTF-8 encoded content of this {@link Resource} or {@code null} if
+     *         such a representation is not available
+     * @throws IOException on I/O problems
+     * @since 1.2.1
+     */
+    default ByteBuffer openUtf8Buffer() throws IOException {
+        return null;
+    }
+
     /**
      * Opens a {@link Reader} to read the content of this {@link Resource}.
      *
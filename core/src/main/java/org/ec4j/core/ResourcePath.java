@@ -140,8 +140,8 @@ public interface ResourcePath {
          */
         static class PathResourcePath implements ResourcePath {
 
-            private final Charset encoding;
-            private final Path path;
+            final Charset encoding;
+            final Path path;
 
             PathResourcePath(Path path, Charset encoding) {
                 super();
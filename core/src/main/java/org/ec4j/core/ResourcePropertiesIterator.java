@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An {@link Iterator} pulling {@link Resource}s from an underlying {@link Iterator} and returning them together with
+ * their {@link ResourceProperties} in the same order. Up to a given number of {@link Resource}s are pulled ahead of
+ * the consumer and queried concurrently on an {@link Executor}; further {@link Resource}s are pulled only as the
+ * consumer takes the results. Hence neither the {@link Resource}s nor the results are ever collected in memory as a
+ * whole.
+ * <p>
+ * Instances of this class are not safe to be iterated from concurrent threads. Use
+ * {@link ResourcePropertiesService#queryProperties(Iterator, Executor, int)} to create new instances.
+ *
+ * @since 1.2.1
+ */
+class ResourcePropertiesIterator implements Iterator<Map.Entry<Resource, ResourceProperties>> {
+
+    /** A {@link Resource} pulled from {@link ResourcePropertiesIterator#resources} and its pending query */
+    private static class Pending {
+        private final CompletableFuture<ResourceProperties> future;
+        private final Resource resource;
+
+        private Pending(Resource resource, CompletableFuture<ResourceProperties> future) {
+            super();
+            this.resource = resource;
+            this.future = future;
+        }
+    }
+
+    private final Executor executor;
+    /** The queries in the order of {@link #resources} */
+    private final ArrayDeque<Pending> pending;
+    private final Iterator<? extends Resource> resources;
+    private final ResourcePropertiesService service;
+    /** The maximal number of queries pulled ahead of the consumer */
+    private final int window;
+
+    ResourcePropertiesIterator(ResourcePropertiesService service, Iterator<? extends Resource> resources,
+            Executor executor, int window) {
+        super();
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be greater than 0; found " + window);
+        }
+        this.service = service;
+        this.resources = resources;
+        this.executor = executor;
+        this.window = window;
+        this.pending = new ArrayDeque<>(window);
+    }
+
+    /**
+     * Pulls {@link Resource}s from {@link #resources} and submits their queries until {@link #window} queries are
+     * pending or until there are no more {@link Resource}s.
+     */
+    private void fill() {
+        while (pending.size() < window && resources.hasNext()) {
+            final Resource resource = resources.next();
+            final CompletableFuture<ResourceProperties> future = new CompletableFuture<>();
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            future.complete(service.queryProperties(resource));
+                        } catch (IOException | RuntimeException | Error e) {
+                            future.completeExceptionally(e);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                /* Reported by next() in the order of the resources rather than leaving the future pending forever */
+                future.completeExceptionally(e);
+            }
+            pending.add(new Pending(resource, future));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+        fill();
+        return !pending.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Blocks until the query of the next {@link Resource} is finished.
+     *
+     * @throws UncheckedIOException on I/O problems during the reading from the {@code .editorconfig} files
+     * @throws RejectedExecutionException if the {@link Executor} did not accept the query of the next
+     *         {@link Resource}
+     */
+    @Override
+    public Map.Entry<Resource, ResourceProperties> next() {
+        fill();
+        final Pending head = pending.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        /* Keep the window full while waiting for the head */
+        fill();
+        try {
+            return new AbstractMap.SimpleImmutableEntry<>(head.resource, CacheLoading.await(head.future));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
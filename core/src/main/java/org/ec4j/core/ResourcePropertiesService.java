@@ -16,15 +16,52 @@
  */
 package org.ec4j.core;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.ec4j.core.Cache.Caches;
+import org.ec4j.core.Cache.InvalidationListener;
+import org.ec4j.core.Resource.Resources;
+import org.ec4j.core.ResourcePath.ResourcePaths;
+import org.ec4j.core.ResourcePath.ResourcePaths.PathResourcePath;
 import org.ec4j.core.model.Ec4jPath;
 import org.ec4j.core.model.EditorConfig;
 import org.ec4j.core.model.Property;
@@ -61,13 +98,16 @@ import org.ec4j.core.model.Section;
  * @author <a href="mailto:angelo.zerr@gmail.com">Angelo Zerr</a>
  * @author <a href="https://github.com/ppalaga">Peter Palaga</a>
  */
-public class ResourcePropertiesService {
+public class ResourcePropertiesService implements Closeable {
 
     public static class Builder {
         private Cache cache = Caches.none();
+        private boolean cacheLookups = false;
         private String configFileName = EditorConfigConstants.EDITORCONFIG;
         private List<EditorConfig> defaultEditorConfigs = new ArrayList<>();
         private boolean keepUnset = false;
+        private boolean shareResults = false;
+        private Executor executor = ForkJoinPool.commonPool();
         private EditorConfigLoader loader = EditorConfigLoader.default_();
         private Set<ResourcePath> rootDirectories = new LinkedHashSet<>();
 
@@ -77,7 +117,7 @@ public class ResourcePropertiesService {
             final List<EditorConfig> useDefaultEditorConfigs = Collections.unmodifiableList(defaultEditorConfigs);
             this.defaultEditorConfigs = null;
             return new ResourcePropertiesService(configFileName, useRootDirs, useDefaultEditorConfigs, cache, loader,
-                    keepUnset);
+                    keepUnset, cacheLookups, shareResults, executor);
         }
 
         /**
@@ -91,6 +131,30 @@ public class ResourcePropertiesService {
             return this;
         }
 
+        /**
+         * When set to {@code true}, the {@link ResourcePropertiesService} remembers the directories that do not contain
+         * any {@code .editorconfig} file and the ordered chain of {@code .editorconfig} files applicable to each
+         * directory it was queried for, so that querying many files in the same directory tree does not check the
+         * existence of the same files over and over again. The {@link EditorConfig}s of a remembered chain are still
+         * obtained from the {@link Cache} on every query, so that any reloading done by the {@link Cache} is honored.
+         * The number of remembered directories is bounded; the least recently used ones are forgotten first.
+         * <p>
+         * The remembered lookups of a directory and of all directories under it are forgotten when the {@link Cache}
+         * set via {@link #cache(Cache)} notifies its {@link InvalidationListener}s about an {@code .editorconfig} file
+         * in that directory, e.g. when a {@link WatchingCache} sees a new {@code .editorconfig} file. All of them are
+         * forgotten when {@link ResourcePropertiesService#clearLookups()} is called. Thus with a {@link Cache} unable
+         * to detect the changes in the file system, an {@code .editorconfig} file created after the first query in its
+         * directory tree may stay unnoticed. The default is {@code false}.
+         *
+         * @param cacheLookups see above
+         * @return this {@link Builder}
+         * @since 1.2.1
+         */
+        public Builder cacheLookups(boolean cacheLookups) {
+            this.cacheLookups = cacheLookups;
+            return this;
+        }
+
         /**
          * Sets the file name to consider as an {@code .editorconfig} file.
          *
@@ -160,6 +224,20 @@ public class ResourcePropertiesService {
             return this;
         }
 
+        /**
+         * Sets the {@link Executor} on which {@link ResourcePropertiesService#queryPropertiesAsync(Resource)} performs
+         * the blocking work, such as checking the existence of the {@code .editorconfig} files and loading them. The
+         * default is {@link ForkJoinPool#commonPool()}.
+         *
+         * @param executor the {@link Executor} to set
+         * @return this {@link Builder}
+         * @since 1.2.1
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
         /**
          * Sets the {@link EditorConfigLoader}
          *
@@ -206,6 +284,210 @@ public class ResourcePropertiesService {
             return this;
         }
 
+        /**
+         * When set to {@code true}, the files in the same directory that are matched by the same set of
+         * {@link Section}s get the same immutable {@link ResourceProperties} instance from
+         * {@link ResourcePropertiesService#queryProperties(Resource)}. Such queries then cost just the matching of the
+         * {@link Section}s and the applications retaining many {@link ResourceProperties} save some memory.
+         * <p>
+         * Sharing the results requires caching the lookups, thus setting this to {@code true} implies
+         * {@link #cacheLookups(boolean) cacheLookups(true)}. The default is {@code false}.
+         *
+         * @param shareResults see above
+         * @return this {@link Builder}
+         * @since 1.2.1
+         */
+        public Builder shareResults(boolean shareResults) {
+            this.shareResults = shareResults;
+            return this;
+        }
+
+    }
+
+    /**
+     * The {@link DirEditorConfigPair}s applicable to the files in a directory.
+     */
+    private static class Chain {
+        /** The {@link DirEditorConfigPair}s ordered bottom up, the defaults last */
+        private final List<DirEditorConfigPair> editorConfigs;
+        /**
+         * The shared {@link ResourceProperties} by the indexes of the matching {@link Section}s or {@code null} if the
+         * results are not shared
+         */
+        private final ConcurrentMap<BitSet, ResourceProperties> results;
+
+        private Chain(List<DirEditorConfigPair> editorConfigs, boolean shareResults) {
+            super();
+            this.editorConfigs = editorConfigs;
+            this.results = shareResults ? new ConcurrentHashMap<BitSet, ResourceProperties>() : null;
+        }
+    }
+
+    /**
+     * A bounded map of remembered lookups keyed by directories. Like {@link org.ec4j.core.model.GlobCache}, it is split
+     * into segments locked independently, each evicting its least recently used entries once it exceeds its share of
+     * {@link ResourcePropertiesService#MAX_CACHED_LOOKUPS}. The segments are guarded by {@link ReentrantLock}s rather
+     * than monitors so that the virtual threads waiting for them can unmount.
+     *
+     * @param <V> the type of the values
+     */
+    private static class LookupCache<V> {
+        /**
+         * A part of the {@link LookupCache} locked independently from other {@link Segment}s.
+         *
+         * @param <V> the type of the values
+         */
+        @SuppressWarnings("serial")
+        private static class Segment<V> extends LinkedHashMap<ResourcePath, V> {
+            private final ReentrantLock lock = new ReentrantLock();
+            private final int maximumSize;
+
+            private Segment(int maximumSize) {
+                super(16, 0.75f, true);
+                this.maximumSize = maximumSize;
+            }
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ResourcePath, V> eldest) {
+                return size() > maximumSize;
+            }
+        }
+
+        private static final int SEGMENT_COUNT = 8;
+
+        /**
+         * @param path the path to check
+         * @param dir the directory to check against
+         * @return {@code true} if the given {@code path} is the given {@code dir} or if it is located under it
+         */
+        private static boolean isSameOrUnder(ResourcePath path, ResourcePath dir) {
+            for (ResourcePath p = path; p != null; p = p.getParent()) {
+                if (p.equals(dir)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private final Segment<V>[] segments;
+
+        @SuppressWarnings("unchecked")
+        private LookupCache(int maximumSize) {
+            super();
+            this.segments = new Segment[SEGMENT_COUNT];
+            for (int i = 0; i < SEGMENT_COUNT; i++) {
+                segments[i] = new Segment<V>(maximumSize / SEGMENT_COUNT);
+            }
+        }
+
+        private void clear() {
+            for (Segment<V> segment : segments) {
+                segment.lock.lock();
+                try {
+                    segment.clear();
+                } finally {
+                    segment.lock.unlock();
+                }
+            }
+        }
+
+        private V get(ResourcePath dir) {
+            final Segment<V> segment = segment(dir);
+            segment.lock.lock();
+            try {
+                return segment.get(dir);
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+
+        private void put(ResourcePath dir, V value) {
+            final Segment<V> segment = segment(dir);
+            segment.lock.lock();
+            try {
+                segment.put(dir, value);
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+
+        private void remove(ResourcePath dir, V value) {
+            final Segment<V> segment = segment(dir);
+            segment.lock.lock();
+            try {
+                if (value.equals(segment.get(dir))) {
+                    segment.remove(dir);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+
+        /**
+         * Removes the entries of the given {@code dir} and of all directories under it.
+         *
+         * @param dir the directory to remove the entries for
+         */
+        private void removeSameOrUnder(ResourcePath dir) {
+            for (Segment<V> segment : segments) {
+                segment.lock.lock();
+                try {
+                    final Iterator<ResourcePath> it = segment.keySet().iterator();
+                    while (it.hasNext()) {
+                        if (isSameOrUnder(it.next(), dir)) {
+                            it.remove();
+                        }
+                    }
+                } finally {
+                    segment.lock.unlock();
+                }
+            }
+        }
+
+        private void replace(ResourcePath dir, V oldValue, V newValue) {
+            final Segment<V> segment = segment(dir);
+            segment.lock.lock();
+            try {
+                if (oldValue.equals(segment.get(dir))) {
+                    segment.put(dir, newValue);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+
+        private Segment<V> segment(ResourcePath dir) {
+            final int hash = dir.hashCode();
+            return segments[((hash ^ (hash >>> 16)) & 0x7fffffff) % SEGMENT_COUNT];
+        }
+    }
+
+    /**
+     * An {@link InvalidationListener} forgetting the lookups of a {@link ResourcePropertiesService} affected by a
+     * change of an {@code .editorconfig} file. The {@link ResourcePropertiesService} is referenced only weakly, so that
+     * a long living {@link Cache} does not keep it and its {@link LookupCache}s reachable; once the
+     * {@link ResourcePropertiesService} is collected, the next notification unregisters this listener.
+     */
+    private static class LookupInvalidator implements InvalidationListener {
+        private final Cache cache;
+        private final WeakReference<ResourcePropertiesService> service;
+
+        private LookupInvalidator(Cache cache, ResourcePropertiesService service) {
+            super();
+            this.cache = cache;
+            this.service = new WeakReference<>(service);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void invalidated(Resource editorConfigFile) {
+            final ResourcePropertiesService useService = service.get();
+            if (useService == null) {
+                cache.removeInvalidationListener(this);
+            } else {
+                useService.invalidateLookups(editorConfigFile);
+            }
+        }
     }
 
     /**
@@ -214,16 +496,156 @@ public class ResourcePropertiesService {
      */
     private static class DirEditorConfigPair {
 
+        /** The {@code .editorconfig} file or {@code null} for the default {@link EditorConfig}s */
+        private final Resource configFile;
         private final ResourcePath directory;
         private final EditorConfig editorConfig;
 
-        private DirEditorConfigPair(ResourcePath directory, EditorConfig editorConfig) {
+        private DirEditorConfigPair(ResourcePath directory, Resource configFile, EditorConfig editorConfig) {
             super();
             this.directory = directory;
+            this.configFile = configFile;
             this.editorConfig = editorConfig;
         }
     }
 
+    /**
+     * A {@link RecursiveAction} querying the {@link Property}s of the files in a directory and forking a new
+     * {@link WalkTask} for each of its subdirectories.
+     */
+    private class WalkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** The {@link DirEditorConfigPair}s applicable to {@link #dir} ordered bottom up, without the defaults */
+        private final List<DirEditorConfigPair> ancestors;
+        private final BiConsumer<? super Resource, ? super ResourceProperties> consumer;
+        private final Path dir;
+        private final Charset encoding;
+        /** The {@link BasicFileAttributes#fileKey()} of {@link #dir} or {@code null} if not following links */
+        private final Object fileKey;
+        /** The {@link LinkOption}s to read the attributes of the directory entries with */
+        private final LinkOption[] linkOptions;
+        /** The {@link Chain} of the parent directory or {@code null} if there is none to reuse */
+        private final Chain parentChain;
+        /** The {@link WalkTask} of the parent directory to detect cycles of links or {@code null} */
+        private final WalkTask parentTask;
+
+        private WalkTask(Path dir, Object fileKey, Charset encoding, List<DirEditorConfigPair> ancestors,
+                Chain parentChain, WalkTask parentTask, LinkOption[] linkOptions,
+                BiConsumer<? super Resource, ? super ResourceProperties> consumer) {
+            super();
+            this.dir = dir;
+            this.fileKey = fileKey;
+            this.encoding = encoding;
+            this.ancestors = ancestors;
+            this.parentChain = parentChain;
+            this.parentTask = parentTask;
+            this.linkOptions = linkOptions;
+            this.consumer = consumer;
+        }
+
+        /**
+         * @param subdir the directory to descend into via a symbolic link
+         * @param subdirKey the {@link BasicFileAttributes#fileKey()} of {@code subdir}, can be {@code null}
+         * @throws FileSystemLoopException if {@code subdir} is this directory or any of its ancestors
+         * @throws IOException if {@link Files#isSameFile(Path, Path)} fails
+         */
+        private void checkCycle(Path subdir, Object subdirKey) throws IOException {
+            for (WalkTask task = this; task != null; task = task.parentTask) {
+                if (subdirKey != null && task.fileKey != null ? subdirKey.equals(task.fileKey)
+                        : Files.isSameFile(subdir, task.dir)) {
+                    throw new FileSystemLoopException(subdir.toString());
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void compute() {
+            try {
+                final List<Resource> files = new ArrayList<>();
+                final List<Path> subdirs = new ArrayList<>();
+                final List<Object> subdirKeys = new ArrayList<>();
+                boolean configured = false;
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                    for (Path entry : entries) {
+                        /* Read like in queryProperties(), i.e. following the links */
+                        if (configFileName.equals(entry.getFileName().toString()) && Files.isRegularFile(entry)) {
+                            configured = true;
+                            continue;
+                        }
+                        final BasicFileAttributes attrs = readAttributes(entry, linkOptions);
+                        if (attrs.isDirectory()) {
+                            subdirs.add(entry);
+                            subdirKeys.add(attrs.fileKey());
+                        } else if (attrs.isRegularFile() || attrs.isSymbolicLink()) {
+                            files.add(Resources.ofPath(entry, encoding));
+                        }
+                    }
+                }
+
+                final ResourcePath resourceDir = ResourcePaths.ofPath(dir, encoding);
+                final boolean rootDir = rootDirectories.contains(resourceDir);
+                final List<DirEditorConfigPair> configs;
+                final Chain chain;
+                if (configured) {
+                    /* The listing has told us that the file exists already, so there is no need to ask the cache */
+                    final Resource configFile = resourceDir.resolve(configFileName);
+                    final EditorConfig config = cache.get(configFile, loader);
+                    final DirEditorConfigPair pair = new DirEditorConfigPair(resourceDir, configFile, config);
+                    if (config.isRoot() || rootDir) {
+                        configs = Collections.singletonList(pair);
+                    } else {
+                        configs = new ArrayList<>(ancestors.size() + 1);
+                        configs.add(pair);
+                        configs.addAll(ancestors);
+                    }
+                    chain = newChain(resourceDir, configs);
+                } else if (rootDir) {
+                    configs = Collections.emptyList();
+                    chain = newChain(resourceDir, configs);
+                } else {
+                    configs = ancestors;
+                    /* The defaults of a chain without any .editorconfig file depend on the directory */
+                    chain = parentChain != null && !configs.isEmpty() ? parentChain : newChain(resourceDir, configs);
+                }
+
+                if (!files.isEmpty()) {
+                    queryGroup(chain, files, consumer);
+                }
+                if (!subdirs.isEmpty()) {
+                    final boolean followLinks = linkOptions.length == 0;
+                    final List<WalkTask> tasks = new ArrayList<>(subdirs.size());
+                    for (int i = 0; i < subdirs.size(); i++) {
+                        final Path subdir = subdirs.get(i);
+                        final Object subdirKey = subdirKeys.get(i);
+                        if (followLinks) {
+                            checkCycle(subdir, subdirKey);
+                        }
+                        tasks.add(new WalkTask(subdir, followLinks ? subdirKey : null, encoding, configs, chain,
+                                followLinks ? this : null, linkOptions, consumer));
+                    }
+                    invokeAll(tasks);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final LinkOption[] FOLLOW_LINKS = new LinkOption[0];
+
+    private static final LinkOption[] NOFOLLOW_LINKS = new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
+
+    /** The upper bound of the remembered {@link Chain}s and of the remembered directories without any config file */
+    private static final int MAX_CACHED_LOOKUPS = 16 * 1024;
+
+    /** The upper bound of distinct {@link ResourceProperties} shared per {@link Chain} */
+    private static final int MAX_SHARED_RESULTS_PER_CHAIN = 256;
+
+    /** {@code Executors.newVirtualThreadPerTaskExecutor()} or {@code null} on Java versions lacking it */
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = virtualThreadExecutorFactory();
+
     /**
      * @return a new {@link ResourcePropertiesService} {@link Builder}.
      */
@@ -231,6 +653,28 @@ public class ResourcePropertiesService {
         return new Builder();
     }
 
+    /**
+     * Reads the {@link BasicFileAttributes} of the given {@code path}. Like
+     * {@link Files#walk(Path, FileVisitOption...)} does, falls back to the attributes of the link itself if it cannot
+     * be followed.
+     *
+     * @param path the {@link Path} to read the attributes of
+     * @param linkOptions the {@link LinkOption}s to read with
+     * @return the {@link BasicFileAttributes}
+     * @throws IOException if the attributes cannot be read
+     */
+    private static BasicFileAttributes readAttributes(Path path, LinkOption[] linkOptions) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, linkOptions);
+        } catch (IOException e) {
+            if (linkOptions.length != 0) {
+                throw e;
+            }
+            /* e.g. a broken link */
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
     /**
      * A shorthand for {@code ResourcePropertiesService.builder().build()}. Returns a new
      * {@link ResourcePropertiesService} with {@link Caches#none()} {@link Cache},
@@ -243,28 +687,123 @@ public class ResourcePropertiesService {
         return builder().build();
     }
 
+    /**
+     * @return a new virtual thread per task {@link ExecutorService} or {@code null} if the current Java version does
+     *         not support virtual threads
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (InvocationTargetException e) {
+            /* Virtual threads are a preview feature not enabled in this JVM */
+            return null;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Method virtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     private final Cache cache;
+    /**
+     * The resolved {@link DirEditorConfigPair}s per parent directory of the queried files or {@code null} if the
+     * lookups are not cached
+     */
+    private final LookupCache<Chain> chains;
     private final String configFileName;
+    private final Executor executor;
     private final List<EditorConfig> defaultEditorConfigs;
     private final boolean keepUnset;
+    private final boolean shareResults;
     private final EditorConfigLoader loader;
     private final Set<ResourcePath> rootDirectories;
+    /** The number of the {@link InvalidationListener} notifications received so far */
+    private final AtomicInteger invalidations = new AtomicInteger();
+    /** The {@link LookupInvalidator} registered with {@link #cache} or {@code null} if the lookups are not cached */
+    private final InvalidationListener invalidationListener;
+    /** The directories without any {@link #configFileName} file or {@code null} if the lookups are not cached */
+    private final LookupCache<Boolean> unconfiguredDirectories;
 
     ResourcePropertiesService(String configFileName, Set<ResourcePath> rootDirectories,
-            List<EditorConfig> defaultEditorConfigs, Cache cache, EditorConfigLoader loader, boolean keepUnset) {
+            List<EditorConfig> defaultEditorConfigs, Cache cache, EditorConfigLoader loader, boolean keepUnset,
+            boolean cacheLookups, boolean shareResults, Executor executor) {
         super();
+        this.executor = executor;
         this.rootDirectories = rootDirectories;
         this.defaultEditorConfigs = defaultEditorConfigs;
         this.loader = loader;
         this.configFileName = configFileName;
         this.cache = cache;
         this.keepUnset = keepUnset;
+        this.shareResults = shareResults;
+        if (cacheLookups || shareResults) {
+            this.chains = new LookupCache<>(MAX_CACHED_LOOKUPS);
+            this.unconfiguredDirectories = new LookupCache<>(MAX_CACHED_LOOKUPS);
+            this.invalidationListener = new LookupInvalidator(cache, this);
+            cache.addInvalidationListener(invalidationListener);
+        } else {
+            this.chains = null;
+            this.unconfiguredDirectories = null;
+            this.invalidationListener = null;
+        }
+    }
+
+    /**
+     * Unregisters this {@link ResourcePropertiesService} from the {@link Cache} and forgets the results of the
+     * {@code .editorconfig} file lookups remembered so far. Call this when this {@link ResourcePropertiesService} is
+     * not needed anymore while its {@link Cache} stays in use; the lookups remembered afterwards are not invalidated
+     * by the {@link Cache} anymore. If the lookups are not cached, this method does nothing.
+     *
+     * @since 1.2.1
+     */
+    @Override
+    public void close() {
+        if (invalidationListener != null) {
+            cache.removeInvalidationListener(invalidationListener);
+            clearLookups();
+        }
+    }
+
+    /**
+     * Forgets the results of the {@code .editorconfig} file lookups remembered so far. This is useful when
+     * {@link Builder#cacheLookups(boolean)} is enabled and the {@link Cache} cannot detect the changes in the file
+     * system. Otherwise this method does nothing.
+     *
+     * @since 1.2.1
+     */
+    public void clearLookups() {
+        if (unconfiguredDirectories != null) {
+            invalidations.incrementAndGet();
+            chains.clear();
+            unconfiguredDirectories.clear();
+        }
     }
 
     public Cache getCache() {
         return cache;
     }
 
+    private void invalidateLookups(Resource editorConfigFile) {
+        invalidations.incrementAndGet();
+        final ResourcePath dir = editorConfigFile.getParent();
+        if (dir == null) {
+            chains.clear();
+        } else {
+            /* A change of a single file may influence any number of directories below it */
+            chains.removeSameOrUnder(dir);
+            unconfiguredDirectories.remove(dir, Boolean.TRUE);
+        }
+    }
+
     /**
      * @return the name of the EditorConfig file this {@link ResourcePropertiesService} looks for (the default value is
      *         {@code .editorconfig})
@@ -273,6 +812,14 @@ public class ResourcePropertiesService {
         return configFileName;
     }
 
+    /**
+     * @return the {@link Executor} used by {@link #queryPropertiesAsync(Resource)}
+     * @since 1.2.1
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
     /**
      * @return a {@link List} of {@link EditorConfig} models that contain default settings beyond the ones set in the
      *         filesystem. These can be used to implement user or system defaults. The order of the files matters: the
@@ -299,56 +846,605 @@ public class ResourcePropertiesService {
     }
 
     /**
-     * Walks up the resource tree from the given {@link Resource}, visits all {@code .editorconfig} files and filters
-     * {@link Property}s applicable to the given {@link Resource}.
-     * <p>
-     * Note that the performance of this method is strongly influenced by the {@link Cache} implementation this
-     * {@link ResourcePropertiesService} uses. If you do not specify any {@link Cache} via {@link Builder#cache(Cache)}
-     * explicitly, {@link Caches#none()} is used that causes this method to parse each {@code .editorconfig} file every
-     * time it is necessary.
+     * Returns the {@link Chain} applicable to the files in the given {@code dir}, either the cached one or a freshly
+     * resolved one if the lookups are not cached or if the cached {@link Chain} is out of date.
      *
-     * @param resource the resource to find the {@link Property}s for
-     * @return a {@link ResourceProperties} that contains {@link Property}s applicable to the given {@link Resource}
+     * @param dir the directory to get the {@link Chain} for
+     * @return the {@link Chain}
      * @throws IOException on I/O problems during the reading from the {@code .editorconfig} files.
      */
-    public ResourceProperties queryProperties(Resource resource) throws IOException {
-        ResourceProperties.Builder result = ResourceProperties.builder();
+    private Chain getChain(ResourcePath dir) throws IOException {
+        if (chains == null || dir == null) {
+            return new Chain(resolveEditorConfigs(dir), false);
+        }
+        final Chain cached = chains.get(dir);
+        if (cached != null) {
+            final List<DirEditorConfigPair> refreshed = refresh(cached.editorConfigs);
+            if (refreshed == cached.editorConfigs) {
+                return cached;
+            } else if (refreshed != null) {
+                final Chain result = new Chain(refreshed, shareResults);
+                chains.replace(dir, cached, result);
+                return result;
+            }
+        }
+        final int invalidationsBefore = invalidations.get();
+        final Chain result = new Chain(resolveEditorConfigs(dir), shareResults);
+        chains.put(dir, result);
+        if (invalidations.get() != invalidationsBefore) {
+            /* A concurrent invalidation might have been meant for this very chain */
+            chains.remove(dir, result);
+        }
+        return result;
+    }
+
+    /**
+     * @param dir the directory the new {@link Chain} is applicable to
+     * @param configs the {@link DirEditorConfigPair}s ordered bottom up, without the defaults
+     * @return a new {@link Chain} sharing its results and consisting of the given {@code configs} and the defaults
+     */
+    private Chain newChain(ResourcePath dir, List<DirEditorConfigPair> configs) {
+        if (defaultEditorConfigs.isEmpty()) {
+            return new Chain(configs, true);
+        }
+        final List<DirEditorConfigPair> editorConfigs = new ArrayList<>(configs.size() + defaultEditorConfigs.size());
+        editorConfigs.addAll(configs);
+        return new Chain(addDefaults(dir, editorConfigs), true);
+    }
+
+    /**
+     * Gets the {@link EditorConfig}s of the given {@code chain} from the {@link Cache} again so that any reloading the
+     * {@link Cache} has done gets reflected.
+     *
+     * @param chain the cached chain to refresh
+     * @return the given {@code chain} if none of its {@link EditorConfig}s has changed, a new updated chain if some of
+     *         them have changed, or {@code null} if the changes require walking the tree again
+     * @throws IOException on I/O problems during the reading from the {@code .editorconfig} files.
+     */
+    private List<DirEditorConfigPair> refresh(List<DirEditorConfigPair> chain) throws IOException {
+        List<DirEditorConfigPair> result = chain;
+        for (int i = 0; i < chain.size(); i++) {
+            final DirEditorConfigPair pair = chain.get(i);
+            if (pair.configFile != null) {
+                final EditorConfig config = cache.get(pair.configFile, loader);
+                /* equals() rather than identity so that the Caches that do not cache do not spoil the chain */
+                if (config != pair.editorConfig && !config.equals(pair.editorConfig)) {
+                    if (config.isRoot() != pair.editorConfig.isRoot()) {
+                        /* The chain starts or ends somewhere else now */
+                        return null;
+                    }
+                    if (result == chain) {
+                        result = new ArrayList<>(chain);
+                    }
+                    result.set(i, new DirEditorConfigPair(pair.directory, pair.configFile, config));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Walks up the tree from the given {@code dir} and collects the {@code .editorconfig} models found on the way.
+     *
+     * @param startDir the directory to start from
+     * @return the {@link DirEditorConfigPair}s ordered bottom up, the defaults last
+     * @throws IOException on I/O problems during the reading from the {@code .editorconfig} files.
+     */
+    private List<DirEditorConfigPair> resolveEditorConfigs(ResourcePath startDir) throws IOException {
         List<DirEditorConfigPair> editorConfigs = new ArrayList<>();
         boolean root = false;
-        ResourcePath dir = resource.getParent();
+        ResourcePath dir = startDir;
         /* Walk up the tree storing the .editorconfig models to editorConfigs */
         while (dir != null && !root) {
-            Resource configFile = dir.resolve(configFileName);
-            if (configFile.exists()) {
-                EditorConfig config = cache.get(configFile, loader);
-                result.editorConfigFile(configFile.getPath());
-                root = config.isRoot();
-                editorConfigs.add(new DirEditorConfigPair(configFile.getParent(), config));
+            if (unconfiguredDirectories == null || unconfiguredDirectories.get(dir) == null) {
+                Resource configFile = dir.resolve(configFileName);
+                final int invalidationsBefore = invalidations.get();
+                if (cache.exists(configFile)) {
+                    EditorConfig config = cache.get(configFile, loader);
+                    root = config.isRoot();
+                    editorConfigs.add(new DirEditorConfigPair(configFile.getParent(), configFile, config));
+                } else if (unconfiguredDirectories != null) {
+                    unconfiguredDirectories.put(dir, Boolean.TRUE);
+                    if (invalidations.get() != invalidationsBefore) {
+                        /* A concurrent invalidation might have been meant for this very dir */
+                        unconfiguredDirectories.remove(dir, Boolean.TRUE);
+                    }
+                }
             }
             root |= rootDirectories.contains(dir);
             dir = dir.getParent();
         }
 
+        return addDefaults(startDir, editorConfigs);
+    }
+
+    /**
+     * Appends the default {@link EditorConfig}s to the given {@code editorConfigs}.
+     *
+     * @param startDir the directory the {@code editorConfigs} were collected for
+     * @param editorConfigs the {@link DirEditorConfigPair}s ordered bottom up, without the defaults
+     * @return the given {@code editorConfigs}
+     */
+    private List<DirEditorConfigPair> addDefaults(ResourcePath startDir, List<DirEditorConfigPair> editorConfigs) {
         /* Add the defaults in order */
         if (!defaultEditorConfigs.isEmpty()) {
             final ResourcePath lastDir = editorConfigs.isEmpty() //
-                    ? resource.getParent() //
+                    ? startDir //
                     : editorConfigs.get(editorConfigs.size() - 1).directory;
             for (EditorConfig ec : defaultEditorConfigs) {
-                editorConfigs.add(new DirEditorConfigPair(lastDir, ec));
+                editorConfigs.add(new DirEditorConfigPair(lastDir, null, ec));
+            }
+        }
+        return editorConfigs;
+    }
+
+    /**
+     * An asynchronous variant of {@link #resolveEditorConfigs(ResourcePath)} that checks the existence of the
+     * {@code .editorconfig} files on the given {@code executor} and gets them via
+     * {@link Cache#getAsync(Resource, EditorConfigLoader, Executor)}.
+     *
+     * @param startDir the directory to start from
+     * @param dir the directory to continue with
+     * @param editorConfigs the {@link DirEditorConfigPair}s collected so far, ordered bottom up
+     * @param executor the {@link Executor} to perform the blocking work on
+     * @return a {@link CompletableFuture} completed with the {@link DirEditorConfigPair}s ordered bottom up, the
+     *         defaults last, or completed exceptionally with the {@link RejectedExecutionException} if the
+     *         {@code executor} did not accept the existence check
+     */
+    private CompletableFuture<List<DirEditorConfigPair>> resolveEditorConfigsAsync(final ResourcePath startDir,
+            final ResourcePath dir, final List<DirEditorConfigPair> editorConfigs, final Executor executor) {
+        if (dir == null) {
+            return CompletableFuture.completedFuture(addDefaults(startDir, editorConfigs));
+        }
+        final Resource configFile = dir.resolve(configFileName);
+        final CompletableFuture<Boolean> existence;
+        try {
+            existence = existsAsync(dir, configFile, executor);
+        } catch (RejectedExecutionException e) {
+            final CompletableFuture<List<DirEditorConfigPair>> result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+            return result;
+        }
+        return existence.thenCompose(new Function<Boolean, CompletableFuture<EditorConfig>>() {
+            @Override
+            public CompletableFuture<EditorConfig> apply(Boolean exists) {
+                return exists.booleanValue() ? cache.getAsync(configFile, loader, executor)
+                        : CompletableFuture.<EditorConfig> completedFuture(null);
+            }
+        }).thenCompose(new Function<EditorConfig, CompletableFuture<List<DirEditorConfigPair>>>() {
+            @Override
+            public CompletableFuture<List<DirEditorConfigPair>> apply(EditorConfig config) {
+                boolean root = rootDirectories.contains(dir);
+                if (config != null) {
+                    root |= config.isRoot();
+                    editorConfigs.add(new DirEditorConfigPair(dir, configFile, config));
+                }
+                return root ? CompletableFuture.completedFuture(addDefaults(startDir, editorConfigs))
+                        : resolveEditorConfigsAsync(startDir, dir.getParent(), editorConfigs, executor);
+            }
+        });
+    }
+
+    /**
+     * Checks the existence of the given {@code configFile} on the given {@code executor}, remembering the directories
+     * without any {@code .editorconfig} file.
+     *
+     * @param dir the directory containing the {@code configFile}
+     * @param configFile the {@code .editorconfig} file to check
+     * @param executor the {@link Executor} to perform the check on
+     * @return a {@link CompletableFuture} completed with {@link Boolean#TRUE} if the {@code configFile} exists
+     * @throws RejectedExecutionException if the {@code executor} did not accept the check
+     */
+    private CompletableFuture<Boolean> existsAsync(final ResourcePath dir, final Resource configFile,
+            Executor executor) {
+        return CompletableFuture.supplyAsync(new Supplier<Boolean>() {
+            @Override
+            public Boolean get() {
+                if (unconfiguredDirectories != null && unconfiguredDirectories.get(dir) != null) {
+                    return Boolean.FALSE;
+                }
+                final int invalidationsBefore = invalidations.get();
+                final boolean exists = cache.exists(configFile);
+                if (!exists && unconfiguredDirectories != null) {
+                    unconfiguredDirectories.put(dir, Boolean.TRUE);
+                    if (invalidations.get() != invalidationsBefore) {
+                        /* A concurrent invalidation might have been meant for this very dir */
+                        unconfiguredDirectories.remove(dir, Boolean.TRUE);
+                    }
+                }
+                return Boolean.valueOf(exists);
+            }
+        }, executor);
+    }
+
+    /**
+     * Walks up the resource tree from the given {@link Resource}, visits all {@code .editorconfig} files and filters
+     * {@link Property}s applicable to the given {@link Resource}.
+     * <p>
+     * Note that the performance of this method is strongly influenced by the {@link Cache} implementation this
+     * {@link ResourcePropertiesService} uses. If you do not specify any {@link Cache} via {@link Builder#cache(Cache)}
+     * explicitly, {@link Caches#none()} is used that causes this method to parse each {@code .editorconfig} file every
+     * time it is necessary.
+     *
+     * @param resource the resource to find the {@link Property}s for
+     * @return a {@link ResourceProperties} that contains {@link Property}s applicable to the given {@link Resource}
+     * @throws IOException on I/O problems during the reading from the {@code .editorconfig} files.
+     */
+    public ResourceProperties queryProperties(Resource resource) throws IOException {
+        return queryProperties(getChain(resource.getParent()), resource);
+    }
+
+    /**
+     * Same as {@link #queryProperties(Resource)} but performed asynchronously on the {@link Executor} set via
+     * {@link Builder#executor(Executor)}.
+     *
+     * @param resource the resource to find the {@link Property}s for
+     * @return a {@link CompletableFuture} completed with the {@link ResourceProperties} applicable to the given
+     *         {@link Resource} or completed exceptionally with an {@link IOException} on I/O problems during the
+     *         reading from the {@code .editorconfig} files or with a {@link RejectedExecutionException} if the
+     *         {@code executor} did not accept some of the work
+     * @see #queryPropertiesAsync(Resource, Executor)
+     * @since 1.2.1
+     */
+    public CompletableFuture<ResourceProperties> queryPropertiesAsync(Resource resource) {
+        return queryPropertiesAsync(resource, executor);
+    }
+
+    /**
+     * Same as {@link #queryProperties(Resource)} but performed asynchronously: the existence checks run on the given
+     * {@code executor} and the {@code .editorconfig} files are obtained via
+     * {@link Cache#getAsync(Resource, EditorConfigLoader, Executor)}, so that the calling thread never blocks. With a
+     * {@link ConcurrentCache}, concurrent queries needing the same {@code .editorconfig} file that is not
+     * cached yet share a single loading of it without blocking any thread while waiting for it.
+     * <p>
+     * The directories without any {@code .editorconfig} file are remembered as with
+     * {@link Builder#cacheLookups(boolean)}, but the chains of {@code .editorconfig} files are always resolved anew
+     * and the results are thus not shared with other queries.
+     *
+     * @param resource the resource to find the {@link Property}s for
+     * @param executor the {@link Executor} to perform the blocking work on
+     * @return a {@link CompletableFuture} completed with the {@link ResourceProperties} applicable to the given
+     *         {@link Resource} or completed exceptionally with an {@link IOException} on I/O problems during the
+     *         reading from the {@code .editorconfig} files or with a {@link RejectedExecutionException} if the
+     *         {@code executor} did not accept some of the work
+     * @since 1.2.1
+     */
+    public CompletableFuture<ResourceProperties> queryPropertiesAsync(final Resource resource, Executor executor) {
+        final ResourcePath dir = resource.getParent();
+        return resolveEditorConfigsAsync(dir, dir, new ArrayList<DirEditorConfigPair>(), executor)
+                .thenApply(new Function<List<DirEditorConfigPair>, ResourceProperties>() {
+                    @Override
+                    public ResourceProperties apply(List<DirEditorConfigPair> editorConfigs) {
+                        return queryProperties(new Chain(editorConfigs, false), resource);
+                    }
+                });
+    }
+
+    /**
+     * @param chain the {@link Chain} of the directory containing the given {@code resource}
+     * @param resource the resource to find the {@link Property}s for
+     * @return a {@link ResourceProperties} that contains {@link Property}s applicable to the given {@link Resource}
+     */
+    private ResourceProperties queryProperties(Chain chain, Resource resource) {
+        final List<DirEditorConfigPair> editorConfigs = chain.editorConfigs;
+
+        /* Go top down and find out which sections match */
+        final BitSet matches = new BitSet();
+        int bit = 0;
+        for (int i = editorConfigs.size() - 1; i >= 0; i--) {
+            final DirEditorConfigPair pair = editorConfigs.get(i);
+            final Ec4jPath path = pair.directory.relativize(resource).getPath();
+            pair.editorConfig.matchSections(path.toString(), matches, bit);
+            bit += pair.editorConfig.getSections().size();
+        }
+        return getProperties(chain, chain.results, matches);
+    }
+
+    /**
+     * Finds the {@link Property}s applicable to each of the given {@link Resource}s like
+     * {@link #queryProperties(Resource)}, but more efficiently: the {@link Resource}s are grouped by their parent
+     * directories and the chain of {@code .editorconfig} files is resolved only once for each directory. Within a
+     * directory, the relative paths of the {@link Resource}s are derived from the first one, and the {@link Resource}s
+     * matched by the same {@link Section}s get the same immutable {@link ResourceProperties} instance.
+     *
+     * @param resources the resources to find the {@link Property}s for
+     * @return a new {@link Map} from the given {@link Resource}s to their {@link ResourceProperties}, iterating in the
+     *         order of the given {@code resources}
+     * @throws IOException on I/O problems during the reading from the {@code .editorconfig} files.
+     * @since 1.2.1
+     */
+    public Map<Resource, ResourceProperties> queryProperties(Collection<? extends Resource> resources)
+            throws IOException {
+        final Map<ResourcePath, List<Resource>> byDirectory = new LinkedHashMap<>();
+        for (Resource resource : resources) {
+            final ResourcePath dir = resource.getParent();
+            List<Resource> group = byDirectory.get(dir);
+            if (group == null) {
+                group = new ArrayList<>();
+                byDirectory.put(dir, group);
+            }
+            group.add(resource);
+        }
+        final Map<Resource, ResourceProperties> results = new HashMap<>();
+        for (Map.Entry<ResourcePath, List<Resource>> group : byDirectory.entrySet()) {
+            final List<Resource> groupResources = group.getValue();
+            if (group.getKey() == null) {
+                for (Resource resource : groupResources) {
+                    results.put(resource, queryProperties(resource));
+                }
+                continue;
+            }
+            queryGroup(getChain(group.getKey()), groupResources, new BiConsumer<Resource, ResourceProperties>() {
+                @Override
+                public void accept(Resource resource, ResourceProperties properties) {
+                    results.put(resource, properties);
+                }
+            });
+        }
+        final Map<Resource, ResourceProperties> result = new LinkedHashMap<>(results.size() * 4 / 3 + 1);
+        for (Resource resource : resources) {
+            result.put(resource, results.get(resource));
+        }
+        return result;
+    }
+
+    /**
+     * Walks the file tree under the given {@code root} directory and passes each file found there together with its
+     * {@link ResourceProperties} to the given {@code consumer}. The {@code .editorconfig} files themselves are not
+     * passed. Unlike {@link #queryProperties(Resource)}, the {@code .editorconfig} files are collected top down while
+     * descending, so that each directory is visited only once. The subtrees are processed in parallel on
+     * {@link ForkJoinPool#commonPool()}.
+     * <p>
+     * Symbolic links are handled like in {@link Files#walk(Path, FileVisitOption...)}: by default, they are not
+     * followed and they are passed to the {@code consumer} like regular files, no matter what they point to. With
+     * {@link FileVisitOption#FOLLOW_LINKS}, the links to directories are descended into, the links to regular files
+     * are passed to the {@code consumer} and a cycle of links causes a {@link FileSystemLoopException}. Any other
+     * special files, such as devices or pipes, are skipped. The {@code .editorconfig} files are always read through
+     * the links, like in {@link #queryProperties(Resource)}.
+     *
+     * @param root the directory to walk; only {@link ResourcePath}s created by
+     *        {@link ResourcePaths#ofPath(Path, Charset)} are supported
+     * @param consumer the callback to pass each file with its {@link ResourceProperties} to; it is invoked
+     *        concurrently from multiple threads
+     * @param options the options to configure the walk; {@link FileVisitOption#FOLLOW_LINKS} is the only one
+     * @throws IOException on I/O problems during the listing of the directories or during the reading from the
+     *         {@code .editorconfig} files.
+     * @since 1.2.1
+     */
+    public void walk(ResourcePath root, BiConsumer<? super Resource, ? super ResourceProperties> consumer,
+            FileVisitOption... options) throws IOException {
+        walk(root, ForkJoinPool.commonPool(), consumer, options);
+    }
+
+    /**
+     * Same as {@link #walk(ResourcePath, BiConsumer, FileVisitOption...)} but processes the subtrees on the given
+     * {@code pool}.
+     *
+     * @param root the directory to walk; only {@link ResourcePath}s created by
+     *        {@link ResourcePaths#ofPath(Path, Charset)} are supported
+     * @param pool the {@link ForkJoinPool} to process the subtrees on
+     * @param consumer the callback to pass each file with its {@link ResourceProperties} to; it is invoked
+     *        concurrently from multiple threads
+     * @param options the options to configure the walk; {@link FileVisitOption#FOLLOW_LINKS} is the only one
+     * @throws IOException on I/O problems during the listing of the directories or during the reading from the
+     *         {@code .editorconfig} files.
+     * @since 1.2.1
+     */
+    public void walk(ResourcePath root, ForkJoinPool pool,
+            BiConsumer<? super Resource, ? super ResourceProperties> consumer, FileVisitOption... options)
+            throws IOException {
+        if (!(root instanceof PathResourcePath)) {
+            throw new IllegalArgumentException(ResourcePropertiesService.class.getName()
+                    + ".walk() can handle only instances of " + PathResourcePath.class.getName());
+        }
+        final PathResourcePath pathRoot = (PathResourcePath) root;
+
+        /* The .editorconfig files above the root, without the defaults */
+        final List<DirEditorConfigPair> ancestors = new ArrayList<>();
+        if (!rootDirectories.contains(root) && root.getParent() != null) {
+            for (DirEditorConfigPair pair : resolveEditorConfigs(root.getParent())) {
+                if (pair.configFile != null) {
+                    ancestors.add(pair);
+                }
+            }
+        }
+        final boolean followLinks = Arrays.asList(options).contains(FileVisitOption.FOLLOW_LINKS);
+        final Object fileKey = followLinks
+                ? Files.readAttributes(pathRoot.path, BasicFileAttributes.class).fileKey()
+                : null;
+        try {
+            pool.invoke(new WalkTask(pathRoot.path, fileKey, pathRoot.encoding, ancestors, null, null,
+                    followLinks ? FOLLOW_LINKS : NOFOLLOW_LINKS, consumer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Finds the {@link Property}s applicable to each of the given {@link Resource}s by running a separate
+     * {@link #queryProperties(Resource)} for each of them on the given {@code executor}. This pays off with an
+     * {@link Executor} able to run many blocking tasks at once, such as one using virtual threads, together with
+     * {@link Builder#cacheLookups(boolean)} and a concurrent {@link Cache}, such as {@link Caches#concurrent()} or
+     * {@link BoundedCache}.
+     *
+     * @param resources the resources to find the {@link Property}s for
+     * @param executor the {@link Executor} to run the queries on
+     * @return a new {@link Map} from the given {@link Resource}s to their {@link ResourceProperties}, iterating in the
+     *         order of the given {@code resources}
+     * @throws IOException on I/O problems during the reading from the {@code .editorconfig} files or if the
+     *         {@code executor} did not accept some of the queries; in the latter case, the queries submitted before
+     *         are cancelled
+     * @since 1.2.1
+     */
+    public Map<Resource, ResourceProperties> queryProperties(Collection<? extends Resource> resources,
+            Executor executor) throws IOException {
+        final Map<Resource, CompletableFuture<ResourceProperties>> futures = new LinkedHashMap<>();
+        for (final Resource resource : resources) {
+            if (futures.containsKey(resource)) {
+                continue;
+            }
+            final CompletableFuture<ResourceProperties> future = new CompletableFuture<>();
+            futures.put(resource, future);
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (future.isDone()) {
+                            /* Cancelled */
+                            return;
+                        }
+                        try {
+                            future.complete(queryProperties(resource));
+                        } catch (IOException | RuntimeException | Error e) {
+                            future.completeExceptionally(e);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                for (CompletableFuture<ResourceProperties> submitted : futures.values()) {
+                    submitted.cancel(false);
+                }
+                throw new IOException("Could not query the properties of " + resource.getPath(), e);
+            }
+        }
+        final Map<Resource, ResourceProperties> result = new LinkedHashMap<>(futures.size() * 4 / 3 + 1);
+        for (Map.Entry<Resource, CompletableFuture<ResourceProperties>> entry : futures.entrySet()) {
+            result.put(entry.getKey(), CacheLoading.await(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Lazily finds the {@link Property}s applicable to the {@link Resource}s returned by the given {@code resources}
+     * {@link Iterator}. The returned {@link Iterator} yields the {@link Resource}s with their
+     * {@link ResourceProperties} in the order of {@code resources}. At most {@code window} {@link Resource}s are pulled
+     * ahead of the consumer and queried concurrently on the given {@code executor}, so that arbitrarily many
+     * {@link Resource}s can be streamed through in bounded memory, and a slow consumer slows down the pulling.
+     * <p>
+     * The returned {@link Iterator} throws an {@link java.io.UncheckedIOException} on I/O problems during the reading
+     * from the {@code .editorconfig} files. It is not safe to be iterated from concurrent threads.
+     *
+     * @param resources the resources to find the {@link Property}s for
+     * @param executor the {@link Executor} to run the queries on
+     * @param window the maximal number of {@link Resource}s to pull and query ahead of the consumer; must be
+     *        greater than {@code 0}
+     * @return a new {@link Iterator} over the given {@code resources} and their {@link ResourceProperties}
+     * @since 1.2.1
+     */
+    public Iterator<Map.Entry<Resource, ResourceProperties>> queryProperties(Iterator<? extends Resource> resources,
+            Executor executor, int window) {
+        return new ResourcePropertiesIterator(this, resources, executor, window);
+    }
+
+    /**
+     * Same as {@link #queryProperties(Collection, Executor)} with a new virtual thread per {@link Resource}. On Java
+     * versions without virtual threads, this method falls back to {@link #queryProperties(Collection)}.
+     * <p>
+     * The {@link Cache}s, the {@link EditorConfigLoader}s and the shared {@link org.ec4j.core.model.GlobCache} and
+     * {@link org.ec4j.core.model.Interner} this library provides use {@link ReentrantLock}s rather than monitors, so
+     * that they do not pin the carrier threads of the virtual threads.
+     *
+     * @param resources the resources to find the {@link Property}s for
+     * @return a new {@link Map} from the given {@link Resource}s to their {@link ResourceProperties}, iterating in the
+     *         order of the given {@code resources}
+     * @throws IOException on I/O problems during the reading from the {@code .editorconfig} files.
+     * @since 1.2.1
+     */
+    public Map<Resource, ResourceProperties> queryPropertiesOnVirtualThreads(Collection<? extends Resource> resources)
+            throws IOException {
+        final ExecutorService executor = newVirtualThreadExecutor();
+        if (executor == null) {
+            return queryProperties(resources);
+        }
+        try {
+            return queryProperties(resources, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Finds the {@link Property}s applicable to the given {@link Resource}s that all reside in the same directory.
+     *
+     * @param chain the {@link Chain} of the directory containing all given {@code resources}
+     * @param resources the non-empty {@link List} of {@link Resource}s to find the {@link Property}s for
+     * @param consumer the callback to pass each {@link Resource} with its {@link ResourceProperties} to
+     */
+    private void queryGroup(Chain chain, List<? extends Resource> resources,
+            BiConsumer<? super Resource, ? super ResourceProperties> consumer) {
+        final List<DirEditorConfigPair> editorConfigs = chain.editorConfigs;
+        final Map<BitSet, ResourceProperties> groupResults = chain.results != null ? chain.results
+                : new HashMap<BitSet, ResourceProperties>();
+
+        /* The paths of the directory relative to the directories of the editorConfigs, top down */
+        final String[] prefixes = new String[editorConfigs.size()];
+        final Resource first = resources.get(0);
+        final int firstNameLength = first.getPath().getLastSegment().length();
+        for (int i = editorConfigs.size() - 1, j = 0; i >= 0; i--, j++) {
+            final String path = editorConfigs.get(i).directory.relativize(first).getPath().toString();
+            prefixes[j] = path.substring(0, path.length() - firstNameLength);
+        }
+
+        final StringBuilder path = new StringBuilder();
+        for (Resource resource : resources) {
+            final String name = resource.getPath().getLastSegment();
+            final BitSet matches = new BitSet();
+            int bit = 0;
+            for (int i = editorConfigs.size() - 1, j = 0; i >= 0; i--, j++) {
+                final EditorConfig editorConfig = editorConfigs.get(i).editorConfig;
+                path.setLength(0);
+                path.append(prefixes[j]).append(name);
+                editorConfig.matchSections(path, matches, bit);
+                bit += editorConfig.getSections().size();
+            }
+            consumer.accept(resource, getProperties(chain, groupResults, matches));
+        }
+    }
+
+    /**
+     * @param chain the {@link Chain} the {@code matches} were computed for
+     * @param results the {@link ResourceProperties} to share by {@code matches} or {@code null} if the results should
+     *        not be shared
+     * @param matches the indexes of the matching {@link Section}s, counted top down over all
+     *        {@link Chain#editorConfigs}
+     * @return a shared {@link ResourceProperties} from {@code results} or a new one
+     */
+    private ResourceProperties getProperties(Chain chain, Map<BitSet, ResourceProperties> results, BitSet matches) {
+        if (results == null) {
+            return buildProperties(chain.editorConfigs, matches);
+        }
+        ResourceProperties result = results.get(matches);
+        if (result == null) {
+            result = buildProperties(chain.editorConfigs, matches);
+            if (results.size() < MAX_SHARED_RESULTS_PER_CHAIN) {
+                final ResourceProperties concurrent = results.putIfAbsent(matches, result);
+                if (concurrent != null) {
+                    result = concurrent;
+                }
             }
         }
+        return result;
+    }
 
-        /* Now go back top down so that the duplicate properties defined closer to the given resource win */
-        int i = editorConfigs.size() - 1;
-        while (i >= 0) {
-            final DirEditorConfigPair pair = editorConfigs.get(i--);
-            final ResourcePath editorConfigDir = pair.directory;
-            final EditorConfig config = pair.editorConfig;
-            final Ec4jPath path = editorConfigDir.relativize(resource).getPath();
-            List<Section> sections = config.getSections();
-            for (Section section : sections) {
-                if (section.match(path)) {
+    /**
+     * Merges the {@link Property}s of the matching {@link Section}s top down so that the duplicate properties defined
+     * closer to the queried resource win.
+     *
+     * @param editorConfigs the {@link DirEditorConfigPair}s ordered bottom up
+     * @param matches the indexes of the matching {@link Section}s, counted top down over all {@code editorConfigs}
+     * @return a new {@link ResourceProperties}
+     */
+    private ResourceProperties buildProperties(List<DirEditorConfigPair> editorConfigs, BitSet matches) {
+        ResourceProperties.Builder result = ResourceProperties.builder();
+        for (DirEditorConfigPair pair : editorConfigs) {
+            if (pair.configFile != null) {
+                result.editorConfigFile(pair.configFile.getPath());
+            }
+        }
+        int bit = 0;
+        for (int i = editorConfigs.size() - 1; i >= 0; i--) {
+            for (Section section : editorConfigs.get(i).editorConfig.getSections()) {
+                if (matches.get(bit++)) {
                     // Section matches the editor file, collect options of the section
                     if (keepUnset) {
                         result.properties(section.getProperties());
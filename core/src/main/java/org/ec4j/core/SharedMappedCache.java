@@ -0,0 +1,501 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.ec4j.core.Resource.Metadata;
+import org.ec4j.core.model.EditorConfig;
+import org.ec4j.core.model.EditorConfigSnapshot;
+
+/**
+ * A {@link Cache} sharing the loaded {@link EditorConfig}s among several processes on one machine through a
+ * memory-mapped store file. The store is append-only: the {@link EditorConfig}s are appended in the format of
+ * {@link EditorConfigSnapshot} and a fixed size hash table at the beginning of the file maps the 64-bit hashes of the
+ * paths of the {@code .editorconfig} files to the latest record of each path. An entry is valid as long as the
+ * {@link Metadata} (modification time and size) of the {@link Resource} is the same as at the time of loading.
+ * <p>
+ * The lookups do not take any locks. Appending takes an exclusive {@link FileLock} on the store file. A record is
+ * complete before the hash table starts pointing at it, and each record has a CRC32 checksum to detect any damage.
+ * Once the store is full, it starts over: the hash table is cleared and the new records are appended from the
+ * beginning again, see {@link #getResetCount()}. The lookups copy each record and check its checksum and its key
+ * before deserializing it, so that a record overwritten concurrently is never used.
+ * <p>
+ * Within a single JVM, up to {@value #MAX_ENTRIES} most recently used {@link EditorConfig}s deserialized from the
+ * store are kept in memory.
+ * <p>
+ * The {@link Resource}s providing no {@link Metadata} are not cached at all.
+ * <p>
+ * Instances of this class can be accessed from concurrent threads safely. Two threads or processes asking for the
+ * same uncached {@link Resource} at once may both load it.
+ *
+ * @since 1.2.1
+ */
+public class SharedMappedCache implements Cache, Closeable {
+
+    /**
+     * A {@link EditorConfig} deserialized from the store or appended to it, together with the {@link Metadata} of its
+     * {@link Resource} at the time of loading.
+     */
+    private static class Entry {
+        private final EditorConfig editorConfig;
+        private final Metadata metadata;
+
+        private Entry(EditorConfig editorConfig, Metadata metadata) {
+            super();
+            this.editorConfig = editorConfig;
+            this.metadata = metadata;
+        }
+    }
+
+    /** The default size of the store file */
+    public static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+
+    /**
+     * The layout of the header: {@code int} magic, {@code int} format version, {@code long} capacity, {@code int} slot
+     * count, {@code int} used slot count and {@code long} end of the last record
+     */
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int END_OFFSET = 24;
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * The locks serializing the appends of the instances of this JVM, see {@link FileChannel#lock()}; not monitors, so
+     * that a virtual thread waiting for the file lock does not pin its carrier thread
+     */
+    private static final ConcurrentMap<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    /** The maximal number of {@link Entry}s kept in memory */
+    private static final int MAX_ENTRIES = 4096;
+
+    /** The first four bytes of a store file: {@code EC4M} */
+    private static final int MAGIC = 0x4543344d;
+
+    /** The maximal number of slots of the hash table */
+    private static final int MAX_SLOTS = 1 << 20;
+
+    /** The hash table can hold up to {@code 3/4} of its slots */
+    private static final int MAX_LOAD_NUMERATOR = 3;
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    /** The minimal size of the store */
+    private static final long MIN_CAPACITY = 64 * 1024;
+
+    private static final int SLOT_COUNT_OFFSET = 16;
+
+    /** A slot consists of a {@code long} path hash and a {@code long} offset of the record */
+    private static final int SLOT_SIZE = 16;
+
+    private static final int USED_SLOTS_OFFSET = 20;
+
+    private static int crc(byte[] bytes) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @param key the path to hash
+     * @return the 64-bit FNV-1a hash of the UTF-8 bytes of the given {@code key}; never {@code 0} which marks empty
+     *         slots
+     */
+    static long hash(String key) {
+        long result = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            result ^= b & 0xff;
+            result *= 0x100000001b3L;
+        }
+        return result == 0 ? 1 : result;
+    }
+
+    /**
+     * @param capacity the size of the store
+     * @return the number of slots of the hash table of a store of the given {@code capacity}: one per each 4 KiB
+     */
+    private static int slotCount(long capacity) {
+        return (int) Math.min(MAX_SLOTS, Math.max(256, capacity >> 12));
+    }
+
+    private final FileChannel channel;
+    /** The most recently used {@link Entry}s guarded by {@link #entriesLock} */
+    @SuppressWarnings("serial")
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SharedMappedCache.Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final ReentrantLock entriesLock = new ReentrantLock();
+    private final ReentrantLock localLock;
+    private final AtomicInteger resetCount = new AtomicInteger();
+    private final MappedByteBuffer store;
+    private final int slotCount;
+    private final PropertyTypeRegistry registry;
+
+    /**
+     * Use {@link Cache.Caches#sharedMapped(Path)} or
+     * {@link Cache.Caches#sharedMapped(Path, long, PropertyTypeRegistry)} to create new instances.
+     *
+     * @param file the store file; if it exists already, its capacity is used rather than the given one
+     * @param capacity the size of a new store file
+     * @param registry the {@link PropertyTypeRegistry} to pass to {@link EditorConfigSnapshot}
+     * @throws IOException on I/O problems when opening or initializing the store {@code file}
+     */
+    SharedMappedCache(Path file, long capacity, PropertyTypeRegistry registry) throws IOException {
+        super();
+        this.registry = registry;
+        final Path absFile = file.toAbsolutePath().normalize();
+        this.localLock = localLock(absFile);
+        this.channel = FileChannel.open(absFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            localLock.lock();
+            try {
+                try (FileLock lock = channel.lock()) {
+                    final long existingCapacity = readValidCapacity();
+                    if (existingCapacity > 0) {
+                        this.store = channel.map(MapMode.READ_WRITE, 0, existingCapacity);
+                    } else {
+                        final long useCapacity = Math.min(Integer.MAX_VALUE, Math.max(MIN_CAPACITY, capacity));
+                        this.store = channel.map(MapMode.READ_WRITE, 0, useCapacity);
+                        initialize(useCapacity);
+                    }
+                    this.slotCount = store.getInt(SLOT_COUNT_OFFSET);
+                }
+            } finally {
+                localLock.unlock();
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the given {@link EditorConfig} to the store and points the hash table to it. Starts the store over if it
+     * is full. Does nothing if the record does not fit even into an empty store or if the store cannot be written.
+     *
+     * @param key the path of the {@link Resource} the {@code editorConfig} was loaded from
+     * @param keyHash {@link #hash(String)} of {@code key}
+     * @param metadata the {@link Metadata} of the {@link Resource} before loading
+     * @param editorConfig the {@link EditorConfig} to append
+     */
+    private void append(String key, long keyHash, Metadata metadata, EditorConfig editorConfig) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(keyBytes.length);
+            out.write(keyBytes);
+            out.writeLong(metadata.getLastModifiedTime());
+            out.writeLong(metadata.getSize());
+            EditorConfigSnapshot.write(editorConfig, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        final byte[] payload = buffer.toByteArray();
+        /* Keep the records 8-byte aligned */
+        final int recordSize = (8 + payload.length + 7) & ~7;
+        try {
+            localLock.lock();
+            try {
+                try (FileLock lock = channel.lock()) {
+                    long end = store.getLong(END_OFFSET);
+                    int slot = end + recordSize > store.capacity() ? -1 : findSlot(key, keyHash, true);
+                    if (slot < 0) {
+                        /* Full, start over */
+                        if (HEADER_SIZE + (long) slotCount * SLOT_SIZE + recordSize > store.capacity()) {
+                            return;
+                        }
+                        clearSlots(slotCount);
+                        resetCount.incrementAndGet();
+                        end = store.getLong(END_OFFSET);
+                        slot = findSlot(key, keyHash, true);
+                    }
+                    final int offset = (int) end;
+                    final ByteBuffer out = store.duplicate();
+                    out.position(offset + 8);
+                    out.put(payload);
+                    store.putInt(offset + 4, crc(payload));
+                    store.putInt(offset, payload.length);
+                    store.putLong(END_OFFSET, end + recordSize);
+                    /* Publish the record: the offset first, so that a reader never sees a hash with no offset */
+                    final int slotOffset = HEADER_SIZE + slot * SLOT_SIZE;
+                    store.putLong(slotOffset + 8, offset);
+                    if (store.getLong(slotOffset) == 0) {
+                        store.putInt(USED_SLOTS_OFFSET, store.getInt(USED_SLOTS_OFFSET) + 1);
+                        store.putLong(slotOffset, keyHash);
+                    }
+                }
+            } finally {
+                localLock.unlock();
+            }
+        } catch (IOException e) {
+            /* e.g. a closed cache; the EditorConfig was loaded already anyway */
+        }
+    }
+
+    /**
+     * Closes the underlying {@link FileChannel}. The {@link EditorConfig}s kept in memory are still returned
+     * afterwards but nothing is appended to the store anymore.
+     *
+     * @throws IOException on I/O problems when closing the store file
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @param key the path to find the slot for
+     * @param keyHash {@link #hash(String)} of {@code key}
+     * @param forAppend if {@code true} an empty slot is returned if there is no slot for the given {@code key} yet
+     *        and the hash table is not too full
+     * @return the index of the slot of the given {@code key} or {@code -1}
+     */
+    private int findSlot(String key, long keyHash, boolean forAppend) {
+        final int start = (int) ((keyHash ^ (keyHash >>> 32)) & 0x7fffffff) % slotCount;
+        for (int i = 0; i < slotCount; i++) {
+            final int slot = (start + i) % slotCount;
+            final int slotOffset = HEADER_SIZE + slot * SLOT_SIZE;
+            final long slotHash = store.getLong(slotOffset);
+            if (slotHash == 0) {
+                final boolean tooFull = store.getInt(USED_SLOTS_OFFSET) * MAX_LOAD_DENOMINATOR //
+                        >= slotCount * MAX_LOAD_NUMERATOR;
+                return forAppend && !tooFull ? slot : -1;
+            } else if (slotHash == keyHash && key.equals(readKey((int) store.getLong(slotOffset + 8)))) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public EditorConfig get(Resource editorConfigFile, EditorConfigLoader loader) throws IOException {
+        Metadata metadata;
+        try {
+            metadata = editorConfigFile.getMetadata();
+        } catch (IOException e) {
+            /* e.g. the file does not exist; let the loader report the problem */
+            metadata = null;
+        }
+        if (metadata == null) {
+            return loader.load(editorConfigFile);
+        }
+        final String key = editorConfigFile.getPath().toString();
+        final Entry entry = getEntry(key);
+        if (entry != null && entry.metadata.equals(metadata)) {
+            return entry.editorConfig;
+        }
+        final long keyHash = hash(key);
+        final Entry stored = lookup(key, keyHash);
+        if (stored != null && stored.metadata.equals(metadata)) {
+            putEntry(key, stored);
+            return stored.editorConfig;
+        }
+        final EditorConfig result = loader.load(editorConfigFile);
+        putEntry(key, new Entry(result, metadata));
+        append(key, keyHash, metadata, result);
+        return result;
+    }
+
+    private Entry getEntry(String key) {
+        entriesLock.lock();
+        try {
+            return entries.get(key);
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of times this {@link SharedMappedCache} found the store full and started it over; a growing
+     *         count suggests that the capacity of the store is too small
+     */
+    public int getResetCount() {
+        return resetCount.get();
+    }
+
+    private void initialize(long capacity) {
+        final int slots = slotCount(capacity);
+        store.putLong(CAPACITY_OFFSET, capacity);
+        store.putInt(SLOT_COUNT_OFFSET, slots);
+        clearSlots(slots);
+        store.putInt(4, EditorConfigSnapshot.FORMAT_VERSION);
+        store.putInt(0, MAGIC);
+        store.force();
+    }
+
+    /**
+     * Empties the hash table and moves the end of the records right behind it.
+     *
+     * @param slots the number of slots of the hash table
+     */
+    private void clearSlots(int slots) {
+        final long end = HEADER_SIZE + (long) slots * SLOT_SIZE;
+        for (int i = HEADER_SIZE; i < end; i += 8) {
+            store.putLong(i, 0L);
+        }
+        store.putInt(USED_SLOTS_OFFSET, 0);
+        store.putLong(END_OFFSET, end);
+    }
+
+    private void putEntry(String key, Entry entry) {
+        entriesLock.lock();
+        try {
+            entries.put(key, entry);
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry of the given {@link Resource} from memory. The store is append-only, hence the next
+     * {@link #get(Resource, EditorConfigLoader)} still finds the stored record if it is valid.
+     *
+     * @param editorConfigFile the {@link Resource} whose entry should be removed
+     */
+    @Override
+    public void invalidate(Resource editorConfigFile) {
+        entriesLock.lock();
+        try {
+            entries.remove(editorConfigFile.getPath().toString());
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    private static ReentrantLock localLock(Path file) {
+        final ReentrantLock newLock = new ReentrantLock();
+        final ReentrantLock oldLock = LOCAL_LOCKS.putIfAbsent(file, newLock);
+        return oldLock == null ? newLock : oldLock;
+    }
+
+    /**
+     * @param key the path to look up
+     * @param keyHash {@link #hash(String)} of {@code key}
+     * @return the latest stored {@link Entry} for the given {@code key} or {@code null} if there is none or if the
+     *         record is damaged or being overwritten
+     */
+    private Entry lookup(String key, long keyHash) {
+        try {
+            final int slot = findSlot(key, keyHash, false);
+            if (slot < 0) {
+                return null;
+            }
+            final long offset = store.getLong(HEADER_SIZE + slot * SLOT_SIZE + 8);
+            if (offset < HEADER_SIZE || offset + 8 > store.capacity()) {
+                return null;
+            }
+            final int checksum = store.getInt((int) offset + 4);
+            final int length = store.getInt((int) offset);
+            if (length < 0 || offset + 8 + length > store.capacity()) {
+                return null;
+            }
+            /* Copy the record once so that a concurrent start over cannot change it after it was checked */
+            final byte[] record = new byte[length];
+            final ByteBuffer src = store.duplicate();
+            src.position((int) offset + 8);
+            src.get(record);
+            if (crc(record) != checksum) {
+                return null;
+            }
+            final ByteBuffer in = ByteBuffer.wrap(record);
+            final int keyLength = in.getInt();
+            if (keyLength < 0 || keyLength > in.remaining()) {
+                return null;
+            }
+            final byte[] keyBytes = new byte[keyLength];
+            in.get(keyBytes);
+            if (!key.equals(new String(keyBytes, StandardCharsets.UTF_8))) {
+                /* The slot was reused for another key in the meantime */
+                return null;
+            }
+            final Metadata metadata = new Metadata(in.getLong(), in.getLong());
+            return new Entry(EditorConfigSnapshot.read(in.slice(), registry), metadata);
+        } catch (IOException | RuntimeException e) {
+            /* A damaged record; it will be superseded by a new one */
+            return null;
+        }
+    }
+
+    /**
+     * @return the capacity stored in the header of the store file or {@code 0} if the file is new or not a valid
+     *         store of the current format version
+     * @throws IOException on I/O problems when reading the store file
+     */
+    private long readValidCapacity() throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            return 0;
+        }
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            /* read fully */
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt(0) != MAGIC
+                || header.getInt(4) != EditorConfigSnapshot.FORMAT_VERSION) {
+            return 0;
+        }
+        final long capacity = header.getLong(CAPACITY_OFFSET);
+        final int slots = header.getInt(SLOT_COUNT_OFFSET);
+        final long end = header.getLong(END_OFFSET);
+        if (capacity < MIN_CAPACITY || capacity > Integer.MAX_VALUE || slots != slotCount(capacity)
+                || end < HEADER_SIZE + (long) slots * SLOT_SIZE || end > capacity) {
+            return 0;
+        }
+        return capacity;
+    }
+
+    /**
+     * @param offset the offset of a record
+     * @return the key of the record at the given {@code offset} or {@code null} if the offset is not valid
+     */
+    private String readKey(int offset) {
+        if (offset < HEADER_SIZE || (long) offset + 12 > store.capacity()) {
+            return null;
+        }
+        final int length = store.getInt(offset + 8);
+        if (length < 0 || (long) offset + 12 + length > store.capacity()) {
+            return null;
+        }
+        final ByteBuffer in = store.duplicate();
+        in.position(offset + 12);
+        in.limit(offset + 12 + length);
+        return StandardCharsets.UTF_8.decode(in).toString();
+    }
+
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.ec4j.core.Resource.Metadata;
+import org.ec4j.core.model.EditorConfig;
+import org.ec4j.core.model.EditorConfigSnapshot;
+
+/**
+ * A {@link Cache} persisting the loaded {@link EditorConfig}s in a single snapshot file in the format of
+ * {@link EditorConfigSnapshot}. The entries are keyed by {@link Resource#getPath()} and they store the
+ * {@link Metadata} (modification time and size) and a hash of the content of the {@link Resource} at the time of
+ * loading. An entry read from the snapshot file is reused only if the hash of the current content is equal to the
+ * stored one, so that a changed {@code .editorconfig} file is reloaded even if neither its modification time nor its
+ * size has changed. Within a single JVM, the validated entries are reused as long as the {@link Metadata} is the same.
+ * Hence a short-lived JVM that finds the {@code .editorconfig} files unchanged neither parses them nor compiles their
+ * {@link org.ec4j.core.model.Glob}s.
+ * <p>
+ * The snapshot file is read into memory when this {@link SnapshotCache} is created and the individual
+ * {@link EditorConfig}s are deserialized on the first request. The new and changed entries are written to the
+ * snapshot file by {@link #save()} or {@link #close()}; the file is written to a temporary file first which then
+ * atomically replaces the snapshot file, so that concurrent readers never see a partially written snapshot. A missing,
+ * corrupted or outdated snapshot file is ignored.
+ * <p>
+ * The {@link Resource}s providing no {@link Metadata} are not cached at all.
+ * <p>
+ * Instances of this class can be accessed from concurrent threads safely. Two threads asking for the same uncached
+ * {@link Resource} at once may both load it.
+ *
+ * @since 1.2.1
+ */
+public class SnapshotCache implements Cache, Closeable {
+
+    /**
+     * A cached {@link EditorConfig} together with the {@link Metadata} and the content hash of its {@link Resource} at
+     * the time of loading.
+     */
+    private static class Entry {
+        /** Deserialized out of {@link #snapshot} lazily */
+        private volatile EditorConfig editorConfig;
+        /** See {@link ValidatingCache#hash(Resource)} */
+        private final byte[] hash;
+        private final Metadata metadata;
+        /** The serialized {@link #editorConfig} or {@code null} if it has not been serialized yet */
+        private final ByteBuffer snapshot;
+        /** {@code true} if {@link #hash} was checked against the content of the {@link Resource} in this JVM */
+        private volatile boolean validated;
+
+        private Entry(Metadata metadata, byte[] hash, EditorConfig editorConfig, ByteBuffer snapshot,
+                boolean validated) {
+            super();
+            this.metadata = metadata;
+            this.hash = hash;
+            this.editorConfig = editorConfig;
+            this.snapshot = snapshot;
+            this.validated = validated;
+        }
+
+        /**
+         * @param registry the {@link PropertyTypeRegistry} to pass to {@link EditorConfigSnapshot}
+         * @return the {@link EditorConfig} or {@code null} if it cannot be deserialized
+         */
+        private EditorConfig getEditorConfig(PropertyTypeRegistry registry) {
+            EditorConfig result = editorConfig;
+            if (result == null) {
+                try {
+                    result = EditorConfigSnapshot.read(snapshot.duplicate(), registry);
+                    editorConfig = result;
+                } catch (IOException e) {
+                    /* A corrupted entry; the caller will load the file again */
+                }
+            }
+            return result;
+        }
+    }
+
+    /** The version of the layout of the snapshot file; incremented on any incompatible change */
+    private static final int FORMAT_VERSION = 2;
+
+    /** The first four bytes of a snapshot file: {@code EC4S} */
+    private static final int MAGIC = 0x45433453;
+
+    private static ByteBuffer readBytes(ByteBuffer in) {
+        final int length = in.getInt();
+        final ByteBuffer result = in.duplicate();
+        result.limit(in.position() + length);
+        in.position(in.position() + length);
+        return result.slice();
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Set whenever {@link #entries} differ from the content of {@link #file} */
+    private volatile boolean dirty;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Path file;
+    private final PropertyTypeRegistry registry;
+
+    /**
+     * Use {@link Cache.Caches#snapshot(Path)} or {@link Cache.Caches#snapshot(Path, PropertyTypeRegistry)} to create
+     * new instances.
+     *
+     * @param file the snapshot file
+     * @param registry the {@link PropertyTypeRegistry} to pass to {@link EditorConfigSnapshot}
+     * @throws IOException on I/O problems when reading the snapshot {@code file}
+     */
+    SnapshotCache(Path file, PropertyTypeRegistry registry) throws IOException {
+        super();
+        this.file = file.toAbsolutePath();
+        this.registry = registry;
+        if (Files.exists(this.file)) {
+            /* Not memory-mapped, because a mapped file could not be replaced by save() on some platforms */
+            readEntries(ByteBuffer.wrap(Files.readAllBytes(this.file)));
+        }
+    }
+
+    /**
+     * Writes the entries to the snapshot file if there are any changes since the last {@link #save()}.
+     *
+     * @throws IOException on I/O problems when writing the snapshot file
+     */
+    @Override
+    public void close() throws IOException {
+        save();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public EditorConfig get(Resource editorConfigFile, EditorConfigLoader loader) throws IOException {
+        Metadata metadata;
+        try {
+            metadata = editorConfigFile.getMetadata();
+        } catch (IOException e) {
+            /* e.g. the file does not exist; let the loader report the problem */
+            metadata = null;
+        }
+        if (metadata == null) {
+            return loader.load(editorConfigFile);
+        }
+        final String key = editorConfigFile.getPath().toString();
+        final Entry entry = entries.get(key);
+        if (entry != null && entry.metadata.equals(metadata) && entry.validated) {
+            final EditorConfig result = entry.getEditorConfig(registry);
+            if (result != null) {
+                return result;
+            }
+        }
+        final byte[] hash = ValidatingCache.hash(editorConfigFile);
+        if (entry != null && Arrays.equals(entry.hash, hash)) {
+            final EditorConfig result = entry.getEditorConfig(registry);
+            if (result != null) {
+                if (entry.metadata.equals(metadata)) {
+                    entry.validated = true;
+                } else {
+                    /* Touched but not changed */
+                    entries.put(key, new Entry(metadata, hash, result, entry.snapshot, true));
+                    dirty = true;
+                }
+                return result;
+            }
+        }
+        final EditorConfig result = loader.load(editorConfigFile);
+        entries.put(key, new Entry(metadata, hash, result, null, true));
+        dirty = true;
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void invalidate(Resource editorConfigFile) {
+        if (entries.remove(editorConfigFile.getPath().toString()) != null) {
+            dirty = true;
+        }
+    }
+
+    private void readEntries(ByteBuffer in) {
+        try {
+            if (in.remaining() < 12 || in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION
+                    || in.getInt() != EditorConfigSnapshot.FORMAT_VERSION) {
+                /* Not a snapshot file or an outdated format; it will be overwritten by save() */
+                dirty = true;
+                return;
+            }
+            final int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                final String key = StandardCharsets.UTF_8.decode(readBytes(in)).toString();
+                final Metadata metadata = new Metadata(in.getLong(), in.getLong());
+                final ByteBuffer hashBytes = readBytes(in);
+                final byte[] hash = new byte[hashBytes.remaining()];
+                hashBytes.get(hash);
+                entries.put(key, new Entry(metadata, hash, null, readBytes(in), false));
+            }
+        } catch (RuntimeException e) {
+            /* A corrupted snapshot file; start from scratch */
+            entries.clear();
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the entries of this {@link SnapshotCache} to the snapshot file if there are any changes since the last
+     * {@link #save()}. The entries deserialized from the snapshot file are copied without serializing them again.
+     *
+     * @throws IOException on I/O problems when writing the snapshot file
+     */
+    public void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        final Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            final List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(EditorConfigSnapshot.FORMAT_VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> mapEntry : snapshot) {
+                    final Entry entry = mapEntry.getValue();
+                    writeBytes(out, mapEntry.getKey().getBytes(StandardCharsets.UTF_8));
+                    out.writeLong(entry.metadata.getLastModifiedTime());
+                    out.writeLong(entry.metadata.getSize());
+                    writeBytes(out, entry.hash);
+                    if (entry.snapshot != null) {
+                        final ByteBuffer snapshotBytes = entry.snapshot.duplicate();
+                        final byte[] bytes = new byte[snapshotBytes.remaining()];
+                        snapshotBytes.get(bytes);
+                        writeBytes(out, bytes);
+                    } else {
+                        buffer.reset();
+                        EditorConfigSnapshot.write(entry.editorConfig, new DataOutputStream(buffer));
+                        writeBytes(out, buffer.toByteArray());
+                    }
+                }
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            dirty = true;
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+}
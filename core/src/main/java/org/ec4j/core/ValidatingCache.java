@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.ec4j.core.Resource.Metadata;
+import org.ec4j.core.model.EditorConfig;
+
+/**
+ * A {@link ConcurrentHashMap} based {@link Cache} that reloads the {@link EditorConfig}s whose underlying
+ * {@link Resource}s have changed since they were loaded. Use {@link #builder()} to create new instances.
+ * <p>
+ * When loading an entry, the {@link Resource#getMetadata()} is stored along with it. When the entry is requested again
+ * after {@link Builder#revalidateInterval(long, TimeUnit)} has elapsed since the last check, the stored
+ * {@link Metadata} is compared with the current one and the entry is reloaded only if they differ. If
+ * {@link Builder#hashContent(boolean)} is enabled, a hash of the content is stored too and a {@link Resource} whose
+ * {@link Metadata} has changed but whose content has not (e.g. after a {@code touch}) is not reloaded. Entries whose
+ * {@link Resource}s do not provide any {@link Metadata} are never reloaded.
+ * <p>
+ * Instances of this class can be accessed from concurrent threads safely. Like with {@link ConcurrentCache}, only one
+ * of several threads asking for the same {@link Resource} at once calls {@link EditorConfigLoader#load(Resource)} and
+ * the others wait for its result.
+ *
+ * @since 1.2.1
+ */
+public class ValidatingCache implements Cache {
+
+    /**
+     * A {@link ValidatingCache} builder.
+     */
+    public static class Builder {
+        private boolean hashContent = false;
+        private long revalidateIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+        private LongSupplier ticker = Caches.SYSTEM_TICKER;
+
+        /**
+         * @return a new {@link ValidatingCache}
+         */
+        public ValidatingCache build() {
+            return new ValidatingCache(revalidateIntervalNanos, hashContent, ticker);
+        }
+
+        /**
+         * If {@code true} a hash of the content is computed for every loaded {@link Resource} so that the
+         * {@link Resource}s whose {@link Metadata} has changed but whose content has not are not reloaded. The default
+         * is {@code false}.
+         *
+         * @param hashContent whether to hash the content of the loaded {@link Resource}s
+         * @return this {@link Builder}
+         */
+        public Builder hashContent(boolean hashContent) {
+            this.hashContent = hashContent;
+            return this;
+        }
+
+        /**
+         * Sets the minimal time between two checks of the {@link Metadata} of a single {@link Resource}. Within this
+         * interval, the cached entry is returned without accessing the {@link Resource}. The default is one second;
+         * zero means checking on every {@link ValidatingCache#get(Resource, EditorConfigLoader)} call.
+         *
+         * @param interval the minimal time between two checks
+         * @param unit the unit of {@code interval}
+         * @return this {@link Builder}
+         */
+        public Builder revalidateInterval(long interval, TimeUnit unit) {
+            this.revalidateIntervalNanos = unit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * Sets the time source in nanoseconds. Meant for testing.
+         *
+         * @param ticker the time source to use instead of {@link System#nanoTime()}
+         * @return this {@link Builder}
+         */
+        Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+    }
+
+    /**
+     * A loaded {@link EditorConfig} together with the state of its {@link Resource} at the time of loading.
+     */
+    private static class Entry {
+        private final EditorConfig editorConfig;
+        private final byte[] hash;
+        private volatile Metadata metadata;
+        private volatile long nextCheck;
+
+        private Entry(EditorConfig editorConfig, Metadata metadata, byte[] hash, long nextCheck) {
+            super();
+            this.editorConfig = editorConfig;
+            this.metadata = metadata;
+            this.hash = hash;
+            this.nextCheck = nextCheck;
+        }
+    }
+
+    /**
+     * @return a new {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param resource the {@link Resource} to hash
+     * @return the SHA-1 hash of the UTF-16 characters of the given {@link Resource}
+     * @throws IOException on I/O problems when reading from the given {@link Resource}
+     */
+    static byte[] hash(Resource resource) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (Reader reader = resource.openReader()) {
+            final char[] chars = new char[2048];
+            final byte[] bytes = new byte[chars.length * 2];
+            int len;
+            while ((len = reader.read(chars)) >= 0) {
+                for (int i = 0; i < len; i++) {
+                    bytes[2 * i] = (byte) (chars[i] >> 8);
+                    bytes[2 * i + 1] = (byte) chars[i];
+                }
+                digest.update(bytes, 0, len * 2);
+            }
+        }
+        return digest.digest();
+    }
+
+    private final ConcurrentMap<Resource, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+    private final boolean hashContent;
+    private final long revalidateIntervalNanos;
+    private final LongSupplier ticker;
+
+    ValidatingCache(long revalidateIntervalNanos, boolean hashContent, LongSupplier ticker) {
+        super();
+        this.revalidateIntervalNanos = revalidateIntervalNanos;
+        this.hashContent = hashContent;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Removes all entries from this {@link Cache}.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public EditorConfig get(Resource editorConfigFile, EditorConfigLoader loader) throws IOException {
+        while (true) {
+            final CompletableFuture<Entry> entry = entries.get(editorConfigFile);
+            if (entry == null) {
+                final CompletableFuture<Entry> newEntry = new CompletableFuture<>();
+                if (entries.putIfAbsent(editorConfigFile, newEntry) == null) {
+                    return load(editorConfigFile, loader, newEntry);
+                }
+            } else if (!entry.isDone()) {
+                return CacheLoading.await(entry).editorConfig;
+            } else {
+                final Entry e = CacheLoading.await(entry);
+                if (isValid(editorConfigFile, e)) {
+                    return e.editorConfig;
+                }
+                final CompletableFuture<Entry> newEntry = new CompletableFuture<>();
+                if (entries.replace(editorConfigFile, entry, newEntry)) {
+                    return load(editorConfigFile, loader, newEntry);
+                }
+            }
+            /* Lost a race with a concurrent thread; try again */
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void invalidate(Resource editorConfigFile) {
+        entries.remove(editorConfigFile);
+    }
+
+    private boolean isValid(Resource editorConfigFile, Entry entry) {
+        final long now = ticker.getAsLong();
+        if (entry.metadata == null || now - entry.nextCheck < 0) {
+            return true;
+        }
+        entry.nextCheck = now + revalidateIntervalNanos;
+        final Metadata current;
+        try {
+            current = editorConfigFile.getMetadata();
+            if (entry.metadata.equals(current)) {
+                return true;
+            } else if (current != null && entry.hash != null
+                    && Arrays.equals(entry.hash, hash(editorConfigFile))) {
+                entry.metadata = current;
+                return true;
+            }
+        } catch (IOException e) {
+            /* e.g. the file was deleted; let the loader report the problem */
+        }
+        return false;
+    }
+
+    private EditorConfig load(Resource editorConfigFile, EditorConfigLoader loader,
+            CompletableFuture<Entry> entry) throws IOException {
+        try {
+            /* Get the metadata before loading so that any concurrent change gets detected by the next check */
+            final Metadata metadata = editorConfigFile.getMetadata();
+            final byte[] hash = hashContent && metadata != null ? hash(editorConfigFile) : null;
+            final EditorConfig editorConfig = loader.load(editorConfigFile);
+            entry.complete(new Entry(editorConfig, metadata, hash,
+                    ticker.getAsLong() + revalidateIntervalNanos));
+            return editorConfig;
+        } catch (IOException | RuntimeException | Error e) {
+            entries.remove(editorConfigFile, entry);
+            entry.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+}
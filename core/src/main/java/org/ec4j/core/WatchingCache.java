@@ -0,0 +1,376 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+import org.ec4j.core.model.EditorConfig;
+
+/**
+ * A {@link Cache} decorator that watches the directories of the {@code .editorconfig} files it was asked about using a
+ * {@link WatchService}. As soon as a watched {@code .editorconfig} file is created, modified or deleted, the
+ * associated entry of the delegate {@link Cache} is invalidated via {@link Cache#invalidate(Resource)} and the
+ * registered {@link InvalidationListener}s are notified.
+ * <p>
+ * The results of {@link #exists(Resource)} are remembered and updated by the file system events too. Thus a
+ * {@code .editorconfig} file newly created in a directory where there was none before gets noticed and, in the steady
+ * state, the queries do not need to access the file system at all.
+ * <p>
+ * Only the {@link Resource}s whose {@link Resource#getPath()} can be adapted to a {@link Path} of the default
+ * {@link FileSystem} are watched. Any other {@link Resource}s are passed to the delegate {@link Cache} as they are.
+ * Note that the latency of the file system events depends on the {@link WatchService} implementation of the given
+ * platform.
+ * <p>
+ * At most {@code maxDirectories} directories are watched at once, because the platform limits the number of watches
+ * (e.g. {@code fs.inotify.max_user_watches} on Linux). When the limit is exceeded, the least recently used directory is
+ * not watched anymore and the entries of its {@code .editorconfig} files are invalidated, because their changes cannot
+ * be detected anymore. The directory is watched again as soon as it is asked about next time.
+ * <p>
+ * Instances of this class can be accessed from concurrent threads safely, as long as the delegate {@link Cache} can.
+ * Each instance runs a daemon thread that is stopped by {@link #close()}.
+ *
+ * @since 1.2.1
+ */
+public class WatchingCache implements Cache, Closeable {
+
+    /**
+     * A directory registered with {@link WatchingCache#watchService} and the {@link Resource}s in it we are interested
+     * in.
+     */
+    private static class WatchedDirectory {
+        /** Set before the files are invalidated when this directory is not watched anymore */
+        private volatile boolean cancelled;
+        /** File names to {@link Resource}s */
+        private final ConcurrentMap<Path, Resource> files = new ConcurrentHashMap<>();
+        /** Completed with the {@link WatchKey} or with {@code null} if the directory could not be registered */
+        private final CompletableFuture<WatchKey> key = new CompletableFuture<>();
+        /** The {@link System#nanoTime()} of the last use for the least recently used eviction */
+        private volatile long lastUsed = System.nanoTime();
+    }
+
+    /** A remembered result of {@link WatchingCache#exists(Resource)} */
+    private static class WatchedFile {
+        private final WatchedDirectory dir;
+        private final boolean exists;
+
+        WatchedFile(WatchedDirectory dir, boolean exists) {
+            super();
+            this.dir = dir;
+            this.exists = exists;
+        }
+    }
+
+    /** The default maximal number of directories watched at once */
+    public static final int DEFAULT_MAX_DIRECTORIES = 1024;
+
+    private volatile boolean closed;
+    private final Cache delegate;
+    private final ConcurrentMap<Path, WatchedDirectory> directories = new ConcurrentHashMap<>();
+    /** The remembered results of {@link #exists(Resource)} */
+    private final ConcurrentMap<Resource, WatchedFile> existence = new ConcurrentHashMap<>();
+    private final FileSystem fileSystem;
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+    private final int maxDirectories;
+    private final Thread thread;
+    private final WatchService watchService;
+
+    /**
+     * Use {@link Cache.Caches#watching(Cache, int)} to create new instances.
+     *
+     * @param delegate the {@link Cache} to store the entries
+     * @param maxDirectories the maximal number of directories to watch at once
+     * @throws IOException if the {@link WatchService} cannot be created
+     */
+    WatchingCache(Cache delegate, int maxDirectories) throws IOException {
+        super();
+        if (maxDirectories <= 0) {
+            throw new IllegalArgumentException("maxDirectories must be positive; found " + maxDirectories);
+        }
+        this.delegate = delegate;
+        this.maxDirectories = maxDirectories;
+        this.fileSystem = FileSystems.getDefault();
+        this.watchService = fileSystem.newWatchService();
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processEvents();
+            }
+        }, WatchingCache.class.getSimpleName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addInvalidationListener(InvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void removeInvalidationListener(InvalidationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops watching the file system. This {@link Cache} keeps working afterwards, but it passes all calls to the
+     * delegate {@link Cache}. All {@code .editorconfig} files seen so far are reported to the
+     * {@link InvalidationListener}s, because their changes cannot be detected anymore.
+     *
+     * @throws IOException if the underlying {@link WatchService} cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+        for (WatchedDirectory dir : directories.values()) {
+            unwatch(dir);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The result is remembered and kept up to date by the file system events, so that subsequent calls for the same
+     * {@code editorConfigFile} do not access the file system.
+     */
+    @Override
+    public boolean exists(Resource editorConfigFile) {
+        final WatchedFile known = existence.get(editorConfigFile);
+        if (known != null) {
+            known.dir.lastUsed = System.nanoTime();
+            return known.exists;
+        }
+        /* Start watching before checking so that no change can get lost */
+        final WatchedDirectory dir = watch(editorConfigFile);
+        final boolean result = delegate.exists(editorConfigFile);
+        if (dir != null && !closed) {
+            /* putIfAbsent() because a file system event might have arrived since we started watching */
+            final WatchedFile file = new WatchedFile(dir, result);
+            if (existence.putIfAbsent(editorConfigFile, file) == null && dir.cancelled) {
+                /* The directory has been unwatched in the meantime */
+                existence.remove(editorConfigFile, file);
+            }
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public EditorConfig get(Resource editorConfigFile, EditorConfigLoader loader) throws IOException {
+        final WatchedDirectory dir = watch(editorConfigFile);
+        final EditorConfig result = delegate.get(editorConfigFile, loader);
+        invalidateIfCancelled(dir, editorConfigFile);
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<EditorConfig> getAsync(final Resource editorConfigFile, EditorConfigLoader loader,
+            Executor executor) {
+        final WatchedDirectory dir = watch(editorConfigFile);
+        return delegate.getAsync(editorConfigFile, loader, executor)
+                .whenComplete(new BiConsumer<EditorConfig, Throwable>() {
+                    @Override
+                    public void accept(EditorConfig result, Throwable failure) {
+                        invalidateIfCancelled(dir, editorConfigFile);
+                    }
+                });
+    }
+
+    /**
+     * @return the number of the directories watched at the moment; never greater than {@code maxDirectories}
+     */
+    public int getWatchedDirectoryCount() {
+        return directories.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void invalidate(Resource editorConfigFile) {
+        existence.remove(editorConfigFile);
+        delegate.invalidate(editorConfigFile);
+        fireInvalidated(editorConfigFile);
+    }
+
+    private void fireInvalidated(Resource editorConfigFile) {
+        for (InvalidationListener listener : listeners) {
+            listener.invalidated(editorConfigFile);
+        }
+    }
+
+    private void invalidateAll(WatchedDirectory dir) {
+        for (Resource file : dir.files.values()) {
+            invalidate(file);
+        }
+    }
+
+    /**
+     * An entry loaded while its directory was being unwatched might have been stored after the directory's files were
+     * invalidated, so it needs to be invalidated again. Otherwise its changes would go unnoticed.
+     */
+    private void invalidateIfCancelled(WatchedDirectory dir, Resource editorConfigFile) {
+        if (dir != null && dir.cancelled) {
+            invalidate(editorConfigFile);
+        }
+    }
+
+    private void processEvents() {
+        while (!closed) {
+            final WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            final Path dirPath = (Path) key.watchable();
+            final WatchedDirectory dir = directories.get(dirPath);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (dir == null) {
+                    continue;
+                }
+                final WatchEvent.Kind<?> kind = event.kind();
+                if (kind == StandardWatchEventKinds.OVERFLOW) {
+                    invalidateAll(dir);
+                } else {
+                    final Resource file = dir.files.get((Path) event.context());
+                    if (file != null) {
+                        delegate.invalidate(file);
+                        final WatchedFile watchedFile = new WatchedFile(dir,
+                                kind != StandardWatchEventKinds.ENTRY_DELETE);
+                        existence.put(file, watchedFile);
+                        if (dir.cancelled) {
+                            existence.remove(file, watchedFile);
+                        }
+                        fireInvalidated(file);
+                    }
+                }
+            }
+            if (!key.reset() && dir != null) {
+                /* The directory is not accessible anymore */
+                unwatch(dir);
+            }
+        }
+    }
+
+    /**
+     * Makes sure that the parent directory of the given {@code editorConfigFile} is watched.
+     *
+     * @param editorConfigFile the {@link Resource} to watch
+     * @return the {@link WatchedDirectory} containing the given {@code editorConfigFile} or {@code null} if the
+     *         given {@code editorConfigFile} is not watched
+     */
+    private WatchedDirectory watch(Resource editorConfigFile) {
+        if (closed) {
+            return null;
+        }
+        final Path path = editorConfigFile.getPath().getAdapter(Path.class);
+        if (path == null || path.getFileSystem() != fileSystem) {
+            return null;
+        }
+        final Path absPath = path.toAbsolutePath();
+        final Path dirPath = absPath.getParent();
+        if (dirPath == null) {
+            return null;
+        }
+        WatchedDirectory dir = directories.get(dirPath);
+        if (dir == null) {
+            final WatchedDirectory newDir = new WatchedDirectory();
+            dir = directories.putIfAbsent(dirPath, newDir);
+            if (dir == null) {
+                dir = newDir;
+                /*
+                 * The directory is in the map and knows the file before it is registered so that processEvents() does
+                 * not drop any event
+                 */
+                dir.files.put(absPath.getFileName(), editorConfigFile);
+                try {
+                    dir.key.complete(dirPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY));
+                } catch (IOException | RuntimeException e) {
+                    /* e.g. the directory does not exist or the WatchService is closed */
+                    dir.key.complete(null);
+                    directories.remove(dirPath, dir);
+                    return null;
+                }
+                evictLeastRecentlyUsed(dir);
+                return dir;
+            }
+        }
+        dir.lastUsed = System.nanoTime();
+        dir.files.putIfAbsent(absPath.getFileName(), editorConfigFile);
+        /* Wait until the directory is registered by the thread that created it */
+        return dir.key.join() != null ? dir : null;
+    }
+
+    /**
+     * Unwatches the least recently used directories until there are at most {@link #maxDirectories} of them.
+     *
+     * @param added the {@link WatchedDirectory} just added that should not be evicted
+     */
+    private void evictLeastRecentlyUsed(WatchedDirectory added) {
+        while (directories.size() > maxDirectories) {
+            WatchedDirectory eldest = null;
+            for (WatchedDirectory dir : directories.values()) {
+                if (dir != added && (eldest == null || dir.lastUsed - eldest.lastUsed < 0)) {
+                    eldest = dir;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            unwatch(eldest);
+        }
+    }
+
+    /**
+     * Stops watching the given {@link WatchedDirectory} and invalidates its files, because their changes cannot be
+     * detected anymore.
+     *
+     * @param dir the {@link WatchedDirectory} to unwatch
+     */
+    private void unwatch(WatchedDirectory dir) {
+        final WatchKey key = dir.key.getNow(null);
+        if (key == null || !directories.remove((Path) key.watchable(), dir)) {
+            /* Not registered yet or unwatched by another thread */
+            return;
+        }
+        dir.cancelled = true;
+        key.cancel();
+        invalidateAll(dir);
+    }
+
+}
@@ -101,14 +101,12 @@ public interface Ec4jPath extends Adaptable {
             /** {@inheritDoc} */
             @Override
             public String toString() {
-                if (isWindows) {
-                    if (toString == null) {
-                        toString = path.toString().replace('\\', '/');
-                    }
-                    return toString;
-                } else {
-                    return path.toString();
+                String result = toString;
+                if (result == null) {
+                    result = isWindows ? path.toString().replace('\\', '/') : path.toString();
+                    toString = result;
                 }
+                return result;
             }
 
             @Override
@@ -17,6 +17,7 @@
 package org.ec4j.core.model;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -34,6 +35,7 @@ public class EditorConfig extends Adaptable.DefaultAdaptable {
      */
     public static class Builder extends Adaptable.DefaultAdaptable.Builder<Builder> {
 
+        Interner interner;
         boolean parentAware;
         Boolean root;
         List<Section.Builder> sections;
@@ -78,6 +80,19 @@ public class EditorConfig extends Adaptable.DefaultAdaptable {
             return new Section.Builder(this).parentAware(parentAware);
         }
 
+        /**
+         * Sets the {@link Interner} to share the {@link Property}s having no adapters with other
+         * {@link EditorConfig}s. Not set by default.
+         *
+         * @param interner the {@link Interner} to use or {@code null} to disable interning
+         * @return this {@link Builder}
+         * @since 1.2.1
+         */
+        public Builder interner(Interner interner) {
+            this.interner = interner;
+            return this;
+        }
+
         /**
          * @param parentAware
          *        if {@code true} the {@link Section#getProperties()} of the resulting {@link Section} will have the
@@ -175,6 +190,9 @@ public class EditorConfig extends Adaptable.DefaultAdaptable {
      */
     private final Boolean root;
 
+    /** Created lazily by {@link #getSectionIndex()} */
+    private volatile SectionIndex sectionIndex;
+
     private final List<Section> sections;
 
     private final Version version;
@@ -228,6 +246,29 @@ public class EditorConfig extends Adaptable.DefaultAdaptable {
         return sections;
     }
 
+    /**
+     * @return the {@link SectionIndex} of {@link #sections}; it is created on the first invocation
+     */
+    SectionIndex getSectionIndex() {
+        SectionIndex result = sectionIndex;
+        if (result == null) {
+            /* Several threads may create their own instances but they are all equivalent */
+            result = SectionIndex.of(sections);
+            sectionIndex = result;
+        }
+        return result;
+    }
+
+    /**
+     * Sets a precompiled {@link SectionIndex}. Must be called before this {@link EditorConfig} is made available to
+     * other threads.
+     *
+     * @param sectionIndex the {@link SectionIndex} of {@link #sections}
+     */
+    void setSectionIndex(SectionIndex sectionIndex) {
+        this.sectionIndex = sectionIndex;
+    }
+
     /**
      * @return The version of EditorConfig specification, the current {@link EditorConfig} model is compliant with
      */
@@ -245,6 +286,43 @@ public class EditorConfig extends Adaptable.DefaultAdaptable {
         return result;
     }
 
+    /**
+     * Finds the {@link Section}s whose {@link Glob}s match the given path. Instead of calling
+     * {@link Section#match(Ec4jPath)} for each {@link Section}, this method uses an index that is built on the first
+     * invocation: the {@link Glob}s using {@link Glob.Engine#AUTOMATON} are compiled into a single automaton that finds
+     * all of their matching {@link Section}s in one pass over the path. The other {@link Section}s, i.e. all of them
+     * with the default {@link Glob.Engine#REGEX} or should the automaton get too big, are looked up by the name or by
+     * the extension of the file if they are like {@code [Makefile]} or {@code [*.{js,ts}]}, and only the remaining
+     * {@link Glob}s are evaluated one by one.
+     *
+     * @param filePath a slash ({@code /}) separated file path relative to the directory of the {@code .editorconfig}
+     *        file this {@link EditorConfig} was loaded from
+     * @return a new {@link BitSet} whose set bits are the indexes of the matching {@link Section}s in
+     *         {@link #getSections()}
+     * @since 1.2.1
+     */
+    public BitSet matchSections(Ec4jPath filePath) {
+        final BitSet result = new BitSet(sections.size());
+        matchSections(filePath.toString(), result, 0);
+        return result;
+    }
+
+    /**
+     * Finds the {@link Section}s whose {@link Glob}s match the given path like {@link #matchSections(Ec4jPath)} and
+     * sets the bit {@code offset + i} in the given {@code matches} for each matching {@link Section} with index
+     * {@code i}. This allows for collecting the matching {@link Section}s of several {@link EditorConfig}s in a single
+     * {@link BitSet}.
+     *
+     * @param filePath a slash ({@code /}) separated file path relative to the directory of the {@code .editorconfig}
+     *        file this {@link EditorConfig} was loaded from
+     * @param matches the {@link BitSet} to set the bits in
+     * @param offset the bit to set for the {@link Section} with index {@code 0}
+     * @since 1.2.1
+     */
+    public void matchSections(CharSequence filePath, BitSet matches, int offset) {
+        getSectionIndex().match(filePath, matches, offset);
+    }
+
     /**
      * @return {@code true} if the underlying {@code .editorconfig} file had the {@code root} property specified;
      *         {@code false} otherwise. A shorthand for {@code getRoot() != null}
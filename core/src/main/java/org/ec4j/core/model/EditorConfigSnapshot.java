@@ -0,0 +1,310 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.model;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ec4j.core.PropertyTypeRegistry;
+import org.ec4j.core.model.PropertyType.PropertyValue;
+
+/**
+ * Serializes {@link EditorConfig}s into a compact binary format and deserializes them back. The format contains the
+ * root flag, the {@link Version}, the {@link Section}s with their {@link Glob}s and {@link Property}s and also the
+ * precompiled automata of the {@link Glob}s and of the {@link Section} index used by
+ * {@link EditorConfig#matchSections(Ec4jPath)}, so that reading a snapshot requires neither parsing nor glob
+ * compilation.
+ * <p>
+ * The snapshots are read from {@link ByteBuffer}s, which may be memory-mapped. The typed property values are
+ * deserialized as lazy {@link PropertyValue}s, see {@link PropertyValue#lazy(String, PropertyType)}. The adapters
+ * (such as source locations) are not serialized.
+ *
+ * @since 1.2.1
+ */
+public class EditorConfigSnapshot {
+
+    /** The version of the binary format; incremented on any incompatible change */
+    public static final int FORMAT_VERSION = 3;
+
+    private static final byte GLOB_AUTOMATON = 2;
+    private static final byte GLOB_NONE = 0;
+    private static final byte GLOB_REGEX = 1;
+    private static final byte INDEX_NONE = 0;
+    private static final byte INDEX_UNION = 1;
+    private static final byte ROOT_FALSE = 1;
+    private static final byte ROOT_NONE = 0;
+    private static final byte ROOT_TRUE = 2;
+
+    /**
+     * Reads an {@link EditorConfig} written by {@link #write(EditorConfig, DataOutput)}.
+     *
+     * @param in the {@link ByteBuffer} to read from; its position is advanced past the read {@link EditorConfig}
+     * @param registry the {@link PropertyTypeRegistry} to look up the {@link PropertyType}s of the properties in
+     * @return a new {@link EditorConfig}
+     * @throws IOException if the snapshot has an unsupported {@link #FORMAT_VERSION} or if it is corrupted
+     */
+    public static EditorConfig read(ByteBuffer in, PropertyTypeRegistry registry) throws IOException {
+        try {
+            final int formatVersion = in.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported EditorConfig snapshot format version " + formatVersion
+                        + "; expected " + FORMAT_VERSION);
+            }
+            final Boolean root;
+            switch (in.get()) {
+                case ROOT_NONE:
+                    root = null;
+                    break;
+                case ROOT_FALSE:
+                    root = Boolean.FALSE;
+                    break;
+                case ROOT_TRUE:
+                    root = Boolean.TRUE;
+                    break;
+                default:
+                    throw new IOException("Corrupted EditorConfig snapshot: invalid root flag");
+            }
+            final Version version = Version.of(readString(in));
+            /* At least a glob kind byte and a property count per section */
+            final int sectionCount = readCount(in, 5);
+            final List<Section> sections = new ArrayList<>(sectionCount);
+            for (int i = 0; i < sectionCount; i++) {
+                sections.add(readSection(in, registry));
+            }
+            final EditorConfig result = new EditorConfig(Collections.emptyList(), root, version,
+                    Collections.unmodifiableList(sections));
+            if (in.get() == INDEX_UNION) {
+                final int[] unionSections = readSectionIndexes(in, sectionCount);
+                final GlobAutomaton union = GlobAutomaton.read(in, unionSections.length);
+                result.setSectionIndex(SectionIndex.of(result.getSections(), union, unionSections));
+            }
+            return result;
+        } catch (RuntimeException e) {
+            /* BufferUnderflowException, IndexOutOfBoundsException and the like */
+            throw new IOException("Corrupted EditorConfig snapshot", e);
+        }
+    }
+
+    private static Glob readGlob(ByteBuffer in) throws IOException {
+        final byte kind = in.get();
+        switch (kind) {
+            case GLOB_NONE:
+                return null;
+            case GLOB_REGEX:
+                return new Glob(readString(in), Glob.Engine.REGEX);
+            case GLOB_AUTOMATON:
+                final String source = readString(in);
+                final String regex = readString(in);
+                final boolean matchLastSegmentOnly = in.get() != 0;
+                final int rangeCount = readCount(in, 8);
+                final List<int[]> ranges = new ArrayList<>(rangeCount);
+                for (int i = 0; i < rangeCount; i++) {
+                    ranges.add(new int[] { in.getInt(), in.getInt() });
+                }
+                return new Glob(source, regex, ranges, matchLastSegmentOnly, GlobAutomaton.read(in, 1));
+            default:
+                throw new IOException("Corrupted EditorConfig snapshot: invalid glob kind " + kind);
+        }
+    }
+
+    /**
+     * Reads a count of elements and checks that it is not negative and that the remaining bytes of {@code in} can
+     * hold so many elements, so that a corrupted count cannot cause a huge allocation.
+     *
+     * @param in the {@link ByteBuffer} to read from
+     * @param minElementSize the minimal number of bytes a single element occupies
+     * @return the count
+     * @throws IOException if the count is out of range
+     */
+    static int readCount(ByteBuffer in, int minElementSize) throws IOException {
+        final int count = in.getInt();
+        if (count < 0 || count > in.remaining() / minElementSize) {
+            throw new IOException("Corrupted EditorConfig snapshot: count " + count + " out of range");
+        }
+        return count;
+    }
+
+    /**
+     * @param in the {@link ByteBuffer} to read from
+     * @return the {@code int} array written by {@link #writeInts(DataOutput, int[])}
+     * @throws IOException if the length of the array is out of range
+     */
+    static int[] readInts(ByteBuffer in) throws IOException {
+        final int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining() / 4) {
+            throw new IOException("Corrupted EditorConfig snapshot: array length " + length + " out of range");
+        }
+        final int[] result = new int[length];
+        in.asIntBuffer().get(result);
+        in.position(in.position() + length * 4);
+        return result;
+    }
+
+    /**
+     * @param in the {@link ByteBuffer} to read from
+     * @param sectionCount the number of the {@link Section}s
+     * @return the non-{@code null} array of {@link Section} indexes written by {@link #writeInts(DataOutput, int[])}
+     * @throws IOException if the array is {@code null} or if any of the indexes is out of range
+     */
+    private static int[] readSectionIndexes(ByteBuffer in, int sectionCount) throws IOException {
+        final int[] result = readInts(in);
+        if (result == null) {
+            throw new IOException("Corrupted EditorConfig snapshot: missing section indexes");
+        }
+        for (int index : result) {
+            if (index < 0 || index >= sectionCount) {
+                throw new IOException("Corrupted EditorConfig snapshot: section index " + index + " out of range");
+            }
+        }
+        return result;
+    }
+
+    private static Section readSection(ByteBuffer in, PropertyTypeRegistry registry) throws IOException {
+        final Glob glob = readGlob(in);
+        /* At least the lengths of the name and of the value and the typed flag per property */
+        final int propertyCount = readCount(in, 9);
+        final Map<String, Property> properties = new LinkedHashMap<>(propertyCount * 2);
+        for (int i = 0; i < propertyCount; i++) {
+            final String name = readString(in);
+            final boolean typed = in.get() != 0;
+            final String value = readString(in);
+            final PropertyType<?> type = typed ? registry.getType(name) : null;
+            final PropertyValue<?> propertyValue = type == null ? PropertyValue.valid(value, value)
+                    : PropertyValue.lazy(value, type);
+            properties.put(name, new Property(Collections.emptyList(), type, name, propertyValue));
+        }
+        return new Section(Collections.emptyList(), glob, Collections.unmodifiableMap(properties));
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        final int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new IOException("Corrupted EditorConfig snapshot: string length " + length + " out of range");
+        }
+        final String result;
+        if (in.hasArray()) {
+            result = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            final byte[] bytes = new byte[length];
+            in.get(bytes);
+            result = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the given {@link EditorConfig} to the given {@link DataOutput}. The {@link Section} index of the given
+     * {@link EditorConfig} is created if it does not exist yet, so that the snapshot can contain it.
+     *
+     * @param editorConfig the {@link EditorConfig} to write
+     * @param out the {@link DataOutput} to write to
+     * @throws IOException on I/O problems
+     */
+    public static void write(EditorConfig editorConfig, DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeByte(!editorConfig.hasRootProperty() ? ROOT_NONE : editorConfig.isRoot() ? ROOT_TRUE : ROOT_FALSE);
+        writeString(out, editorConfig.getVersion().toString());
+        final List<Section> sections = editorConfig.getSections();
+        out.writeInt(sections.size());
+        for (Section section : sections) {
+            writeGlob(out, section.getGlob());
+            final Map<String, Property> properties = section.getProperties();
+            out.writeInt(properties.size());
+            for (Property property : properties.values()) {
+                writeString(out, property.getName());
+                out.writeByte(property.getType() != null ? 1 : 0);
+                writeString(out, property.getSourceValue());
+            }
+        }
+        final SectionIndex index = editorConfig.getSectionIndex();
+        if (index.getUnion() != null) {
+            out.writeByte(INDEX_UNION);
+            writeInts(out, index.getUnionSections());
+            index.getUnion().write(out);
+        } else {
+            /* The buckets, also those of the Sections not in the union, are cheap to create on demand */
+            out.writeByte(INDEX_NONE);
+        }
+    }
+
+    private static void writeGlob(DataOutput out, Glob glob) throws IOException {
+        if (glob == null) {
+            out.writeByte(GLOB_NONE);
+        } else if (glob.getAutomaton() == null) {
+            out.writeByte(GLOB_REGEX);
+            writeString(out, glob.getSource());
+        } else {
+            out.writeByte(GLOB_AUTOMATON);
+            writeString(out, glob.getSource());
+            writeString(out, glob.getRegex().pattern());
+            out.writeByte(glob.isMatchLastSegmentOnly() ? 1 : 0);
+            final List<int[]> ranges = glob.getRanges();
+            out.writeInt(ranges.size());
+            for (int[] range : ranges) {
+                out.writeInt(range[0]);
+                out.writeInt(range[1]);
+            }
+            glob.getAutomaton().write(out);
+        }
+    }
+
+    /**
+     * Writes the given {@code values} so that they can be read back by {@link #readInts(ByteBuffer)}.
+     *
+     * @param out the {@link DataOutput} to write to
+     * @param values the values to write, can be {@code null}
+     * @throws IOException on I/O problems
+     */
+    static void writeInts(DataOutput out, int[] values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(values.length);
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private EditorConfigSnapshot() {
+    }
+
+}
@@ -16,6 +16,7 @@
  */
 package org.ec4j.core.model;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -47,6 +48,69 @@ import java.util.regex.PatternSyntaxException;
  */
 public class Glob {
 
+    /**
+     * The ways of matching paths against a {@link Glob}.
+     *
+     * @since 1.2.1
+     */
+    public enum Engine {
+        /**
+         * Compiles the {@link Glob} into a deterministic automaton that matches in time linear in the length of the
+         * path without any backtracking. The rare {@link Glob}s the automaton cannot represent fall back to
+         * {@link #REGEX}. Note that unlike {@link #REGEX}, this engine lets a path match an alternative that contains
+         * no numeric range even if another alternative contains one, e.g. {@code {a,b{1..3}}.x} matches {@code a.x},
+         * and it treats the numbers overflowing an {@code int} as not matching rather than throwing.
+         */
+        AUTOMATON,
+        /** Compiles the {@link Glob} into a {@link java.util.regex.Pattern}; the default */
+        REGEX;
+
+        /** The name of the system property that can be used to set the default {@link Engine} */
+        public static final String SYSTEM_PROPERTY = "ec4j.glob.engine";
+
+        private static final Engine DEFAULT = parse(System.getProperty(SYSTEM_PROPERTY), REGEX);
+
+        /**
+         * @return the {@link Engine} set via the {@value #SYSTEM_PROPERTY} system property or {@link #REGEX} if the
+         *         property is not set or if its value is not a name of an {@link Engine}
+         */
+        public static Engine default_() {
+            return DEFAULT;
+        }
+
+        /**
+         * @param value the name of an {@link Engine} in any case or {@code null}
+         * @param defaultValue the {@link Engine} to return if {@code value} is not a name of any {@link Engine}
+         * @return the {@link Engine} named by the given {@code value} or the given {@code defaultValue}
+         */
+        static Engine parse(String value, Engine defaultValue) {
+            if (value != null) {
+                final String name = value.trim();
+                for (Engine engine : values()) {
+                    if (engine.name().equalsIgnoreCase(name)) {
+                        return engine;
+                    }
+                }
+            }
+            return defaultValue;
+        }
+    }
+
+    /** The number of {@link #MATCHERS} per thread; a power of two */
+    private static final int MATCHER_CACHE_SIZE = 32;
+
+    /**
+     * A small direct mapped per thread cache of the {@link Matcher}s reused by
+     * {@link #matchRegex(CharSequence, int, int)}, indexed by the identity hash code of their {@link Pattern}s
+     */
+    private static final ThreadLocal<Matcher[]> MATCHERS = new ThreadLocal<Matcher[]>() {
+        @Override
+        protected Matcher[] initialValue() {
+            return new Matcher[MATCHER_CACHE_SIZE];
+        }
+    };
+
+    private final GlobAutomaton automaton;
     private final PatternSyntaxException error;
     private final List<int[]> ranges;
     private final Pattern regex;
@@ -54,7 +118,21 @@ public class Glob {
     private final boolean matchLastSegmentOnly;
     static final Pattern ESCAPED_COMMENT_SIGNS = Pattern.compile("\\\\([#;])");
 
+    /**
+     * Creates a new {@link Glob} using {@link Engine#default_()}.
+     *
+     * @param source the glob string
+     */
     public Glob(String source) {
+        this(source, Engine.default_());
+    }
+
+    /**
+     * @param source the glob string
+     * @param engine the {@link Engine} to use for matching
+     * @since 1.2.1
+     */
+    public Glob(String source, Engine engine) {
         this.source = source;
         this.ranges = new ArrayList<int[]>();
         source = ESCAPED_COMMENT_SIGNS.matcher(source).replaceAll("$1");
@@ -75,6 +153,27 @@ public class Glob {
         }
         this.error = err;
         this.regex = pat;
+        this.automaton = pat != null && engine == Engine.AUTOMATON ? GlobAutomaton.compile(regex.toString(), ranges)
+                : null;
+    }
+
+    /**
+     * Creates a {@link Glob} out of the results of a previous compilation of a valid {@link Glob} using
+     * {@link Engine#AUTOMATON}. Used by {@link EditorConfigSnapshot}.
+     *
+     * @param source the glob string
+     * @param regex the regular expression the {@code source} was converted to
+     * @param ranges the numeric ranges of the {@code (\d+)} groups of {@code regex}
+     * @param matchLastSegmentOnly see {@link #isMatchLastSegmentOnly()}
+     * @param automaton the {@link GlobAutomaton} compiled out of {@code regex} and {@code ranges}
+     */
+    Glob(String source, String regex, List<int[]> ranges, boolean matchLastSegmentOnly, GlobAutomaton automaton) {
+        this.source = source;
+        this.ranges = ranges;
+        this.matchLastSegmentOnly = matchLastSegmentOnly;
+        this.error = null;
+        this.regex = Pattern.compile(regex);
+        this.automaton = automaton;
     }
 
     @Override
@@ -94,6 +193,22 @@ public class Glob {
         return true;
     }
 
+    /**
+     * @return the {@link Engine} actually used by this {@link Glob}; this may be {@link Engine#REGEX} even if
+     *         {@link Engine#AUTOMATON} was requested, see {@link Engine#AUTOMATON}
+     * @since 1.2.1
+     */
+    public Engine getEngine() {
+        return automaton != null ? Engine.AUTOMATON : Engine.REGEX;
+    }
+
+    /**
+     * @return the {@link GlobAutomaton} used for matching or {@code null} if {@link Engine#REGEX} is used
+     */
+    GlobAutomaton getAutomaton() {
+        return automaton;
+    }
+
     /**
      * @return the {@link PatternSyntaxException} that was thrown when parsing the {@link #source} or {@code null} when
      *         no {@link PatternSyntaxException} was thrown.
@@ -109,6 +224,28 @@ public class Glob {
         return source;
     }
 
+    /**
+     * @return the numeric ranges of the {@code (\d+)} groups of {@link #getRegex()}
+     */
+    List<int[]> getRanges() {
+        return ranges;
+    }
+
+    /**
+     * @return the {@link Pattern} this {@link Glob} was compiled into or {@code null} if this {@link Glob} is not valid
+     */
+    Pattern getRegex() {
+        return regex;
+    }
+
+    /**
+     * @return {@code true} if this {@link Glob} is matched against the last segment of the paths only; {@code false}
+     *         if it is matched against whole paths
+     */
+    boolean isMatchLastSegmentOnly() {
+        return matchLastSegmentOnly;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -138,26 +275,119 @@ public class Glob {
      * @return {@code true} if the given {@code filePath} matches; {@code false} otherwise
      */
     public boolean match(Ec4jPath filePath) {
+        final String path = filePath.toString();
+        return match(path, 0, path.length());
+    }
+
+    /**
+     * Matches the given slash ({@code /}) separated path against this {@link Glob}. The {@code filePath} MUST be
+     * relative to the directory if the {@code .editorconfig} file this {@link Glob} was defined in. Unlike
+     * {@link #match(Ec4jPath)}, this method allocates no memory unless this {@link Glob} uses {@link Engine#REGEX}.
+     *
+     * @param filePath the characters of a slash ({@code /}) separated file path to match against this {@link Glob}
+     * @param offset the index of the first character of the path in {@code filePath}
+     * @param length the number of characters of the path
+     * @return {@code true} if the given {@code filePath} matches; {@code false} otherwise
+     * @since 1.2.1
+     */
+    public boolean match(char[] filePath, int offset, int length) {
         if (!isValid()) {
             return false;
         }
+        final int end = offset + length;
+        int start = offset;
+        if (matchLastSegmentOnly) {
+            for (int i = end - 1; i >= offset; i--) {
+                if (filePath[i] == '/') {
+                    start = i + 1;
+                    break;
+                }
+            }
+        }
+        if (automaton != null) {
+            return automaton.matches(filePath, start, end);
+        }
+        return matchRegex(CharBuffer.wrap(filePath), start, end);
+    }
 
-        final Matcher matcher = regex.matcher(matchLastSegmentOnly ? filePath.getLastSegment() : filePath.toString());
-        if (matcher.matches()) {
-            for (int i = 0; i < matcher.groupCount(); i++) {
-                final int[] range = ranges.get(i);
-                final String numberString = matcher.group(i + 1);
-                if (numberString == null || numberString.startsWith("0")) {
-                    return false;
+    /**
+     * Matches the given slash ({@code /}) separated path against this {@link Glob}. The {@code filePath} MUST be
+     * relative to the directory if the {@code .editorconfig} file this {@link Glob} was defined in. Unlike
+     * {@link #match(Ec4jPath)}, this method usually allocates no memory in the steady state.
+     *
+     * @param filePath a slash ({@code /}) separated file path to match against this {@link Glob}
+     * @return {@code true} if the given {@code filePath} matches; {@code false} otherwise
+     * @since 1.2.1
+     */
+    public boolean match(CharSequence filePath) {
+        return match(filePath, 0, filePath.length());
+    }
+
+    /**
+     * Matches a region of the given {@link CharSequence} against this {@link Glob}. The path in the region MUST be
+     * slash ({@code /}) separated and relative to the directory if the {@code .editorconfig} file this {@link Glob}
+     * was defined in. This method usually allocates no memory in the steady state: with {@link Engine#REGEX}, the
+     * {@link Matcher}s are reused through a small per thread cache shared by all {@link Glob}s.
+     *
+     * @param filePath the {@link CharSequence} containing the path to match against this {@link Glob}
+     * @param start the index of the first character of the path in {@code filePath}
+     * @param end the index after the last character of the path in {@code filePath}
+     * @return {@code true} if the given region of {@code filePath} matches; {@code false} otherwise
+     * @since 1.2.1
+     */
+    public boolean match(CharSequence filePath, int start, int end) {
+        if (!isValid()) {
+            return false;
+        }
+        int useStart = start;
+        if (matchLastSegmentOnly) {
+            for (int i = end - 1; i >= start; i--) {
+                if (filePath.charAt(i) == '/') {
+                    useStart = i + 1;
+                    break;
                 }
-                int number = Integer.parseInt(numberString);
-                if (number < range[0] || number > range[1]) {
-                    return false;
+            }
+        }
+        if (automaton != null) {
+            return automaton.matches(filePath, useStart, end);
+        }
+        return matchRegex(filePath, useStart, end);
+    }
+
+    /**
+     * Based on <a href=
+     * "https://github.com/editorconfig/editorconfig-core-java/blob/e3e090545f44d20f5f228ef1068af4c9d7323a51/src/main/java/org/editorconfig/core/EditorConfig.java#L242">EditorConfig</a>
+     * by Dennis Ushakov.
+     */
+    private boolean matchRegex(CharSequence filePath, int start, int end) {
+        final Matcher[] matchers = MATCHERS.get();
+        final int slot = System.identityHashCode(regex) & (MATCHER_CACHE_SIZE - 1);
+        Matcher matcher = matchers[slot];
+        if (matcher == null || matcher.pattern() != regex) {
+            matcher = regex.matcher("");
+            matchers[slot] = matcher;
+        }
+        try {
+            matcher.reset(filePath).region(start, end);
+            if (matcher.matches()) {
+                for (int i = 0; i < matcher.groupCount(); i++) {
+                    final int[] range = ranges.get(i);
+                    final int groupStart = matcher.start(i + 1);
+                    if (groupStart < 0 || filePath.charAt(groupStart) == '0') {
+                        return false;
+                    }
+                    final int number = parseInt(filePath, groupStart, matcher.end(i + 1));
+                    if (number < range[0] || number > range[1]) {
+                        return false;
+                    }
                 }
+                return true;
             }
-            return true;
+            return false;
+        } finally {
+            /* Do not hold the filePath */
+            matcher.reset("");
         }
-        return false;
     }
 
     /**
@@ -263,6 +493,27 @@ public class Glob {
         }
     }
 
+    /**
+     * Parses the decimal digits in the given region of {@code digits} without allocating any {@link String}.
+     *
+     * @param digits the {@link CharSequence} containing the decimal digits
+     * @param start the index of the first digit
+     * @param end the index after the last digit
+     * @return the parsed value
+     * @throws NumberFormatException if the number does not fit into an {@code int}
+     */
+    static int parseInt(CharSequence digits, int start, int end) {
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            result = result * 10 + (digits.charAt(i) - '0');
+            if (result > Integer.MAX_VALUE) {
+                /* Let Integer.parseInt() produce the same exception as before */
+                return Integer.parseInt(digits.subSequence(start, end).toString());
+            }
+        }
+        return (int) result;
+    }
+
     /**
      * @param globString
      *        the glob string to check
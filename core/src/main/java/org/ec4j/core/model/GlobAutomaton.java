@@ -0,0 +1,928 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.model;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A deterministic finite automaton equivalent to a regular expression produced by
+ * {@link Glob#convertGlobToRegEx(String, List, StringBuilder)}. The automaton consumes the input one code point at a
+ * time and never backtracks, thus the time needed to match is linear in the length of the input.
+ * <p>
+ * Only the subset of the {@link java.util.regex.Pattern} syntax that {@link Glob} generates is supported. The numeric
+ * range groups {@code (\d+)} are compiled into sub-automata accepting exactly the decimal numbers without leading
+ * zeros that lie within the given range. Use {@link #compile(String, List)} to create new instances.
+ * <p>
+ * Instances of this class are immutable and can thus be accessed from concurrent threads safely.
+ *
+ * @since 1.2.1
+ */
+final class GlobAutomaton {
+
+    /**
+     * A fragment of a non-deterministic automaton with a single entry and a single exit {@link State}.
+     */
+    private static final class Fragment {
+        private final State end;
+        private final State start;
+
+        private Fragment(State start, State end) {
+            super();
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Parses a regular expression into a non-deterministic automaton.
+     */
+    private static final class Parser {
+        /** If {@code true}, the slash is removed from all sets so that no path separator can be matched */
+        private boolean excludeSlash;
+        private int length;
+        private int pos;
+        private List<int[]> ranges;
+        private int rangeIndex;
+        private String regex;
+        private final List<State> states = new ArrayList<>();
+
+        private Fragment anyDigits(int count) {
+            final State start = newState();
+            State end = start;
+            for (int i = 0; i < count; i++) {
+                final Fragment digit = set(DIGITS);
+                end.epsilons.add(digit.start);
+                end = digit.end;
+            }
+            return new Fragment(start, end);
+        }
+
+        private Fragment concat(Fragment... fragments) {
+            for (int i = 1; i < fragments.length; i++) {
+                fragments[i - 1].end.epsilons.add(fragments[i].start);
+            }
+            return new Fragment(fragments[0].start, fragments[fragments.length - 1].end);
+        }
+
+        private Fragment digitRange(char lo, char hi) {
+            return set(new int[] { lo, hi });
+        }
+
+        private void expect(char c) throws UnsupportedRegexException {
+            if (pos >= length || regex.charAt(pos) != c) {
+                throw new UnsupportedRegexException();
+            }
+            pos++;
+        }
+
+        private State newState() {
+            final State result = new State(states.size());
+            states.add(result);
+            return result;
+        }
+
+        /**
+         * @param lo the lower bound of the range
+         * @param hi the upper bound of the range
+         * @return a {@link Fragment} accepting the decimal numbers without leading zeros in the given range; note that
+         *         the regular expression engine rejects {@code 0} too and so do we
+         */
+        private Fragment numericRange(int lo, int hi) {
+            final long from = Math.max(lo, 1);
+            final Fragment result = new Fragment(newState(), newState());
+            if (from > hi) {
+                /* Nothing can match */
+                return result;
+            }
+            final String fromString = Long.toString(from);
+            final String toString = Integer.toString(hi);
+            long lower = from;
+            for (int digits = fromString.length(); digits <= toString.length(); digits++) {
+                final long upper = Math.min(hi, pow10(digits) - 1);
+                final Fragment alternative = sameLengthRange(Long.toString(lower), Long.toString(upper));
+                result.start.epsilons.add(alternative.start);
+                alternative.end.epsilons.add(result.end);
+                lower = upper + 1;
+            }
+            return result;
+        }
+
+        private Fragment parseAlternation() throws UnsupportedRegexException {
+            final Fragment first = parseConcatenation();
+            if (pos >= length || regex.charAt(pos) != '|') {
+                return first;
+            }
+            final Fragment result = new Fragment(newState(), newState());
+            result.start.epsilons.add(first.start);
+            first.end.epsilons.add(result.end);
+            while (pos < length && regex.charAt(pos) == '|') {
+                pos++;
+                final Fragment next = parseConcatenation();
+                result.start.epsilons.add(next.start);
+                next.end.epsilons.add(result.end);
+            }
+            return result;
+        }
+
+        private Fragment parseAtom() throws UnsupportedRegexException {
+            final char c = regex.charAt(pos);
+            switch (c) {
+                case '(':
+                    if (regex.startsWith("(?:", pos)) {
+                        pos += 3;
+                        final Fragment result = parseAlternation();
+                        expect(')');
+                        return result;
+                    } else if (regex.startsWith("(\\d+)", pos) && rangeIndex < ranges.size()) {
+                        pos += 5;
+                        final int[] range = ranges.get(rangeIndex++);
+                        return numericRange(range[0], range[1]);
+                    }
+                    throw new UnsupportedRegexException();
+                case '[':
+                    pos++;
+                    return set(parseClass());
+                case '.':
+                    pos++;
+                    return set(ANY_BUT_LINE_TERMINATORS);
+                case '\\':
+                    pos++;
+                    return set(parseEscape());
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                case '^':
+                case '$':
+                    throw new UnsupportedRegexException();
+                default:
+                    final int cp = regex.codePointAt(pos);
+                    pos += Character.charCount(cp);
+                    return set(new int[] { cp, cp });
+            }
+        }
+
+        /**
+         * Parses a character class; {@link #pos} is expected to point right behind the opening {@code [}.
+         *
+         * @return the sorted code point intervals
+         * @throws UnsupportedRegexException on nested classes, intersections and similar
+         */
+        private int[] parseClass() throws UnsupportedRegexException {
+            boolean negate = false;
+            if (pos < length && regex.charAt(pos) == '^') {
+                negate = true;
+                pos++;
+            }
+            final List<int[]> intervals = new ArrayList<>();
+            boolean first = true;
+            while (true) {
+                if (pos >= length) {
+                    throw new UnsupportedRegexException();
+                }
+                final int c = regex.codePointAt(pos);
+                if (c == ']') {
+                    if (first) {
+                        throw new UnsupportedRegexException();
+                    }
+                    pos++;
+                    break;
+                } else if (c == '[' || (c == '&' && regex.startsWith("&&", pos))) {
+                    throw new UnsupportedRegexException();
+                }
+                final int lo;
+                if (c == '\\') {
+                    pos++;
+                    final int[] escaped = parseEscape();
+                    if (escaped[0] != escaped[1]) {
+                        intervals.add(escaped);
+                        first = false;
+                        continue;
+                    }
+                    lo = escaped[0];
+                } else {
+                    pos += Character.charCount(c);
+                    lo = c;
+                }
+                if (pos + 1 < length && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']') {
+                    pos++;
+                    final int c2 = regex.codePointAt(pos);
+                    final int hi;
+                    if (c2 == '\\') {
+                        pos++;
+                        final int[] escaped = parseEscape();
+                        if (escaped[0] != escaped[1]) {
+                            throw new UnsupportedRegexException();
+                        }
+                        hi = escaped[0];
+                    } else if (c2 == '[') {
+                        throw new UnsupportedRegexException();
+                    } else {
+                        pos += Character.charCount(c2);
+                        hi = c2;
+                    }
+                    if (hi < lo) {
+                        throw new UnsupportedRegexException();
+                    }
+                    intervals.add(new int[] { lo, hi });
+                } else {
+                    intervals.add(new int[] { lo, lo });
+                }
+                first = false;
+            }
+            final int[] result = normalize(intervals);
+            return negate ? complement(result) : result;
+        }
+
+        private Fragment parseConcatenation() throws UnsupportedRegexException {
+            final State start = newState();
+            State end = start;
+            while (pos < length) {
+                final char c = regex.charAt(pos);
+                if (c == '|' || c == ')') {
+                    break;
+                }
+                Fragment atom = parseAtom();
+                if (pos < length) {
+                    switch (regex.charAt(pos)) {
+                        case '*':
+                            pos++;
+                            atom = star(atom);
+                            break;
+                        case '+':
+                        case '?':
+                        case '{':
+                            throw new UnsupportedRegexException();
+                        default:
+                            break;
+                    }
+                }
+                end.epsilons.add(atom.start);
+                end = atom.end;
+            }
+            return new Fragment(start, end);
+        }
+
+        /**
+         * Parses an escape sequence; {@link #pos} is expected to point right behind the backslash.
+         *
+         * @return the code point interval denoted by the escape sequence
+         * @throws UnsupportedRegexException on escape sequences other than {@code \n}, {@code \d} and the escaped
+         *         non-alphanumeric characters
+         */
+        private int[] parseEscape() throws UnsupportedRegexException {
+            if (pos >= length) {
+                throw new UnsupportedRegexException();
+            }
+            final int c = regex.codePointAt(pos);
+            pos += Character.charCount(c);
+            if (c == 'n') {
+                return new int[] { '\n', '\n' };
+            } else if (c == 'd') {
+                return DIGITS;
+            } else if (Character.isLetterOrDigit(c)) {
+                throw new UnsupportedRegexException();
+            }
+            return new int[] { c, c };
+        }
+
+        /**
+         * @param regex the regular expression to parse
+         * @param ranges the numeric ranges of the {@code (\d+)} groups in {@code regex}
+         * @param excludeSlash if {@code true}, the resulting {@link Fragment} will never match a slash
+         * @return a new {@link Fragment} whose states are added to {@link #states}
+         * @throws UnsupportedRegexException if {@code regex} contains unsupported constructs
+         */
+        private Fragment parse(String regex, List<int[]> ranges, boolean excludeSlash)
+                throws UnsupportedRegexException {
+            this.regex = regex;
+            this.length = regex.length();
+            this.pos = 0;
+            this.ranges = ranges;
+            this.rangeIndex = 0;
+            this.excludeSlash = excludeSlash;
+            final Fragment result = parseAlternation();
+            if (pos != length || rangeIndex != ranges.size()) {
+                throw new UnsupportedRegexException();
+            }
+            return result;
+        }
+
+        /**
+         * @param lo the lower bound, having the same number of digits as {@code hi}
+         * @param hi the upper bound
+         * @return a {@link Fragment} accepting the decimal strings of the given length in the given range
+         */
+        private Fragment sameLengthRange(String lo, String hi) {
+            final int len = lo.length();
+            final char lo0 = lo.charAt(0);
+            final char hi0 = hi.charAt(0);
+            if (len == 1) {
+                return digitRange(lo0, hi0);
+            }
+            final String loRest = lo.substring(1);
+            final String hiRest = hi.substring(1);
+            if (lo0 == hi0) {
+                return concat(digitRange(lo0, lo0), sameLengthRange(loRest, hiRest));
+            }
+            if (isAll(loRest, '0') && isAll(hiRest, '9')) {
+                return concat(digitRange(lo0, hi0), anyDigits(len - 1));
+            }
+            final Fragment result = new Fragment(newState(), newState());
+            final List<Fragment> alternatives = new ArrayList<>(3);
+            alternatives.add(concat(digitRange(lo0, lo0), sameLengthRange(loRest, repeat('9', len - 1))));
+            if (lo0 + 1 <= hi0 - 1) {
+                alternatives.add(concat(digitRange((char) (lo0 + 1), (char) (hi0 - 1)), anyDigits(len - 1)));
+            }
+            alternatives.add(concat(digitRange(hi0, hi0), sameLengthRange(repeat('0', len - 1), hiRest)));
+            for (Fragment alternative : alternatives) {
+                result.start.epsilons.add(alternative.start);
+                alternative.end.epsilons.add(result.end);
+            }
+            return result;
+        }
+
+        private Fragment set(int[] intervals) {
+            final State start = newState();
+            final State end = newState();
+            start.set = excludeSlash ? minus(intervals, '/') : intervals;
+            start.next = end;
+            return new Fragment(start, end);
+        }
+
+        private Fragment star(Fragment fragment) {
+            final Fragment result = new Fragment(newState(), newState());
+            result.start.epsilons.add(fragment.start);
+            result.start.epsilons.add(result.end);
+            fragment.end.epsilons.add(fragment.start);
+            fragment.end.epsilons.add(result.end);
+            return result;
+        }
+    }
+
+    /**
+     * A state of a non-deterministic automaton.
+     */
+    private static final class State {
+        private final List<State> epsilons = new ArrayList<>(2);
+        private final int id;
+        private State next;
+        /** The sorted code point intervals {@code [lo0, hi0, lo1, hi1, ...]} leading to {@link #next} or null */
+        private int[] set;
+
+        private State(int id) {
+            super();
+            this.id = id;
+        }
+    }
+
+    /**
+     * Thrown when the regular expression contains a construct not supported by {@link GlobAutomaton}.
+     */
+    private static final class UnsupportedRegexException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private UnsupportedRegexException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** What {@code .} matches in a {@link java.util.regex.Pattern} compiled without any flags */
+    private static final int[] ANY_BUT_LINE_TERMINATORS = complement(normalize(Arrays.asList( //
+            new int[] { '\n', '\n' }, //
+            new int[] { '\r', '\r' }, //
+            new int[] { '\u0085', '\u0085' }, //
+            new int[] { '\u2028', '\u2029' })));
+
+    private static final int[] ANY = new int[] { 0, Character.MAX_CODE_POINT };
+
+    private static final int[] DIGITS = new int[] { '0', '9' };
+
+    /** The upper bound of the number of the deterministic states above which {@link #compile(String, List)} gives up */
+    static final int MAX_STATES = 2048;
+
+    private static final int NO_STATE = -1;
+
+    private static final int[] SLASH = new int[] { '/', '/' };
+
+    /**
+     * @param regex the regular expression as produced by {@link Glob#convertGlobToRegEx(String, List, StringBuilder)}
+     * @param ranges the numeric ranges as produced by {@link Glob#convertGlobToRegEx(String, List, StringBuilder)}
+     * @return a new {@link GlobAutomaton} or {@code null} if the given {@code regex} contains constructs not supported
+     *         by {@link GlobAutomaton} or if the resulting automaton would have more than {@link #MAX_STATES} states
+     */
+    static GlobAutomaton compile(String regex, List<int[]> ranges) {
+        final Parser parser = new Parser();
+        final Fragment root;
+        try {
+            root = parser.parse(regex, ranges, false);
+        } catch (UnsupportedRegexException e) {
+            return null;
+        }
+        return determinize(parser.states, root.start, new State[] { root.end }, MAX_STATES, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Compiles the given {@link Glob}s into a single {@link GlobAutomaton} that matches whole paths and reports which
+     * of the {@link Glob}s matched via {@link #matchAll(CharSequence, int, int)}. The {@link Glob}s matching only the
+     * last segment of a path are prefixed with an optional sequence of parent segments.
+     *
+     * @param globs the valid {@link Glob}s to compile
+     * @param maxTransitions the upper bound of the size of the transition table of the resulting automaton
+     * @return a new {@link GlobAutomaton} or {@code null} if some of the given {@link Glob}s contain constructs not
+     *         supported by {@link GlobAutomaton} or if the resulting automaton would be too big
+     */
+    static GlobAutomaton compileUnion(List<Glob> globs, int maxTransitions) {
+        final Parser parser = new Parser();
+        final State start = parser.newState();
+        final State[] ends = new State[globs.size()];
+        try {
+            for (int i = 0; i < ends.length; i++) {
+                final Glob glob = globs.get(i);
+                final Fragment fragment = parser.parse(glob.getRegex().pattern(), glob.getRanges(),
+                        glob.isMatchLastSegmentOnly());
+                if (glob.isMatchLastSegmentOnly()) {
+                    /* (?:.*\/)? with . matching anything */
+                    parser.excludeSlash = false;
+                    final Fragment parents = parser.concat(parser.star(parser.set(ANY)), parser.set(SLASH));
+                    final Fragment optionalParents = new Fragment(parser.newState(), parents.end);
+                    optionalParents.start.epsilons.add(parents.start);
+                    optionalParents.start.epsilons.add(parents.end);
+                    start.epsilons.add(parser.concat(optionalParents, fragment).start);
+                } else {
+                    start.epsilons.add(fragment.start);
+                }
+                ends[i] = fragment.end;
+            }
+        } catch (UnsupportedRegexException e) {
+            return null;
+        }
+        return determinize(parser.states, start, ends, MAX_STATES, maxTransitions);
+    }
+
+    /**
+     * The subset construction.
+     *
+     * @param states all states of the non-deterministic automaton
+     * @param start the start state
+     * @param ends the accepting states; the index of an accepting state in this array is reported by
+     *        {@link #matchAll(CharSequence, int, int)}
+     * @param maxStates the upper bound of the number of the deterministic states
+     * @param maxTransitions the upper bound of the size of the transition table; checked as the states are added so
+     *        that a too big automaton is given up early
+     * @return a new {@link GlobAutomaton} or {@code null} if there would be more than {@code maxStates} states or more
+     *         than {@code maxTransitions} transitions
+     */
+    private static GlobAutomaton determinize(List<State> states, State start, State[] ends, int maxStates,
+            int maxTransitions) {
+        final State[] nfa = states.toArray(new State[states.size()]);
+
+        /* Split the code points into classes that no transition can distinguish */
+        final TreeSet<Integer> boundaries = new TreeSet<>();
+        boundaries.add(0);
+        for (State state : nfa) {
+            if (state.set != null) {
+                for (int i = 0; i < state.set.length; i += 2) {
+                    boundaries.add(state.set[i]);
+                    if (state.set[i + 1] < Character.MAX_CODE_POINT) {
+                        boundaries.add(state.set[i + 1] + 1);
+                    }
+                }
+            }
+        }
+        final int[] classStarts = new int[boundaries.size()];
+        int c = 0;
+        for (Integer boundary : boundaries) {
+            classStarts[c++] = boundary;
+        }
+        final int classCount = classStarts.length;
+        final BitSet[] stateClasses = new BitSet[nfa.length];
+        for (State state : nfa) {
+            if (state.set != null) {
+                final BitSet classes = new BitSet(classCount);
+                for (int k = 0; k < classCount; k++) {
+                    if (contains(state.set, classStarts[k])) {
+                        classes.set(k);
+                    }
+                }
+                stateClasses[state.id] = classes;
+            }
+        }
+
+        /* The subset construction */
+        final Map<BitSet, Integer> ids = new HashMap<>();
+        final List<BitSet> dfaStates = new ArrayList<>();
+        final int[][] closures = new int[nfa.length][];
+        final BitSet startSet = new BitSet(nfa.length);
+        for (int s : closure(start.id, nfa, closures)) {
+            startSet.set(s);
+        }
+        ids.put(startSet, 0);
+        dfaStates.add(startSet);
+        int[] transitions = new int[classCount * 16];
+        for (int d = 0; d < dfaStates.size(); d++) {
+            final BitSet current = dfaStates.get(d);
+            if ((d + 1) * classCount > transitions.length) {
+                transitions = Arrays.copyOf(transitions, transitions.length * 2);
+            }
+            /* Collect the targets per class visiting each transition of the current NFA states just once */
+            final BitSet[] targets = new BitSet[classCount];
+            for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+                final BitSet classes = stateClasses[s];
+                if (classes != null) {
+                    final int[] next = closure(nfa[s].next.id, nfa, closures);
+                    for (int k = classes.nextSetBit(0); k >= 0; k = classes.nextSetBit(k + 1)) {
+                        BitSet target = targets[k];
+                        if (target == null) {
+                            target = new BitSet(nfa.length);
+                            targets[k] = target;
+                        }
+                        for (int n : next) {
+                            target.set(n);
+                        }
+                    }
+                }
+            }
+            for (int k = 0; k < classCount; k++) {
+                final BitSet target = targets[k];
+                if (target == null) {
+                    transitions[d * classCount + k] = NO_STATE;
+                } else {
+                    Integer id = ids.get(target);
+                    if (id == null) {
+                        if (dfaStates.size() >= maxStates
+                                || (long) (dfaStates.size() + 1) * classCount > maxTransitions) {
+                            return null;
+                        }
+                        id = dfaStates.size();
+                        ids.put(target, id);
+                        dfaStates.add(target);
+                    }
+                    transitions[d * classCount + k] = id;
+                }
+            }
+        }
+        final int[][] accepts = new int[dfaStates.size()][];
+        final int[] accepted = new int[ends.length];
+        for (int d = 0; d < accepts.length; d++) {
+            final BitSet dfaState = dfaStates.get(d);
+            int count = 0;
+            for (int i = 0; i < ends.length; i++) {
+                if (dfaState.get(ends[i].id)) {
+                    accepted[count++] = i;
+                }
+            }
+            if (count > 0) {
+                accepts[d] = Arrays.copyOf(accepted, count);
+            }
+        }
+        final int[] asciiClasses = new int[128];
+        for (int cp = 0; cp < asciiClasses.length; cp++) {
+            asciiClasses[cp] = classOf(classStarts, cp);
+        }
+        return new GlobAutomaton(accepts, asciiClasses, classStarts,
+                Arrays.copyOf(transitions, dfaStates.size() * classCount));
+    }
+
+    private static int classOf(int[] classStarts, int codePoint) {
+        final int i = Arrays.binarySearch(classStarts, codePoint);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * @param state the NFA state to compute the epsilon closure for
+     * @param nfa all NFA states
+     * @param closures the closures computed so far by NFA state
+     * @return the ids of the NFA states reachable from the given {@code state} via epsilon transitions, including the
+     *         {@code state} itself; the caller must not modify the returned array
+     */
+    private static int[] closure(int state, State[] nfa, int[][] closures) {
+        int[] result = closures[state];
+        if (result == null) {
+            final BitSet visited = new BitSet(nfa.length);
+            visited.set(state);
+            final int[] stack = new int[nfa.length];
+            int top = 0;
+            stack[top++] = state;
+            int count = 0;
+            final int[] reached = new int[nfa.length];
+            while (top > 0) {
+                final int current = stack[--top];
+                reached[count++] = current;
+                for (State next : nfa[current].epsilons) {
+                    if (!visited.get(next.id)) {
+                        visited.set(next.id);
+                        stack[top++] = next.id;
+                    }
+                }
+            }
+            result = Arrays.copyOf(reached, count);
+            closures[state] = result;
+        }
+        return result;
+    }
+
+    private static int[] complement(int[] intervals) {
+        final List<int[]> result = new ArrayList<>(intervals.length / 2 + 1);
+        int lo = 0;
+        for (int i = 0; i < intervals.length; i += 2) {
+            if (intervals[i] > lo) {
+                result.add(new int[] { lo, intervals[i] - 1 });
+            }
+            lo = intervals[i + 1] + 1;
+        }
+        if (lo <= Character.MAX_CODE_POINT) {
+            result.add(new int[] { lo, Character.MAX_CODE_POINT });
+        }
+        return normalize(result);
+    }
+
+    private static boolean contains(int[] intervals, int codePoint) {
+        for (int i = 0; i < intervals.length; i += 2) {
+            if (codePoint >= intervals[i] && codePoint <= intervals[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param intervals sorted code point intervals
+     * @param codePoint the code point to remove
+     * @return the given {@code intervals} without the given {@code codePoint}
+     */
+    private static int[] minus(int[] intervals, int codePoint) {
+        if (!contains(intervals, codePoint)) {
+            return intervals;
+        }
+        final List<int[]> result = new ArrayList<>(intervals.length / 2 + 1);
+        for (int i = 0; i < intervals.length; i += 2) {
+            final int lo = intervals[i];
+            final int hi = intervals[i + 1];
+            if (codePoint < lo || codePoint > hi) {
+                result.add(new int[] { lo, hi });
+            } else {
+                if (lo < codePoint) {
+                    result.add(new int[] { lo, codePoint - 1 });
+                }
+                if (codePoint < hi) {
+                    result.add(new int[] { codePoint + 1, hi });
+                }
+            }
+        }
+        return normalize(result);
+    }
+
+    private static boolean isAll(String digits, char c) {
+        for (int i = 0; i < digits.length(); i++) {
+            if (digits.charAt(i) != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param intervals the {@code [lo, hi]} pairs to sort and merge
+     * @return the sorted and merged intervals in the {@code [lo0, hi0, lo1, hi1, ...]} form
+     */
+    private static int[] normalize(List<int[]> intervals) {
+        final int[][] sorted = intervals.toArray(new int[intervals.size()][]);
+        Arrays.sort(sorted, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return Integer.compare(a[0], b[0]);
+            }
+        });
+        final int[] result = new int[sorted.length * 2];
+        int len = 0;
+        for (int[] interval : sorted) {
+            if (len > 0 && interval[0] <= result[len - 1] + 1) {
+                result[len - 1] = Math.max(result[len - 1], interval[1]);
+            } else {
+                result[len++] = interval[0];
+                result[len++] = interval[1];
+            }
+        }
+        return Arrays.copyOf(result, len);
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    private static String repeat(char c, int count) {
+        final char[] result = new char[count];
+        Arrays.fill(result, c);
+        return new String(result);
+    }
+
+    /** The indexes of the patterns accepted in the given deterministic state or {@code null} */
+    private final int[][] accepts;
+    /** The code point classes of the ASCII characters */
+    private final int[] asciiClasses;
+    /** The first code point of each code point class */
+    private final int[] classStarts;
+    /** The next state by {@code state * classStarts.length + codePointClass} or {@link #NO_STATE} */
+    private final int[] transitions;
+
+    private GlobAutomaton(int[][] accepts, int[] asciiClasses, int[] classStarts, int[] transitions) {
+        super();
+        this.accepts = accepts;
+        this.asciiClasses = asciiClasses;
+        this.classStarts = classStarts;
+        this.transitions = transitions;
+    }
+
+    /**
+     * @param input the {@link CharSequence} to match
+     * @param start the index of the first character to match
+     * @param end the index after the last character to match
+     * @return the indexes of the patterns accepting the given region of {@code input} or {@code null} if there are
+     *         none; the caller must not modify the returned array
+     */
+    int[] matchAll(CharSequence input, int start, int end) {
+        final int state = run(input, start, end);
+        return state == NO_STATE ? null : accepts[state];
+    }
+
+    /**
+     * @param input the characters to match
+     * @param start the index of the first character to match
+     * @param end the index after the last character to match
+     * @return {@code true} if the given region of {@code input} is accepted by this {@link GlobAutomaton};
+     *         {@code false} otherwise
+     */
+    boolean matches(char[] input, int start, int end) {
+        final int classCount = classStarts.length;
+        int state = 0;
+        int i = start;
+        while (i < end) {
+            final char c = input[i++];
+            final int codePointClass;
+            if (c < 128) {
+                codePointClass = asciiClasses[c];
+            } else if (Character.isHighSurrogate(c) && i < end && Character.isLowSurrogate(input[i])) {
+                codePointClass = classOf(classStarts, Character.toCodePoint(c, input[i++]));
+            } else {
+                codePointClass = classOf(classStarts, c);
+            }
+            state = transitions[state * classCount + codePointClass];
+            if (state == NO_STATE) {
+                return false;
+            }
+        }
+        return accepts[state] != null;
+    }
+
+    /**
+     * @param input the {@link CharSequence} to match
+     * @param start the index of the first character to match
+     * @param end the index after the last character to match
+     * @return {@code true} if the given region of {@code input} is accepted by this {@link GlobAutomaton};
+     *         {@code false} otherwise
+     */
+    boolean matches(CharSequence input, int start, int end) {
+        final int state = run(input, start, end);
+        return state != NO_STATE && accepts[state] != null;
+    }
+
+    /**
+     * @return the deterministic state reached after consuming the given region of {@code input} or {@link #NO_STATE}
+     */
+    private int run(CharSequence input, int start, int end) {
+        final int classCount = classStarts.length;
+        int state = 0;
+        int i = start;
+        while (i < end) {
+            final char c = input.charAt(i++);
+            final int codePointClass;
+            if (c < 128) {
+                codePointClass = asciiClasses[c];
+            } else if (Character.isHighSurrogate(c) && i < end && Character.isLowSurrogate(input.charAt(i))) {
+                codePointClass = classOf(classStarts, Character.toCodePoint(c, input.charAt(i++)));
+            } else {
+                codePointClass = classOf(classStarts, c);
+            }
+            state = transitions[state * classCount + codePointClass];
+            if (state == NO_STATE) {
+                return NO_STATE;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Writes this {@link GlobAutomaton} to the given {@link DataOutput} so that it can be read back by
+     * {@link #read(ByteBuffer)}.
+     *
+     * @param out the {@link DataOutput} to write to
+     * @throws IOException on I/O problems
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(accepts.length);
+        for (int[] accept : accepts) {
+            EditorConfigSnapshot.writeInts(out, accept);
+        }
+        EditorConfigSnapshot.writeInts(out, asciiClasses);
+        EditorConfigSnapshot.writeInts(out, classStarts);
+        EditorConfigSnapshot.writeInts(out, transitions);
+    }
+
+    /**
+     * Reads a {@link GlobAutomaton} written by {@link #write(DataOutput)} and checks that all its state, code point
+     * class and pattern indexes are in range, so that a corrupted one cannot fail later in the matching methods.
+     *
+     * @param in the {@link ByteBuffer} to read from; its position is advanced past the read {@link GlobAutomaton}
+     * @param patternCount the number of the patterns the {@link GlobAutomaton} was compiled from
+     * @return a {@link GlobAutomaton} written by {@link #write(DataOutput)}
+     * @throws IOException if the read data do not form a valid {@link GlobAutomaton}
+     */
+    static GlobAutomaton read(ByteBuffer in, int patternCount) throws IOException {
+        final int stateCount = EditorConfigSnapshot.readCount(in, 4);
+        if (stateCount == 0) {
+            throw corrupted("no states");
+        }
+        final int[][] accepts = new int[stateCount][];
+        for (int i = 0; i < stateCount; i++) {
+            final int[] accept = EditorConfigSnapshot.readInts(in);
+            if (accept != null) {
+                for (int pattern : accept) {
+                    if (pattern < 0 || pattern >= patternCount) {
+                        throw corrupted("pattern index out of range");
+                    }
+                }
+            }
+            accepts[i] = accept;
+        }
+        final int[] asciiClasses = EditorConfigSnapshot.readInts(in);
+        final int[] classStarts = EditorConfigSnapshot.readInts(in);
+        final int[] transitions = EditorConfigSnapshot.readInts(in);
+        if (classStarts == null || classStarts.length == 0 || classStarts[0] != 0) {
+            throw corrupted("invalid code point classes");
+        }
+        for (int i = 1; i < classStarts.length; i++) {
+            if (classStarts[i] <= classStarts[i - 1]) {
+                throw corrupted("invalid code point classes");
+            }
+        }
+        final int classCount = classStarts.length;
+        if (asciiClasses == null || asciiClasses.length != 128) {
+            throw corrupted("invalid ASCII classes");
+        }
+        for (int asciiClass : asciiClasses) {
+            if (asciiClass < 0 || asciiClass >= classCount) {
+                throw corrupted("invalid ASCII classes");
+            }
+        }
+        if (transitions == null || transitions.length != stateCount * classCount) {
+            throw corrupted("invalid transition table size");
+        }
+        for (int state : transitions) {
+            if (state != NO_STATE && (state < 0 || state >= stateCount)) {
+                throw corrupted("state index out of range");
+            }
+        }
+        return new GlobAutomaton(accepts, asciiClasses, classStarts, transitions);
+    }
+
+    private static IOException corrupted(String reason) {
+        return new IOException("Corrupted EditorConfig snapshot: " + reason + " in a glob automaton");
+    }
+
+    /**
+     * @return the number of the deterministic states of this {@link GlobAutomaton}
+     */
+    int stateCount() {
+        return accepts.length;
+    }
+
+}
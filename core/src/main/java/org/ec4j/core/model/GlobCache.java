@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache of compiled {@link Glob}s keyed by their source strings. Compiling a {@link Glob} is costly, whatever
+ * {@link Glob.Engine} it uses; with this cache, a glob occurring in many {@code .editorconfig} files is compiled only
+ * once as long as it stays among the most recently used ones.
+ * <p>
+ * The {@link Glob}s are created by a pluggable {@link Compiler}, which makes this class the single place where
+ * alternative {@link Glob} representations can be plugged in.
+ * <p>
+ * The cache is split into segments locked independently; each segment evicts its least recently used entries once it
+ * exceeds its share of the maximum size. Two threads missing the same source at once may both compile it; only one of
+ * the resulting {@link Glob}s is cached and returned to both.
+ * <p>
+ * Instances of this class can be accessed from concurrent threads safely.
+ *
+ * @since 1.2.1
+ */
+public class GlobCache {
+
+    /**
+     * Creates {@link Glob}s out of their source strings.
+     */
+    public interface Compiler {
+
+        /**
+         * @param source the glob as it occurs in a section header
+         * @return a new {@link Glob}
+         */
+        Glob compile(String source);
+
+    }
+
+    /**
+     * A part of the cache locked independently from other {@link Segment}s; a {@link ReentrantLock} rather than a
+     * monitor so that a virtual thread waiting for it does not pin its carrier thread.
+     */
+    @SuppressWarnings("serial")
+    private static class Segment extends LinkedHashMap<String, Glob> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int maximumSize;
+
+        private Segment(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Glob> eldest) {
+            return size() > maximumSize;
+        }
+    }
+
+    /** The {@link Compiler} calling {@link Glob#Glob(String)} */
+    public static final Compiler DEFAULT_COMPILER = new Compiler() {
+        @Override
+        public Glob compile(String source) {
+            return new Glob(source);
+        }
+    };
+
+    /** The maximum size of {@link #global()} */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private static final GlobCache GLOBAL = new GlobCache(DEFAULT_MAXIMUM_SIZE, DEFAULT_COMPILER);
+
+    private static final int MAX_SEGMENTS = 8;
+
+    /**
+     * @return the {@link GlobCache} used by {@link Interner}s that were not given any other {@link GlobCache}
+     */
+    public static GlobCache global() {
+        return GLOBAL;
+    }
+
+    private final Compiler compiler;
+    private final Segment[] segments;
+
+    /**
+     * @param maximumSize the maximum number of cached {@link Glob}s; must be positive
+     * @param compiler the {@link Compiler} to create the {@link Glob}s with
+     */
+    public GlobCache(int maximumSize, Compiler compiler) {
+        super();
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive; found " + maximumSize);
+        }
+        this.compiler = compiler;
+        final int segmentCount = Math.min(MAX_SEGMENTS, maximumSize);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            /* Distribute the remainder so that the segment sizes sum up to maximumSize */
+            segments[i] = new Segment(maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Removes all entries from this {@link GlobCache}.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @param source the glob as it occurs in a section header
+     * @return the cached {@link Glob} for the given {@code source} or a new one created by the {@link Compiler} of this
+     *         {@link GlobCache}
+     */
+    public Glob get(String source) {
+        final int hash = source.hashCode();
+        final Segment segment = segments[((hash ^ (hash >>> 16)) & 0x7fffffff) % segments.length];
+        segment.lock.lock();
+        try {
+            final Glob cached = segment.get(source);
+            if (cached != null) {
+                return cached;
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        /* Compile outside of the lock */
+        final Glob glob = compiler.compile(source);
+        segment.lock.lock();
+        try {
+            final Glob cached = segment.get(source);
+            if (cached != null) {
+                return cached;
+            }
+            segment.put(source, glob);
+            return glob;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of cached {@link Glob}s
+     */
+    public int size() {
+        int result = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                result += segment.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,364 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.model;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.ec4j.core.model.PropertyType.PropertyValue;
+
+/**
+ * A canonicalizing cache of the immutable {@link Glob}s, {@link PropertyValue}s and {@link Property}s so that equal
+ * instances can be shared by all loaded {@link EditorConfig}s. The same {@code [*.java]} section header or
+ * {@code indent_style = space} pair occurring in many {@code .editorconfig} files then occupies the heap only once
+ * and the {@link Glob} is compiled only once.
+ * <p>
+ * The canonical instances are referenced weakly: once no {@link EditorConfig} uses them anymore, they are garbage
+ * collected and removed from this {@link Interner}.
+ * <p>
+ * Only {@link Property}s having no adapters should be interned, because the adapters (such as
+ * {@link org.ec4j.core.parser.Span}s) are specific to a single {@code .editorconfig} file.
+ * <p>
+ * Instances of this class can be accessed from concurrent threads safely.
+ *
+ * @since 1.2.1
+ */
+public class Interner {
+
+    /**
+     * A weak canonicalizing map from keys to values. The keys are held strongly by the entries and the entries are
+     * removed once their values get garbage collected; hence a key must not reference its value. The map is split into
+     * segments locked independently.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    static class WeakCanonicalMap<K, V> {
+
+        /**
+         * A hash table entry referencing its value weakly.
+         *
+         * @param <K> the key type
+         * @param <V> the value type
+         */
+        private static class Entry<K, V> extends WeakReference<V> {
+            private final int hash;
+            private final K key;
+            private Entry<K, V> next;
+
+            private Entry(K key, int hash, V value, ReferenceQueue<V> queue, Entry<K, V> next) {
+                super(value, queue);
+                this.key = key;
+                this.hash = hash;
+                this.next = next;
+            }
+        }
+
+        /**
+         * A part of the map locked independently from other {@link Segment}s; a {@link ReentrantLock} rather than a
+         * monitor so that a virtual thread waiting for it does not pin its carrier thread.
+         *
+         * @param <K> the key type
+         * @param <V> the value type
+         */
+        private static class Segment<K, V> {
+            private final ReentrantLock lock = new ReentrantLock();
+            private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+            private int size;
+            @SuppressWarnings("unchecked")
+            private Entry<K, V>[] table = new Entry[16];
+
+            private void expungeStaleEntries() {
+                Reference<? extends V> ref;
+                while ((ref = queue.poll()) != null) {
+                    @SuppressWarnings("unchecked")
+                    final Entry<K, V> stale = (Entry<K, V>) ref;
+                    final int i = stale.hash & (table.length - 1);
+                    Entry<K, V> prev = null;
+                    for (Entry<K, V> e = table[i]; e != null; prev = e, e = e.next) {
+                        if (e == stale) {
+                            if (prev == null) {
+                                table[i] = e.next;
+                            } else {
+                                prev.next = e.next;
+                            }
+                            size--;
+                            break;
+                        }
+                    }
+                }
+            }
+
+            private void resize() {
+                @SuppressWarnings("unchecked")
+                final Entry<K, V>[] newTable = new Entry[table.length * 2];
+                for (Entry<K, V> head : table) {
+                    Entry<K, V> e = head;
+                    while (e != null) {
+                        final Entry<K, V> next = e.next;
+                        final int i = e.hash & (newTable.length - 1);
+                        e.next = newTable[i];
+                        newTable[i] = e;
+                        e = next;
+                    }
+                }
+                table = newTable;
+            }
+        }
+
+        private static final int SEGMENT_COUNT = 16;
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private final Segment<K, V>[] segments;
+
+        @SuppressWarnings("unchecked")
+        WeakCanonicalMap() {
+            super();
+            segments = new Segment[SEGMENT_COUNT];
+            for (int i = 0; i < SEGMENT_COUNT; i++) {
+                segments[i] = new Segment<>();
+            }
+        }
+
+        /**
+         * @param key the key to look up
+         * @return the canonical value for the given {@code key} or {@code null} if there is none
+         */
+        V get(K key) {
+            final int hash = spread(key.hashCode());
+            final Segment<K, V> segment = segmentFor(hash);
+            segment.lock.lock();
+            try {
+                segment.expungeStaleEntries();
+                return find(segment, key, hash);
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+
+        private static <K, V> V find(Segment<K, V> segment, K key, int hash) {
+            for (Entry<K, V> e = segment.table[hash & (segment.table.length - 1)]; e != null; e = e.next) {
+                if (e.hash == hash && e.key.equals(key)) {
+                    final V value = e.get();
+                    if (value != null) {
+                        return value;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @param key the key to store the {@code value} under; must not reference the {@code value}
+         * @param value the value to store if there is no canonical value for the given {@code key} yet
+         * @return the canonical value for the given {@code key}: either the one stored before or the given
+         *         {@code value}
+         */
+        V putIfAbsent(K key, V value) {
+            final int hash = spread(key.hashCode());
+            final Segment<K, V> segment = segmentFor(hash);
+            segment.lock.lock();
+            try {
+                segment.expungeStaleEntries();
+                final V existing = find(segment, key, hash);
+                if (existing != null) {
+                    return existing;
+                }
+                final int i = hash & (segment.table.length - 1);
+                segment.table[i] = new Entry<>(key, hash, value, segment.queue, segment.table[i]);
+                if (++segment.size > segment.table.length * 3 / 4) {
+                    segment.resize();
+                }
+                return value;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+
+        private Segment<K, V> segmentFor(int hash) {
+            return segments[(hash >>> 28) & (SEGMENT_COUNT - 1)];
+        }
+
+        /**
+         * @return the number of entries including those whose values have been garbage collected but not expunged yet
+         */
+        int size() {
+            int result = 0;
+            for (Segment<K, V> segment : segments) {
+                segment.lock.lock();
+                try {
+                    segment.expungeStaleEntries();
+                    result += segment.size;
+                } finally {
+                    segment.lock.unlock();
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The key of a {@link Property}: its {@link PropertyType} compared by identity, its name and its canonical
+     * {@link PropertyValue} compared by identity.
+     */
+    private static class PropertyKey {
+        private final String name;
+        private final PropertyType<?> type;
+        private final PropertyValue<?> value;
+
+        private PropertyKey(Property property) {
+            super();
+            this.type = property.getType();
+            this.name = property.getName();
+            this.value = property.getValue();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            PropertyKey other = (PropertyKey) obj;
+            return type == other.type && value == other.value && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + System.identityHashCode(value);
+        }
+    }
+
+    /**
+     * The key of a {@link PropertyValue}: the {@link PropertyType} compared by identity, the source value and whether
+     * the value should be parsed lazily.
+     */
+    private static class ValueKey {
+        private final boolean lazy;
+        private final String source;
+        private final PropertyType<?> type;
+
+        private ValueKey(PropertyType<?> type, String source, boolean lazy) {
+            super();
+            this.type = type;
+            this.source = source;
+            this.lazy = lazy;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            ValueKey other = (ValueKey) obj;
+            return type == other.type && lazy == other.lazy && source.equals(other.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(type) + source.hashCode()) + (lazy ? 1 : 0);
+        }
+    }
+
+    private static final Interner GLOBAL = new Interner();
+
+    /**
+     * @return the {@link Interner} shared by all {@link org.ec4j.core.parser.EditorConfigModelHandler}s that were
+     *         not given any other {@link Interner}
+     */
+    public static Interner global() {
+        return GLOBAL;
+    }
+
+    /** Compiles the {@link Glob}s not found in {@link #globs} */
+    private final GlobCache globCache;
+    final WeakCanonicalMap<String, Glob> globs = new WeakCanonicalMap<>();
+    final WeakCanonicalMap<PropertyKey, Property> properties = new WeakCanonicalMap<>();
+    final WeakCanonicalMap<ValueKey, PropertyValue<?>> values = new WeakCanonicalMap<>();
+
+    /**
+     * Creates a new {@link Interner} compiling the {@link Glob}s via {@link GlobCache#global()}.
+     */
+    public Interner() {
+        this(GlobCache.global());
+    }
+
+    /**
+     * @param globCache the {@link GlobCache} to get the {@link Glob}s from that are not canonicalized by this
+     *        {@link Interner} yet
+     */
+    public Interner(GlobCache globCache) {
+        super();
+        this.globCache = globCache;
+    }
+
+    /**
+     * @param source the glob source as it occurs in a section header
+     * @return the canonical {@link Glob} for the given {@code source}; if there is no canonical one yet, the
+     *         {@link Glob} is taken from the {@link GlobCache} of this {@link Interner} which compiles it only if it
+     *         was not used recently
+     */
+    public Glob glob(String source) {
+        final Glob result = globs.get(source);
+        return result != null ? result : globs.putIfAbsent(source, globCache.get(source));
+    }
+
+    /**
+     * @param property the {@link Property} to intern; should have no adapters
+     * @return the canonical {@link Property} equal to the given one
+     */
+    public Property property(Property property) {
+        return properties.putIfAbsent(new PropertyKey(property), property);
+    }
+
+    /**
+     * @param type the {@link PropertyType} to parse the {@code source} with or {@code null} for untyped properties
+     * @param source the source value
+     * @param lazy if {@code true} the typed value is parsed on first access, see
+     *        {@link PropertyValue#lazy(String, PropertyType)}
+     * @return the canonical {@link PropertyValue} for the given {@code type} and {@code source}; created only if
+     *         there is no canonical one yet
+     */
+    @SuppressWarnings("unchecked")
+    public <T> PropertyValue<T> value(PropertyType<T> type, String source, boolean lazy) {
+        final ValueKey key = new ValueKey(type, source, lazy && type != null);
+        final PropertyValue<?> result = values.get(key);
+        if (result != null) {
+            return (PropertyValue<T>) result;
+        }
+        final PropertyValue<T> newValue;
+        if (type == null) {
+            newValue = (PropertyValue<T>) PropertyValue.valid(source, source);
+        } else if (key.lazy) {
+            newValue = PropertyValue.lazy(source, type);
+        } else {
+            newValue = type.parse(source);
+        }
+        return (PropertyValue<T>) values.putIfAbsent(key, newValue);
+    }
+
+}
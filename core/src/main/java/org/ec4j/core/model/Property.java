@@ -189,6 +189,13 @@ public class Property extends Adaptable.DefaultAdaptable {
         return type;
     }
 
+    /**
+     * @return the {@link PropertyValue} of this {@link Property}
+     */
+    PropertyValue<?> getValue() {
+        return value;
+    }
+
     /**
      * @param <T>
      *        the type of the value
@@ -199,10 +199,60 @@ public class PropertyType<T> {
     /**
      * The result of {@link Property} parsed parsing. The result may either be valid when it has {@link #parsed} or
      * invalid when it has no {@link #parsed}, but it has an {@link #errorMessage}.
+     * <p>
+     * A {@link PropertyValue} created via {@link #lazy(String, PropertyType)} parses its {@link #source} only when
+     * its parsed value, its error message or its validity is requested for the first time.
      *
      * @param <T> the type of the parsed parsed
      */
     public static class PropertyValue<T> {
+        /**
+         * A {@link PropertyValue} parsing its source on the first access to its parsed value or to its validity.
+         *
+         * @param <T> the type of the parsed parsed
+         */
+        private static final class LazyPropertyValue<T> extends PropertyValue<T> {
+            /**
+             * The eagerly parsed {@link PropertyValue} or {@code null} if the source has not been parsed yet. If two
+             * threads race, both parse and store equal results.
+             */
+            private volatile PropertyValue<T> result;
+
+            private final PropertyType<T> type;
+
+            LazyPropertyValue(String source, PropertyType<T> type) {
+                super(source, null, null);
+                this.type = type;
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public String getErrorMessage() {
+                return result().getErrorMessage();
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public T getParsed() {
+                return result().getParsed();
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public boolean isValid() {
+                return result().isValid();
+            }
+
+            private PropertyValue<T> result() {
+                PropertyValue<T> r = result;
+                if (r == null) {
+                    r = type.parse(getSource());
+                    result = r;
+                }
+                return r;
+            }
+        }
+
         /** A singleton with the special {@code unset} source value */
         @SuppressWarnings("rawtypes")
         private static final PropertyValue UNSET = new PropertyValue<>(unset, null, null);
@@ -216,6 +266,22 @@ public class PropertyType<T> {
             }
         }
 
+        /**
+         * @param source the string value to parse
+         * @param type the {@link PropertyType} to parse the {@code source} with
+         * @return a {@link PropertyValue} that will parse the given {@code source} using the given {@code type} on
+         *         the first access to its parsed value or to its validity
+         * @since 1.2.1
+         */
+        @SuppressWarnings("unchecked")
+        public static <T> PropertyValue<T> lazy(String source, PropertyType<T> type) {
+            if (unset.equalsIgnoreCase(source)) {
+                return UNSET;
+            } else {
+                return new LazyPropertyValue<T>(source, type);
+            }
+        }
+
         @SuppressWarnings("unchecked")
         public static <T> PropertyValue<T> valid(String source, T value) {
             if (unset.equalsIgnoreCase(source)) {
@@ -243,19 +309,22 @@ public class PropertyType<T> {
                 return true;
             if (obj == null)
                 return false;
-            if (getClass() != obj.getClass())
+            /* instanceof rather than getClass() so that a LazyPropertyValue can be equal to an eager one */
+            if (!(obj instanceof PropertyValue))
                 return false;
             @SuppressWarnings("rawtypes")
             PropertyValue other = (PropertyValue) obj;
+            final String errorMessage = getErrorMessage();
             if (errorMessage == null) {
-                if (other.errorMessage != null)
+                if (other.getErrorMessage() != null)
                     return false;
-            } else if (!errorMessage.equals(other.errorMessage))
+            } else if (!errorMessage.equals(other.getErrorMessage()))
                 return false;
+            final T parsed = getParsed();
             if (parsed == null) {
-                if (other.parsed != null)
+                if (other.getParsed() != null)
                     return false;
-            } else if (!parsed.equals(other.parsed))
+            } else if (!parsed.equals(other.getParsed()))
                 return false;
             if (source == null) {
                 if (other.source != null)
@@ -288,6 +357,8 @@ public class PropertyType<T> {
 
         @Override
         public int hashCode() {
+            final String errorMessage = getErrorMessage();
+            final T parsed = getParsed();
             final int prime = 31;
             int result = 1;
             result = prime * result + ((errorMessage == null) ? 0 : errorMessage.hashCode());
@@ -312,7 +383,8 @@ public class PropertyType<T> {
 
         @Override
         public String toString() {
-            return "PropertyValue [errorMessage=" + errorMessage + ", parsed=" + parsed + ", source=" + source + "]";
+            return "PropertyValue [errorMessage=" + getErrorMessage() + ", parsed=" + getParsed() + ", source=" + source
+                    + "]";
         }
 
     }
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.ec4j.core.model.PropertyType.IndentStyleValue;
+import org.ec4j.core.model.PropertyType.PropertyValue;
 
 /**
  * A section in an {@code .editorconfig} file. A section consists of a {@link Glob} and a collection of
@@ -73,7 +74,7 @@ public class Section extends Adaptable.DefaultAdaptable {
                     && indentSize == null && version.compareTo(Version._0_10_0) >= 0) {
                 final PropertyType<?> type = PropertyType.indent_size;
                 final String value = "tab";
-                indentSize = openProperty().type(type).value(type.parse(value));
+                indentSize = openProperty().type(type).value(parse(type, value));
                 this.property(indentSize);
             }
 
@@ -82,7 +83,7 @@ public class Section extends Adaptable.DefaultAdaptable {
             if (indentSize != null && !"tab".equals(indentSize.value.getSource()) && tabWidth == null) {
                 final PropertyType<?> type = PropertyType.tab_width;
                 final String value = indentSize.value.getSource();
-                tabWidth = openProperty().type(type).value(type.parse(value));
+                tabWidth = openProperty().type(type).value(parse(type, value));
                 this.property(tabWidth);
             }
 
@@ -90,12 +91,17 @@ public class Section extends Adaptable.DefaultAdaptable {
             if (indentSize != null && "tab".equals(indentSize.value.getSource()) && tabWidth != null) {
                 final PropertyType<?> type = PropertyType.indent_size;
                 final String value = tabWidth.value.getSource();
-                indentSize = openProperty().type(type).value(type.parse(value));
+                indentSize = openProperty().type(type).value(parse(type, value));
                 this.property(indentSize);
             }
             return this;
         }
 
+        private PropertyValue<?> parse(PropertyType<?> type, String value) {
+            final Interner interner = parentBuilder.interner;
+            return interner != null ? interner.value(type, value, false) : type.parse(value);
+        }
+
         /**
          * @return a new {@link Section}
          */
@@ -107,11 +113,18 @@ public class Section extends Adaptable.DefaultAdaptable {
              * objects should not be visible to the outside world before we return from the present method.
              */
             List<List<Object>> propAdapters = new ArrayList<>();
+            final Interner interner = parentBuilder != null ? parentBuilder.interner : null;
             for (Property.Builder propBuilder : properties.values()) {
+                final boolean shareable = interner != null && !parentAware
+                        && (propBuilder.adapters == null || propBuilder.adapters.isEmpty());
                 if (parentAware) {
                     propAdapters.add(propBuilder.adapters);
                 }
                 Property prop = propBuilder.build();
+                if (shareable) {
+                    /* A Property without adapters is immutable and can thus be shared with other Sections */
+                    prop = interner.property(prop);
+                }
                 useProps.put(prop.getName(), prop);
             }
             this.properties = null;
@@ -301,6 +314,19 @@ public class Section extends Adaptable.DefaultAdaptable {
         return glob == null ? true : glob.match(filePath);
     }
 
+    /**
+     * @param filePath a slash ({@code /}) separated file path relative to the directory of the {@code .editorconfig}
+     *        file this {@link Section} was defined in
+     * @return {@code true} if the given {@code filePath} matches the {@link Glob} of this {@link Section};
+     *         {@code false} otherwise
+     * @see Glob#match(CharSequence)
+     * @since 1.2.1
+     */
+    public boolean match(CharSequence filePath) {
+        /* null glob matches all */
+        return glob == null ? true : glob.match(filePath);
+    }
+
     @Override
     public String toString() {
         StringBuilder s = new StringBuilder();
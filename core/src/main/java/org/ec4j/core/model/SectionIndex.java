@@ -0,0 +1,425 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An index of the {@link Section}s of an {@link EditorConfig} that allows finding the matching {@link Section}s
+ * without evaluating the {@link Glob} of each of them.
+ * <p>
+ * Preferably, the {@link Glob}s using {@link Glob.Engine#AUTOMATON} are compiled into a single union
+ * {@link GlobAutomaton} that finds all matching {@link Section}s in a single pass over the path.
+ * <p>
+ * Any other {@link Glob}s, i.e. all of them with the default {@link Glob.Engine#REGEX} or should the union
+ * {@link GlobAutomaton} get too big, are classified into the following buckets:
+ * <ul>
+ * <li>Exact name, such as {@code [Makefile]}: looked up by the last segment of the path</li>
+ * <li>Extension, such as {@code [*.java]} or {@code [*.{js,ts}]}: looked up by the extension of the last segment of
+ * the path</li>
+ * <li>Literal prefix, such as {@code [src/main/**.java]}: looked up by the first segment of the path and then matched
+ * using {@link Glob#match(CharSequence, int, int)}</li>
+ * <li>General: any other {@link Glob}s, matched using {@link Glob#match(CharSequence, int, int)}</li>
+ * </ul>
+ * The matching {@link Section}s are reported as indexes into {@link EditorConfig#getSections()}, so that the order of
+ * the {@link Section}s is preserved.
+ * <p>
+ * Instances of this class are immutable and can thus be accessed from concurrent threads safely.
+ *
+ * @since 1.2.1
+ */
+final class SectionIndex {
+
+    /**
+     * An immutable open addressing hash map from {@link String}s to {@code int[]}s that can be queried by a region of
+     * a {@link CharSequence} without creating any {@link String}.
+     */
+    static final class RegionMap {
+        private static final RegionMap EMPTY = new RegionMap(new LinkedHashMap<String, List<Integer>>());
+
+        private static int hash(CharSequence chars, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + chars.charAt(i);
+            }
+            /* Spread the bits like HashMap does */
+            return h ^ (h >>> 16);
+        }
+
+        private final String[] keys;
+        private final int mask;
+        private final int[][] values;
+
+        RegionMap(Map<String, List<Integer>> entries) {
+            super();
+            int capacity = 2;
+            while (capacity < entries.size() * 2) {
+                capacity <<= 1;
+            }
+            this.keys = new String[capacity];
+            this.values = new int[capacity][];
+            this.mask = capacity - 1;
+            for (Entry<String, List<Integer>> entry : entries.entrySet()) {
+                final String key = entry.getKey();
+                int i = hash(key, 0, key.length()) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = toArray(entry.getValue());
+            }
+        }
+
+        /**
+         * @param chars the {@link CharSequence} containing the key
+         * @param start the index of the first character of the key
+         * @param end the index after the last character of the key
+         * @return the value associated with the given key or {@code null}
+         */
+        int[] get(CharSequence chars, int start, int end) {
+            final int len = end - start;
+            int i = hash(chars, start, end) & mask;
+            String key;
+            while ((key = keys[i]) != null) {
+                if (key.length() == len && regionEquals(key, chars, start)) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        private static boolean regionEquals(String key, CharSequence chars, int start) {
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) != chars.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The upper bound of the number of {@link Glob}s compiled into {@link #union}; the time of the subset construction
+     * grows faster than the number of {@link Glob}s while the buckets of {@link #ofBuckets(List)} handle many simple
+     * {@link Glob}s well
+     */
+    static final int MAX_UNION_GLOBS = 256;
+
+    /** The upper bound of the transition table size of {@link #union} */
+    static final int MAX_UNION_TRANSITIONS = 1 << 16;
+
+    /** The characters having a special meaning in {@link Glob}s */
+    private static final String SPECIAL_CHARS = "*?[]{},/\\";
+
+    /**
+     * @param sections the {@link Section}s to index
+     * @return a new {@link SectionIndex}
+     */
+    static SectionIndex of(List<Section> sections) {
+        final SectionIndex result = ofUnion(sections);
+        return result != null ? result : ofBuckets(sections);
+    }
+
+    /**
+     * @param sections the {@link Section}s to index
+     * @return a new {@link SectionIndex} using a union {@link GlobAutomaton} for the {@link Glob}s using
+     *         {@link Glob.Engine#AUTOMATON} and the buckets for the rest, or {@code null} if there are no such
+     *         {@link Glob}s or if the union {@link GlobAutomaton} cannot be created
+     */
+    private static SectionIndex ofUnion(List<Section> sections) {
+        if (sections.size() > MAX_UNION_GLOBS) {
+            return null;
+        }
+        final List<Glob> unionGlobs = new ArrayList<>(sections.size());
+        final List<Integer> unionSections = new ArrayList<>(sections.size());
+        for (int i = 0; i < sections.size(); i++) {
+            final Glob glob = sections.get(i).getGlob();
+            if (glob != null && glob.getEngine() == Glob.Engine.AUTOMATON) {
+                unionGlobs.add(glob);
+                unionSections.add(i);
+            }
+        }
+        if (unionGlobs.isEmpty()) {
+            return null;
+        }
+        final GlobAutomaton union = GlobAutomaton.compileUnion(unionGlobs, MAX_UNION_TRANSITIONS);
+        if (union == null) {
+            return null;
+        }
+        return of(sections, union, toArray(unionSections));
+    }
+
+    /**
+     * @param sections the {@link Section}s to index
+     * @param union the union of the {@link Glob}s of {@code unionSections}
+     * @param unionSections the {@link Section} indexes by the pattern indexes of {@code union}
+     * @return a new {@link SectionIndex} using the given union {@link GlobAutomaton} and the buckets for the
+     *         {@link Section}s not in {@code unionSections}
+     */
+    static SectionIndex of(List<Section> sections, GlobAutomaton union, int[] unionSections) {
+        final BitSet inUnion = new BitSet(sections.size());
+        for (int index : unionSections) {
+            inUnion.set(index);
+        }
+        return ofBuckets(sections, union, unionSections, inUnion);
+    }
+
+    /**
+     * @param sections the {@link Section}s to index
+     * @return a new {@link SectionIndex} using the name, extension and first segment buckets
+     */
+    static SectionIndex ofBuckets(List<Section> sections) {
+        return ofBuckets(sections, null, null, new BitSet());
+    }
+
+    /**
+     * @param sections the {@link Section}s to index
+     * @param union the union of the {@link Glob}s of {@code unionSections} or {@code null}
+     * @param unionSections the {@link Section} indexes by the pattern indexes of {@code union} or {@code null}
+     * @param inUnion the indexes of the {@link Section}s matched by {@code union} that should not be bucketed
+     * @return a new {@link SectionIndex} using the given {@code union} and the name, extension and first segment
+     *         buckets for the other {@link Section}s
+     */
+    private static SectionIndex ofBuckets(List<Section> sections, GlobAutomaton union, int[] unionSections,
+            BitSet inUnion) {
+        final Map<String, List<Integer>> exactNames = new LinkedHashMap<>();
+        final Map<String, List<Integer>> extensions = new LinkedHashMap<>();
+        final Map<String, List<Integer>> firstSegments = new LinkedHashMap<>();
+        final List<Integer> general = new ArrayList<>();
+        for (int i = 0; i < sections.size(); i++) {
+            if (inUnion.get(i)) {
+                continue;
+            }
+            final Glob glob = sections.get(i).getGlob();
+            if (glob == null || !glob.isValid()) {
+                /* Glob.match() will take care */
+                general.add(i);
+                continue;
+            }
+            final String source = glob.getSource();
+            final int literalEnd = literalEnd(source, 0);
+            if (literalEnd == source.length() && source.indexOf('/') < 0) {
+                add(exactNames, source, i);
+            } else if (source.startsWith("*.") && literalEnd == 0) {
+                final List<String> exts = extensions(source);
+                if (exts != null) {
+                    for (String ext : exts) {
+                        add(extensions, ext, i);
+                    }
+                } else {
+                    general.add(i);
+                }
+            } else if (source.indexOf('/') >= 0 || source.contains("**")) {
+                /* The path level Globs ignore a leading slash */
+                final int start = source.startsWith("/") ? 1 : 0;
+                final int end = literalEnd(source, start);
+                final int slash = source.indexOf('/', start);
+                if (slash >= 0 && slash <= end && slash > start) {
+                    add(firstSegments, source.substring(start, slash), i);
+                } else if (end == source.length() && end > start) {
+                    /* A literal without any further slash */
+                    add(firstSegments, source.substring(start), i);
+                } else {
+                    general.add(i);
+                }
+            } else {
+                general.add(i);
+            }
+        }
+        return new SectionIndex(sections, union, unionSections, mapOf(exactNames), mapOf(extensions),
+                mapOf(firstSegments), toArray(general));
+    }
+
+    private static void add(Map<String, List<Integer>> map, String key, int index) {
+        List<Integer> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<>(1);
+            map.put(key, list);
+        }
+        list.add(index);
+    }
+
+    /**
+     * @param source the {@link Glob} source starting with {@code *.}
+     * @return the extensions if {@code source} is a {@code *.ext} or a {@code *.{ext1,ext2,...}} glob whose extensions
+     *         are literals without any dot; otherwise {@code null}
+     */
+    private static List<String> extensions(String source) {
+        final int start = 2;
+        if (literalEnd(source, start) == source.length()) {
+            final String ext = source.substring(start);
+            return ext.isEmpty() || ext.indexOf('.') >= 0 || ext.indexOf('/') >= 0 ? null : Arrays.asList(ext);
+        } else if (source.charAt(start) == '{' && source.endsWith("}")) {
+            /* Glob expands braces only if they contain a comma */
+            final String[] exts = source.substring(start + 1, source.length() - 1).split(",", -1);
+            if (exts.length < 2) {
+                return null;
+            }
+            for (String ext : exts) {
+                if (ext.isEmpty() || ext.indexOf('.') >= 0 || ext.indexOf('/') >= 0
+                        || literalEnd(ext, 0) != ext.length()) {
+                    return null;
+                }
+            }
+            return Arrays.asList(exts);
+        }
+        return null;
+    }
+
+    /**
+     * @param source the {@link Glob} source
+     * @param start the index to start at
+     * @return the index of the first special character or surrogate at or after {@code start} or the length of
+     *         {@code source}; a slash is not considered special here
+     */
+    private static int literalEnd(String source, int start) {
+        for (int i = start; i < source.length(); i++) {
+            final char c = source.charAt(i);
+            if ((c != '/' && SPECIAL_CHARS.indexOf(c) >= 0) || Character.isSurrogate(c)) {
+                /* Glob never matches escaped surrogate pairs, let it say so itself */
+                return i;
+            }
+        }
+        return source.length();
+    }
+
+    private static RegionMap mapOf(Map<String, List<Integer>> entries) {
+        return entries.isEmpty() ? RegionMap.EMPTY : new RegionMap(entries);
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        final int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    private final RegionMap exactNames;
+    private final RegionMap extensions;
+    private final RegionMap firstSegments;
+    private final int[] general;
+    private final List<Section> sections;
+    /** The union of the {@link Glob}s of {@link #unionSections} or {@code null} */
+    private final GlobAutomaton union;
+    /** The {@link Section} indexes by the pattern indexes of {@link #union} */
+    private final int[] unionSections;
+
+    private SectionIndex(List<Section> sections, GlobAutomaton union, int[] unionSections, RegionMap exactNames,
+            RegionMap extensions, RegionMap firstSegments, int[] general) {
+        super();
+        this.sections = sections;
+        this.union = union;
+        this.unionSections = unionSections;
+        this.exactNames = exactNames;
+        this.extensions = extensions;
+        this.firstSegments = firstSegments;
+        this.general = general;
+    }
+
+    /**
+     * @return the indexes of the {@link Section}s evaluated one by one
+     */
+    int[] getGeneral() {
+        return general;
+    }
+
+    /**
+     * @return the union of the {@link Glob}s of {@link #getUnionSections()} or {@code null} if this
+     *         {@link SectionIndex} uses only the name, extension and first segment buckets
+     */
+    GlobAutomaton getUnion() {
+        return union;
+    }
+
+    /**
+     * @return the {@link Section} indexes by the pattern indexes of {@link #getUnion()} or {@code null}
+     */
+    int[] getUnionSections() {
+        return unionSections;
+    }
+
+    /**
+     * Sets the bits of the {@link Section}s matching the given path in the given {@link BitSet}.
+     *
+     * @param filePath the slash ({@code /}) separated path relative to the directory of the {@link EditorConfig}
+     * @param matches the {@link BitSet} to set the bits in
+     * @param offset the bit to set for the {@link Section} with index {@code 0}
+     */
+    void match(CharSequence filePath, BitSet matches, int offset) {
+        final int end = filePath.length();
+        if (union != null) {
+            final int[] hits = union.matchAll(filePath, 0, end);
+            if (hits != null) {
+                for (int hit : hits) {
+                    matches.set(offset + unionSections[hit]);
+                }
+            }
+            if (exactNames == RegionMap.EMPTY && extensions == RegionMap.EMPTY && firstSegments == RegionMap.EMPTY) {
+                match(general, filePath, matches, offset);
+                return;
+            }
+        }
+        int lastSlash = -1;
+        int firstSlash = -1;
+        int lastDot = -1;
+        for (int i = end - 1; i >= 0; i--) {
+            final char c = filePath.charAt(i);
+            if (c == '/') {
+                if (lastSlash < 0) {
+                    lastSlash = i;
+                }
+                firstSlash = i;
+            } else if (c == '.' && lastDot < 0 && lastSlash < 0) {
+                lastDot = i;
+            }
+        }
+        set(exactNames.get(filePath, lastSlash + 1, end), matches, offset);
+        if (lastDot >= 0) {
+            set(extensions.get(filePath, lastDot + 1, end), matches, offset);
+        }
+        final int[] candidates = firstSegments.get(filePath, 0, firstSlash >= 0 ? firstSlash : end);
+        if (candidates != null) {
+            match(candidates, filePath, matches, offset);
+        }
+        match(general, filePath, matches, offset);
+    }
+
+    private void match(int[] indexes, CharSequence filePath, BitSet matches, int offset) {
+        for (int index : indexes) {
+            if (sections.get(index).match(filePath)) {
+                matches.set(offset + index);
+            }
+        }
+    }
+
+    private static void set(int[] indexes, BitSet matches, int offset) {
+        if (indexes != null) {
+            for (int index : indexes) {
+                matches.set(offset + index);
+            }
+        }
+    }
+
+}
@@ -45,7 +45,7 @@ public abstract class AbstractValidatingHandler implements EditorConfigHandler {
     /** {@inheritDoc} */
     @Override
     public void endGlob(ParseContext context, String globSource) {
-        final Glob glob = new Glob(globSource);
+        final Glob glob = createGlob(globSource);
         final PatternSyntaxException e = glob.getError();
         if (e != null) {
             final String msg = String.format("The glob '%s' is not valid: %s",
@@ -74,7 +74,7 @@ public abstract class AbstractValidatingHandler implements EditorConfigHandler {
     /** {@inheritDoc} */
     @Override
     public void endPropertyValue(ParseContext context, String value) {
-        final PropertyValue<?> propValue = type == null ? PropertyValue.valid(value, value) : type.parse(value);
+        final PropertyValue<?> propValue = createPropertyValue(type, value);
         if (!propValue.isValid()) {
             context.getErrorHandler().error(context,
                     new ErrorEvent(
@@ -89,6 +89,34 @@ public abstract class AbstractValidatingHandler implements EditorConfigHandler {
         this.propertyValueStart = null;
     }
 
+    /**
+     * Creates a new {@link Glob} out of the given {@code globSource}. Subclasses may override this to reuse the
+     * {@link Glob}s created before.
+     *
+     * @param globSource
+     *        the glob string as it occurs in the section header
+     * @return a {@link Glob} for the given {@code globSource}
+     * @since 1.2.1
+     */
+    protected Glob createGlob(String globSource) {
+        return new Glob(globSource);
+    }
+
+    /**
+     * Creates a {@link PropertyValue} out of the given {@code value}. Subclasses may override this to reuse the
+     * {@link PropertyValue}s created before.
+     *
+     * @param type
+     *        the {@link PropertyType} of the current property or {@code null} if the property has no type
+     * @param value
+     *        the property value as it occurs in the {@code .editorconfig} file
+     * @return a {@link PropertyValue} for the given {@code value}
+     * @since 1.2.1
+     */
+    protected PropertyValue<?> createPropertyValue(PropertyType<?> type, String value) {
+        return type == null ? PropertyValue.valid(value, value) : type.parse(value);
+    }
+
     /**
      * Handle the {@link Glob} created out of the glob string hit recently in the underlying {@code .editorconfig} file.
      * Note that this method gets called after any evetual errors related to the glob were sent to {@link ErrorHandler}.
@@ -19,6 +19,7 @@ package org.ec4j.core.parser;
 import org.ec4j.core.PropertyTypeRegistry;
 import org.ec4j.core.model.EditorConfig;
 import org.ec4j.core.model.Glob;
+import org.ec4j.core.model.Interner;
 import org.ec4j.core.model.Property;
 import org.ec4j.core.model.PropertyType;
 import org.ec4j.core.model.PropertyType.PropertyValue;
@@ -28,6 +29,17 @@ import org.ec4j.core.model.Version;
 /**
  * A {@link EditorConfigHandler} implementation that assemles {@link EditorConfig} instances out of the parse
  * notifications.
+ * <p>
+ * If {@link #lazyValues} is {@code true}, the property values having a {@link PropertyType} are not parsed during the
+ * loading. Instead, they are parsed on the first access via {@link Property#getValueAs()} and the like. Note that in
+ * this mode, the {@link ErrorHandler} is not notified about invalid property values, because the invalid values are
+ * not detected at load time. {@link Property#getValueAs()} throws an exception for them as usual.
+ * <p>
+ * Unless {@link #interner} is {@code null}, the {@link Glob}s, the {@link PropertyValue}s and the {@link Property}s
+ * having no adapters are shared with the {@link EditorConfig}s loaded before, so that e.g. an {@code [*.java]} section
+ * header occurring in many files is compiled only once. The constructors without any {@link Interner} parameter do
+ * not share anything; the {@link org.ec4j.core.EditorConfigLoader}s creating their own handlers pass
+ * {@link Interner#global()}.
  *
  * @author <a href="mailto:angelo.zerr@gmail.com">Angelo Zerr</a>
  * @author <a href="https://github.com/ppalaga">Peter Palaga</a>
@@ -38,10 +50,61 @@ public class EditorConfigModelHandler extends AbstractValidatingHandler {
     protected Property.Builder propertyBuilder;
     protected Section.Builder sectionBuilder;
     protected final Version version;
+    /** If {@code true} the typed property values are parsed on first access rather than at load time */
+    protected final boolean lazyValues;
+    /** The {@link Interner} to share the immutable model elements with other {@link EditorConfig}s; can be null */
+    protected final Interner interner;
 
     public EditorConfigModelHandler(PropertyTypeRegistry registry, Version version) {
+        this(registry, version, false);
+    }
+
+    /**
+     * @param registry the {@link PropertyTypeRegistry} to use
+     * @param version the {@link Version} of the EditorConfig specification to comply with
+     * @param lazyValues if {@code true} the property values having a {@link PropertyType} will be parsed on first
+     *        access rather than at load time
+     * @since 1.2.1
+     */
+    public EditorConfigModelHandler(PropertyTypeRegistry registry, Version version, boolean lazyValues) {
+        this(registry, version, lazyValues, null);
+    }
+
+    /**
+     * @param registry the {@link PropertyTypeRegistry} to use
+     * @param version the {@link Version} of the EditorConfig specification to comply with
+     * @param lazyValues if {@code true} the property values having a {@link PropertyType} will be parsed on first
+     *        access rather than at load time
+     * @param interner the {@link Interner} to share the immutable model elements with other {@link EditorConfig}s;
+     *        {@code null} disables the sharing
+     * @since 1.2.1
+     */
+    public EditorConfigModelHandler(PropertyTypeRegistry registry, Version version, boolean lazyValues,
+            Interner interner) {
         super(registry);
         this.version = version;
+        this.lazyValues = lazyValues;
+        this.interner = interner;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns the canonical {@link Glob} of {@link #interner} if {@link #interner} is not {@code null}.
+     */
+    @Override
+    protected Glob createGlob(String globSource) {
+        return interner != null ? interner.glob(globSource) : super.createGlob(globSource);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns the canonical {@link PropertyValue} of {@link #interner} if {@link #interner} is not {@code null}.
+     */
+    @Override
+    protected PropertyValue<?> createPropertyValue(PropertyType<?> type, String value) {
+        return interner != null ? interner.value(type, value, false) : super.createPropertyValue(type, value);
     }
 
     /** {@inheritDoc} */
@@ -73,6 +136,24 @@ public class EditorConfigModelHandler extends AbstractValidatingHandler {
         sectionBuilder = null;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If {@link #lazyValues} is {@code true} and the current property has a {@link PropertyType}, a lazy
+     * {@link PropertyValue} is created instead of parsing the {@code value} right away.
+     */
+    @Override
+    public void endPropertyValue(ParseContext context, String value) {
+        if (lazyValues && type != null) {
+            propertyValue(context,
+                    interner != null ? interner.value(type, value, true) : PropertyValue.lazy(value, type));
+            this.type = null;
+            this.propertyValueStart = null;
+        } else {
+            super.endPropertyValue(context, value);
+        }
+    }
+
     /**
      * @return the {@link EditorConfig} instance parsed out of the event stream
      */
@@ -100,7 +181,7 @@ public class EditorConfigModelHandler extends AbstractValidatingHandler {
     /** {@inheritDoc} */
     @Override
     public void startDocument(ParseContext context) {
-        editorConfigBuilder = EditorConfig.builder().version(version);
+        editorConfigBuilder = EditorConfig.builder().version(version).interner(interner);
     }
 
     /** {@inheritDoc} */
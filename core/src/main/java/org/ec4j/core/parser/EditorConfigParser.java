@@ -18,11 +18,21 @@ package org.ec4j.core.parser;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
 
 import org.ec4j.core.Resource;
 import org.ec4j.core.parser.ErrorEvent.ErrorType;
 
 /**
+ * A push parser of {@code .editorconfig} files. An {@link EditorConfigParser} is not thread-safe, but it can be reused
+ * for parsing several {@link Resource}s one after another.
+ * <p>
+ * If the {@link Resource} provides its content via {@link Resource#openUtf8Buffer()}, the parser scans the UTF-8
+ * encoded bytes directly and decodes only the captured globs, property names, property values and comments into
+ * {@link String}s. Otherwise, the content is read through {@link Resource#openReader()}.
+ *
  * @author <a href="mailto:angelo.zerr@gmail.com">Angelo Zerr</a>
  */
 public class EditorConfigParser implements ParseContext {
@@ -80,9 +90,24 @@ public class EditorConfigParser implements ParseContext {
     private final StringBuilder captureBuffer;
     private int captureStart;
     private boolean inSection = false;
+    /** The number of the last line passed to {@link #readLine()} */
+    private int currentLine;
 
     private Resource resource;
 
+    /** The content being parsed in the UTF-8 mode or {@code null} when reading from {@link #reader} */
+    private ByteBuffer bytes;
+    /** The position of the next byte to decode in {@link #bytes} */
+    private int bytePosition;
+    /** The position of the first byte of {@link #current} in {@link #bytes} */
+    private int currentBytePosition;
+    /** The position of the first captured byte in {@link #bytes} */
+    private int captureBytePosition;
+    /** The low surrogate to return by the next {@link #read()} in the UTF-8 mode or {@code -1} */
+    private int pendingLowSurrogate;
+    /** A reusable array for decoding the captured bytes from {@link ByteBuffer}s not backed by an array */
+    private byte[] decodeBuffer;
+
     /**
      * Use the {@link #builder()} or {@link #default_()} to create new instances.
      *
@@ -114,6 +139,102 @@ public class EditorConfigParser implements ParseContext {
      *         {@code ParseException}s for them
      */
     public void parse(Resource resource, EditorConfigHandler handler, ErrorHandler errorHandler) throws IOException {
+        final ByteBuffer utf8 = resource.openUtf8Buffer();
+        if (utf8 != null) {
+            parse(resource, utf8, handler, errorHandler);
+            return;
+        }
+        reset(resource, handler, errorHandler);
+        try (Reader reader = resource.openReader()) {
+            this.reader = reader;
+            parse();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Opens a new {@link EditorConfigPullParser} for reading the parse events out of the given {@code resource} one
+     * by one. This {@link EditorConfigParser} must not be used for anything else until the returned
+     * {@link EditorConfigPullParser} is closed.
+     *
+     * @param resource
+     *        the {@link Resource} to parse
+     * @param errorHandler
+     *        an {@link ErrorHandler} to notify on parse errors
+     * @return a new {@link EditorConfigPullParser} positioned before the
+     *         {@link EditorConfigPullParser.EventType#START_DOCUMENT} event
+     * @throws IOException
+     *         on I/O problems when opening the given {@link Resource}
+     * @since 1.2.1
+     */
+    public EditorConfigPullParser pull(Resource resource, ErrorHandler errorHandler) throws IOException {
+        final EditorConfigPullParser result = new EditorConfigPullParser(this);
+        final ByteBuffer utf8 = resource.openUtf8Buffer();
+        reset(resource, result.queue, errorHandler);
+        if (utf8 != null) {
+            this.bytes = utf8;
+            this.bytePosition = utf8.position();
+            this.currentBytePosition = bytePosition;
+        } else {
+            try {
+                this.reader = resource.openReader();
+            } catch (IOException e) {
+                release();
+                throw e;
+            }
+        }
+        handler.startDocument(this);
+        return result;
+    }
+
+    /**
+     * Releases the resources associated with the current parse.
+     *
+     * @throws IOException on I/O problems
+     */
+    void close() throws IOException {
+        final Reader r = this.reader;
+        release();
+        if (r != null) {
+            r.close();
+        }
+    }
+
+    /**
+     * Transforms the UTF-8 encoded bytes between the position and the limit of the given {@code utf8}
+     * {@link ByteBuffer} into a sequence of parse events which are sent to the given {@link EditorConfigHandler}. The
+     * position and the limit of the given {@link ByteBuffer} are not changed by this method.
+     *
+     * @param resource
+     *        the {@link Resource} the given {@code utf8} bytes were read from; used only for error reporting
+     * @param utf8
+     *        the UTF-8 encoded content to parse; can be a heap or a memory-mapped {@link ByteBuffer}
+     * @param handler
+     *        the handler to send the parse events to
+     * @param errorHandler
+     *        an {@link ErrorHandler} to notify on parse errors
+     * @throws IOException
+     *         if the given {@code utf8} bytes are not valid UTF-8
+     * @throws ParseException
+     *         only if the supplied {@link ErrorHandler} chooses to react on some {@link ErrorEvent} by throwing
+     *         {@code ParseException}s for them
+     * @since 1.2.1
+     */
+    public void parse(Resource resource, ByteBuffer utf8, EditorConfigHandler handler, ErrorHandler errorHandler)
+            throws IOException {
+        reset(resource, handler, errorHandler);
+        this.bytes = utf8;
+        this.bytePosition = utf8.position();
+        this.currentBytePosition = bytePosition;
+        try {
+            parse();
+        } finally {
+            release();
+        }
+    }
+
+    private void reset(Resource resource, EditorConfigHandler handler, ErrorHandler errorHandler) {
         this.resource = resource;
         this.handler = handler;
         this.errorHandler = errorHandler;
@@ -125,38 +246,66 @@ public class EditorConfigParser implements ParseContext {
         current = 0;
         last = -1;
         captureStart = -1;
+        captureBuffer.setLength(0);
+        inSection = false;
+        currentLine = 0;
+        pendingLowSurrogate = -1;
+    }
 
-        try (Reader reader = resource.openReader()) {
-            this.reader = reader;
-            readLines();
-            if (!isEndOfText()) {
-                final Location location = getLocation();
-                final ErrorEvent e = new ErrorEvent(
-                        location,
-                        location,
-                        resource,
-                        "Found unexpected character; expected end of input",
-                        ErrorType.EXPECTED_END_OF_INPUT);
-                errorHandler.error(this, e);
-            }
+    /**
+     * Do not hold the references longer than necessary as this parser may get reused.
+     */
+    private void release() {
+        this.reader = null;
+        this.bytes = null;
+        this.resource = null;
+        this.handler = null;
+        this.errorHandler = null;
+    }
+
+    private void parse() throws IOException {
+        readLines();
+        if (!isEndOfText()) {
+            final Location location = getLocation();
+            final ErrorEvent e = new ErrorEvent(
+                    location,
+                    location,
+                    resource,
+                    "Found unexpected character; expected end of input",
+                    ErrorType.EXPECTED_END_OF_INPUT);
+            errorHandler.error(this, e);
         }
     }
 
     private void readLines() throws IOException {
         handler.startDocument(this);
-        int currentLine = 0;
-        do {
-            read();
-            if (currentLine != line) {
-                currentLine = line;
-                readLine();
-            }
-        } while (!isEndOfText());
+        while (readNextLine()) {
+            /* nothing else to do */
+        }
+    }
+
+    /**
+     * Reads the next line, sending the parse events to {@link #handler}. The
+     * {@link EditorConfigHandler#endDocument(ParseContext)} event is sent when the end of input is reached.
+     *
+     * @return {@code true} if there is more input to read; {@code false} otherwise
+     * @throws IOException on I/O problems
+     */
+    boolean readNextLine() throws IOException {
+        read();
+        if (currentLine != line) {
+            currentLine = line;
+            readLine();
+        }
+        if (!isEndOfText()) {
+            return true;
+        }
         if (inSection) {
             handler.endSection(this);
             inSection = false;
         }
         handler.endDocument(this);
+        return false;
     }
 
     private void readLine() throws IOException {
@@ -370,6 +519,10 @@ public class EditorConfigParser implements ParseContext {
     }
 
     private void read() throws IOException {
+        if (bytes != null) {
+            readUtf8();
+            return;
+        }
         if (index == fill) {
             if (captureStart != -1) {
                 captureBuffer.append(buffer, captureStart, fill - captureStart);
@@ -393,8 +546,81 @@ public class EditorConfigParser implements ParseContext {
         current = buffer[index++];
     }
 
+    /**
+     * The UTF-8 mode counterpart of {@link #read()}: here {@link #index} is the number of chars decoded so far and
+     * {@link #bufferOffset} stays {@code 0}, so that {@link #getLocation()} works for both modes.
+     *
+     * @throws IOException if the {@link #bytes} are not valid UTF-8
+     */
+    private void readUtf8() throws IOException {
+        if (pendingLowSurrogate < 0 && bytePosition == bytes.limit()) {
+            currentBytePosition = bytePosition;
+            current = -1;
+            last = -1;
+            index++;
+            return;
+        }
+        if (current == '\n') {
+            line++;
+            lineOffset = index;
+        }
+        last = current;
+        index++;
+        currentBytePosition = bytePosition;
+        if (pendingLowSurrogate >= 0) {
+            current = pendingLowSurrogate;
+            pendingLowSurrogate = -1;
+            return;
+        }
+        final int b = bytes.get(bytePosition++);
+        if (b >= 0) {
+            current = b;
+            return;
+        }
+        final int continuationCount;
+        final int min;
+        int codePoint;
+        if ((b & 0xE0) == 0xC0) {
+            continuationCount = 1;
+            min = 0x80;
+            codePoint = b & 0x1F;
+        } else if ((b & 0xF0) == 0xE0) {
+            continuationCount = 2;
+            min = 0x800;
+            codePoint = b & 0x0F;
+        } else if ((b & 0xF8) == 0xF0) {
+            continuationCount = 3;
+            min = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+            codePoint = b & 0x07;
+        } else {
+            throw new MalformedInputException(1);
+        }
+        for (int i = 0; i < continuationCount; i++) {
+            if (bytePosition == bytes.limit()) {
+                throw new MalformedInputException(i + 1);
+            }
+            final int c = bytes.get(bytePosition);
+            if ((c & 0xC0) != 0x80) {
+                throw new MalformedInputException(i + 1);
+            }
+            bytePosition++;
+            codePoint = (codePoint << 6) | (c & 0x3F);
+        }
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            throw new MalformedInputException(continuationCount + 1);
+        }
+        if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            current = Character.highSurrogate(codePoint);
+            pendingLowSurrogate = Character.lowSurrogate(codePoint);
+        } else {
+            current = codePoint;
+        }
+    }
+
     private void startCapture() {
         captureStart = index - 1;
+        captureBytePosition = currentBytePosition;
     }
 
     private String endCapture() {
@@ -402,6 +628,9 @@ public class EditorConfigParser implements ParseContext {
     }
 
     private String endCapture(int index, boolean trimTrailing) {
+        if (bytes != null) {
+            return endCaptureUtf8(trimTrailing);
+        }
         int start = captureStart;
         int end = index - 1;
         captureStart = -1;
@@ -444,6 +673,39 @@ public class EditorConfigParser implements ParseContext {
         }
     }
 
+    /**
+     * The UTF-8 mode counterpart of {@link #endCapture(int, boolean)}: decodes the bytes from
+     * {@link #captureBytePosition} till the first byte of {@link #current}.
+     *
+     * @param trimTrailing if {@code true} the trailing white space will be removed from the result
+     * @return the captured {@link String}
+     */
+    private String endCaptureUtf8(boolean trimTrailing) {
+        final int start = captureBytePosition;
+        int end = currentBytePosition;
+        captureStart = -1;
+        if (trimTrailing) {
+            /* No byte of a multi-byte UTF-8 sequence can be equal to an ASCII white space */
+            while (end - 1 >= start && isWhiteSpace(bytes.get(end - 1))) {
+                end--;
+            }
+        }
+        final int len = end - start;
+        if (len <= 0) {
+            return "";
+        } else if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + start, len, StandardCharsets.UTF_8);
+        } else {
+            if (decodeBuffer == null || decodeBuffer.length < len) {
+                decodeBuffer = new byte[Math.max(len, buffer.length)];
+            }
+            for (int i = 0; i < len; i++) {
+                decodeBuffer[i] = bytes.get(start + i);
+            }
+            return new String(decodeBuffer, 0, len, StandardCharsets.UTF_8);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Location getLocation() {
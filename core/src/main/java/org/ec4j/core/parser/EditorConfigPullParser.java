@@ -0,0 +1,317 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+
+/**
+ * A pull parser of {@code .editorconfig} files in the style of StAX: the caller moves a cursor over the parse events
+ * using {@link #next()} and inspects the current event using {@link #getEventType()}, {@link #getText()} and
+ * {@link #getLocation()}. The events are the same as the ones sent to {@link EditorConfigHandler}s by
+ * {@link EditorConfigParser#parse(org.ec4j.core.Resource, EditorConfigHandler, ErrorHandler)}.
+ * <p>
+ * The underlying input is read lazily, one line at a time, so the caller can stop early, e.g. after the
+ * {@code root} property of the preamble has been seen, without reading the rest of the file and without building
+ * the {@link org.ec4j.core.model.EditorConfig} model.
+ * <p>
+ * Use {@link EditorConfigParser#pull(org.ec4j.core.Resource, ErrorHandler)} to create new instances. An
+ * {@link EditorConfigPullParser} is not thread-safe.
+ *
+ * @since 1.2.1
+ */
+public class EditorConfigPullParser implements Closeable {
+
+    /**
+     * The types of the parse events. Each of them corresponds to a method of {@link EditorConfigHandler}.
+     */
+    public enum EventType {
+        /** See {@link EditorConfigHandler#blankLine(ParseContext)} */
+        BLANK_LINE,
+        /** See {@link EditorConfigHandler#endComment(ParseContext, String)}; {@link #getText()} is the comment */
+        END_COMMENT,
+        /** See {@link EditorConfigHandler#endDocument(ParseContext)} */
+        END_DOCUMENT,
+        /** See {@link EditorConfigHandler#endGlob(ParseContext, String)}; {@link #getText()} is the glob */
+        END_GLOB,
+        /** See {@link EditorConfigHandler#endProperty(ParseContext)} */
+        END_PROPERTY,
+        /**
+         * See {@link EditorConfigHandler#endPropertyName(ParseContext, String)}; {@link #getText()} is the lower
+         * cased property name
+         */
+        END_PROPERTY_NAME,
+        /**
+         * See {@link EditorConfigHandler#endPropertyValue(ParseContext, String)}; {@link #getText()} is the property
+         * value
+         */
+        END_PROPERTY_VALUE,
+        /** See {@link EditorConfigHandler#endSection(ParseContext)} */
+        END_SECTION,
+        /** See {@link EditorConfigHandler#startComment(ParseContext)} */
+        START_COMMENT,
+        /** See {@link EditorConfigHandler#startDocument(ParseContext)} */
+        START_DOCUMENT,
+        /** See {@link EditorConfigHandler#startGlob(ParseContext)} */
+        START_GLOB,
+        /** See {@link EditorConfigHandler#startProperty(ParseContext)} */
+        START_PROPERTY,
+        /** See {@link EditorConfigHandler#startPropertyName(ParseContext)} */
+        START_PROPERTY_NAME,
+        /** See {@link EditorConfigHandler#startPropertyValue(ParseContext)} */
+        START_PROPERTY_VALUE,
+        /** See {@link EditorConfigHandler#startSection(ParseContext)} */
+        START_SECTION
+    }
+
+    /**
+     * A single parse event.
+     */
+    private static final class Event {
+        private final Location location;
+        private final String text;
+        private final EventType type;
+
+        Event(EventType type, Location location, String text) {
+            super();
+            this.type = type;
+            this.location = location;
+            this.text = text;
+        }
+    }
+
+    /**
+     * An {@link EditorConfigHandler} that queues the events sent by {@link EditorConfigParser}.
+     */
+    static final class EventQueue implements EditorConfigHandler {
+
+        private final ArrayDeque<Event> events = new ArrayDeque<>();
+
+        private void add(ParseContext context, EventType type, String text) {
+            events.add(new Event(type, context.getLocation(), text));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void blankLine(ParseContext context) {
+            add(context, EventType.BLANK_LINE, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endComment(ParseContext context, String comment) {
+            add(context, EventType.END_COMMENT, comment);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endDocument(ParseContext context) {
+            add(context, EventType.END_DOCUMENT, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endGlob(ParseContext context, String glob) {
+            add(context, EventType.END_GLOB, glob);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endProperty(ParseContext context) {
+            add(context, EventType.END_PROPERTY, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endPropertyName(ParseContext context, String name) {
+            add(context, EventType.END_PROPERTY_NAME, name);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endPropertyValue(ParseContext context, String value) {
+            add(context, EventType.END_PROPERTY_VALUE, value);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endSection(ParseContext context) {
+            add(context, EventType.END_SECTION, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startComment(ParseContext context) {
+            add(context, EventType.START_COMMENT, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startDocument(ParseContext context) {
+            add(context, EventType.START_DOCUMENT, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startGlob(ParseContext context) {
+            add(context, EventType.START_GLOB, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startProperty(ParseContext context) {
+            add(context, EventType.START_PROPERTY, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startPropertyName(ParseContext context) {
+            add(context, EventType.START_PROPERTY_NAME, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startPropertyValue(ParseContext context) {
+            add(context, EventType.START_PROPERTY_VALUE, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startSection(ParseContext context) {
+            add(context, EventType.START_SECTION, null);
+        }
+
+    }
+
+    /** {@code null} after the end of input was reached or after {@link #close()} */
+    private EditorConfigParser parser;
+    private Event current;
+    final EventQueue queue = new EventQueue();
+
+    /**
+     * Use {@link EditorConfigParser#pull(org.ec4j.core.Resource, ErrorHandler)} to create new instances.
+     *
+     * @param parser the {@link EditorConfigParser} to read the events from
+     */
+    EditorConfigPullParser(EditorConfigParser parser) {
+        super();
+        this.parser = parser;
+    }
+
+    /**
+     * Releases the underlying input. Calling this method more than once has no effect.
+     *
+     * @throws IOException on I/O problems
+     */
+    @Override
+    public void close() throws IOException {
+        final EditorConfigParser p = parser;
+        if (p != null) {
+            parser = null;
+            p.close();
+        }
+    }
+
+    /**
+     * @return the type of the current event or {@code null} if {@link #next()} was not called yet
+     */
+    public EventType getEventType() {
+        return current == null ? null : current.type;
+    }
+
+    /**
+     * @return the {@link Location} of the current event or {@code null} if {@link #next()} was not called yet
+     */
+    public Location getLocation() {
+        return current == null ? null : current.location;
+    }
+
+    /**
+     * @return the comment, glob, property name or property value if the current event is
+     *         {@link EventType#END_COMMENT}, {@link EventType#END_GLOB}, {@link EventType#END_PROPERTY_NAME} or
+     *         {@link EventType#END_PROPERTY_VALUE} respectively; {@code null} otherwise
+     */
+    public String getText() {
+        return current == null ? null : current.text;
+    }
+
+    /**
+     * @return {@code true} if there are more events to read, i.e. if the current event is not
+     *         {@link EventType#END_DOCUMENT}; {@code false} otherwise
+     * @throws IOException on I/O problems
+     */
+    public boolean hasNext() throws IOException {
+        return fill();
+    }
+
+    /**
+     * Moves the cursor to the next event.
+     *
+     * @return the type of the next event
+     * @throws IOException on I/O problems
+     * @throws NoSuchElementException if there are no more events
+     * @throws ParseException only if the {@link ErrorHandler} passed to
+     *         {@link EditorConfigParser#pull(org.ec4j.core.Resource, ErrorHandler)} chooses to react on some
+     *         {@link ErrorEvent} by throwing {@code ParseException}s for them
+     */
+    public EventType next() throws IOException {
+        if (!fill()) {
+            throw new NoSuchElementException();
+        }
+        current = queue.events.poll();
+        return current.type;
+    }
+
+    /**
+     * Moves the cursor to the next event of the given {@code type}, skipping all events in between.
+     *
+     * @param type the {@link EventType} to look for
+     * @return {@code true} if an event of the given {@code type} was found; {@code false} if the end of input was
+     *         reached
+     * @throws IOException on I/O problems
+     */
+    public boolean nextEvent(EventType type) throws IOException {
+        while (hasNext()) {
+            if (next() == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads lines till there is at least one event in {@link #queue} or till the end of input.
+     *
+     * @return {@code true} if {@link #queue} is not empty; {@code false} otherwise
+     * @throws IOException on I/O problems
+     */
+    private boolean fill() throws IOException {
+        while (queue.events.isEmpty()) {
+            if (parser == null) {
+                return false;
+            }
+            if (!parser.readNextLine()) {
+                /* The end of input: the remaining events are in the queue */
+                close();
+            }
+        }
+        return true;
+    }
+
+}
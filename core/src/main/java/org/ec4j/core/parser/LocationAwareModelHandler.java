@@ -19,6 +19,7 @@ package org.ec4j.core.parser;
 import org.ec4j.core.PropertyTypeRegistry;
 import org.ec4j.core.model.Comments.CommentBlock;
 import org.ec4j.core.model.Comments.CommentBlocks;
+import org.ec4j.core.model.Interner;
 import org.ec4j.core.model.Version;
 
 /**
@@ -43,6 +44,19 @@ public class LocationAwareModelHandler extends EditorConfigModelHandler {
         super(registry, version);
     }
 
+    /**
+     * @param registry the {@link PropertyTypeRegistry} to use
+     * @param version the {@link Version} of the EditorConfig specification to comply with
+     * @param errorHandler the {@link ErrorHandler} to notify on parse errors
+     * @param interner the {@link Interner} to share the immutable model elements having no location information with
+     *        other {@link org.ec4j.core.model.EditorConfig}s; {@code null} disables the sharing
+     * @since 1.2.1
+     */
+    public LocationAwareModelHandler(PropertyTypeRegistry registry, Version version, ErrorHandler errorHandler,
+            Interner interner) {
+        super(registry, version, false, interner);
+    }
+
     @Override
     public void blankLine(ParseContext context) {
         super.blankLine(context);
@@ -0,0 +1,393 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.ec4j.core.Cache.Caches;
+import org.ec4j.core.Resource.Resources;
+import org.ec4j.core.Resource.Resources.StringResourceTree;
+import org.ec4j.core.model.EditorConfig;
+import org.ec4j.core.model.Version;
+import org.ec4j.core.parser.EditorConfigModelHandler;
+import org.ec4j.core.parser.ErrorHandler;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CacheTest {
+
+    /**
+     * An {@link EditorConfigLoader} that counts the {@link #load(Resource)} invocations and returns a new empty
+     * {@link EditorConfig} for each of them.
+     */
+    static class CountingLoader extends EditorConfigLoader {
+        private final AtomicInteger failuresLeft;
+        final AtomicInteger loadCount = new AtomicInteger();
+        private final long sleepMillis;
+
+        CountingLoader(long sleepMillis, int failures) {
+            super(new EditorConfigModelHandler(PropertyTypeRegistry.default_(), Version.CURRENT),
+                    ErrorHandler.THROW_SYNTAX_ERRORS_IGNORE_OTHERS);
+            this.sleepMillis = sleepMillis;
+            this.failuresLeft = new AtomicInteger(failures);
+        }
+
+        @Override
+        public EditorConfig load(Resource configFile) throws IOException {
+            loadCount.incrementAndGet();
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IOException("Could not load " + configFile.getPath());
+            }
+            return EditorConfig.builder().build();
+        }
+    }
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private static void write(Path file, String content, long lastModified) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+    }
+
+    @Test
+    public void boundedExpireAfterAccess() throws IOException {
+        final AtomicLong now = new AtomicLong();
+        final BoundedCache cache = BoundedCache.builder() //
+                .maximumSize(10) //
+                .expireAfterAccess(10, TimeUnit.NANOSECONDS) //
+                .ticker(new LongSupplier() {
+                    @Override
+                    public long getAsLong() {
+                        return now.get();
+                    }
+                }) //
+                .build();
+        final CountingLoader loader = new CountingLoader(0, 0);
+        final Resource file = Resources.ofString("/.editorconfig", "");
+
+        final EditorConfig config = cache.get(file, loader);
+        now.set(9);
+        Assert.assertSame(config, cache.get(file, loader));
+        now.set(18);
+        Assert.assertSame(config, cache.get(file, loader));
+        Assert.assertEquals(1, loader.loadCount.get());
+        now.set(28);
+        Assert.assertNotSame(config, cache.get(file, loader));
+        Assert.assertEquals(2, loader.loadCount.get());
+    }
+
+    @Test
+    public void boundedExpireAfterWrite() throws IOException {
+        final AtomicLong now = new AtomicLong();
+        final BoundedCache cache = BoundedCache.builder() //
+                .maximumSize(10) //
+                .expireAfterWrite(10, TimeUnit.NANOSECONDS) //
+                .ticker(new LongSupplier() {
+                    @Override
+                    public long getAsLong() {
+                        return now.get();
+                    }
+                }) //
+                .build();
+        final CountingLoader loader = new CountingLoader(0, 0);
+        final Resource file = Resources.ofString("/.editorconfig", "");
+
+        final EditorConfig config = cache.get(file, loader);
+        now.set(9);
+        Assert.assertSame(config, cache.get(file, loader));
+        now.set(10);
+        Assert.assertNotSame(config, cache.get(file, loader));
+        Assert.assertEquals(2, loader.loadCount.get());
+
+        now.set(100);
+        cache.cleanUp();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void boundedInvalidateWhileLoading() throws Exception {
+        final BoundedCache cache = BoundedCache.builder().maximumSize(10).build();
+        final CountingLoader loader = new CountingLoader(500, 0);
+        final Resource file = Resources.ofString("/.editorconfig", "");
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<EditorConfig> loading = executor.submit(new Callable<EditorConfig>() {
+                @Override
+                public EditorConfig call() throws Exception {
+                    return cache.get(file, loader);
+                }
+            });
+            while (loader.loadCount.get() == 0) {
+                Thread.sleep(1);
+            }
+            cache.invalidate(file);
+            final EditorConfig stale = loading.get();
+
+            /* The load in progress at the time of the invalidation was not stored */
+            Assert.assertEquals(0, cache.size());
+            Assert.assertNotSame(stale, cache.get(file, loader));
+            Assert.assertEquals(2, loader.loadCount.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void boundedScanResistance() throws IOException {
+        final int hotCount = 5;
+        final int scanCount = 100;
+        final StringResourceTree.Builder treeBuilder = StringResourceTree.builder();
+        for (int i = 0; i < hotCount; i++) {
+            treeBuilder.resource("/hot" + i + "/.editorconfig", "");
+        }
+        for (int i = 0; i < scanCount; i++) {
+            treeBuilder.resource("/scan" + i + "/.editorconfig", "");
+        }
+        final StringResourceTree tree = treeBuilder.build();
+
+        final BoundedCache cache = Caches.bounded(10);
+        final CountingLoader loader = new CountingLoader(0, 0);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < hotCount; i++) {
+                cache.get(tree.getResource("/hot" + i + "/.editorconfig"), loader);
+            }
+        }
+        Assert.assertEquals(hotCount, loader.loadCount.get());
+
+        for (int i = 0; i < scanCount; i++) {
+            cache.get(tree.getResource("/scan" + i + "/.editorconfig"), loader);
+        }
+        Assert.assertEquals(10, cache.size());
+        Assert.assertEquals(hotCount + scanCount, loader.loadCount.get());
+
+        /* The hot entries survived the scan */
+        for (int i = 0; i < hotCount; i++) {
+            cache.get(tree.getResource("/hot" + i + "/.editorconfig"), loader);
+        }
+        Assert.assertEquals(hotCount + scanCount, loader.loadCount.get());
+    }
+
+    @Test
+    public void boundedWeight() throws IOException {
+        final StringResourceTree tree = StringResourceTree.builder() //
+                .resource("/a/.editorconfig", "") //
+                .resource("/b/.editorconfig", "") //
+                .resource("/c/.editorconfig", "") //
+                .build();
+        final BoundedCache cache = BoundedCache.builder() //
+                .maximumWeight(5, new BoundedCache.Weigher() {
+                    @Override
+                    public long weigh(Resource editorConfigFile, EditorConfig editorConfig) {
+                        return 2;
+                    }
+                }) //
+                .build();
+        final CountingLoader loader = new CountingLoader(0, 0);
+        cache.get(tree.getResource("/a/.editorconfig"), loader);
+        cache.get(tree.getResource("/b/.editorconfig"), loader);
+        Assert.assertEquals(2, cache.size());
+        cache.get(tree.getResource("/c/.editorconfig"), loader);
+        Assert.assertEquals(2, cache.size());
+
+        cache.invalidate(tree.getResource("/c/.editorconfig"));
+        Assert.assertEquals(1, cache.size());
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void concurrentGetAsync() throws Exception {
+        final ConcurrentCache cache = Caches.concurrent();
+        final CountingLoader loader = new CountingLoader(0, 1);
+        final Resource file = Resources.ofString("/.editorconfig", "");
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+
+        /* The concurrent callers share a single failing load */
+        final CompletableFuture<EditorConfig> failing1 = cache.getAsync(file, loader, executor);
+        final CompletableFuture<EditorConfig> failing2 = cache.getAsync(file, loader, executor);
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertFalse(failing1.isDone());
+        tasks.remove(0).run();
+        for (CompletableFuture<EditorConfig> failing : Arrays.asList(failing1, failing2)) {
+            try {
+                failing.get();
+                Assert.fail("ExecutionException expected");
+            } catch (ExecutionException expected) {
+                Assert.assertTrue(expected.getCause() instanceof IOException);
+            }
+        }
+
+        /* The next call loads again */
+        final CompletableFuture<EditorConfig> first = cache.getAsync(file, loader, executor);
+        final CompletableFuture<EditorConfig> second = cache.getAsync(file, loader, executor);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        Assert.assertSame(first.get(), second.get());
+        Assert.assertSame(first.get(), cache.getAsync(file, loader, executor).get());
+        Assert.assertSame(first.get(), cache.get(file, loader));
+        Assert.assertTrue(tasks.isEmpty());
+        Assert.assertEquals(2, loader.loadCount.get());
+    }
+
+    @Test
+    public void concurrentLoadsOnce() throws Exception {
+        final Cache cache = Caches.concurrent();
+        final CountingLoader loader = new CountingLoader(100, 0);
+        final Resource file = Resources.ofString("/.editorconfig", "");
+        final int threadCount = 16;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<EditorConfig>> results = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                results.add(executor.submit(new Callable<EditorConfig>() {
+                    @Override
+                    public EditorConfig call() throws Exception {
+                        start.await();
+                        return cache.get(file, loader);
+                    }
+                }));
+            }
+            start.countDown();
+            final EditorConfig first = results.get(0).get();
+            for (Future<EditorConfig> result : results) {
+                Assert.assertSame(first, result.get());
+            }
+            Assert.assertEquals(1, loader.loadCount.get());
+            Assert.assertSame(first, cache.get(file, loader));
+            Assert.assertEquals(1, loader.loadCount.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentRetriesAfterFailure() throws IOException {
+        final ConcurrentCache cache = Caches.concurrent();
+        final CountingLoader loader = new CountingLoader(0, 1);
+        final Resource file = Resources.ofString("/.editorconfig", "");
+        try {
+            cache.get(file, loader);
+            Assert.fail(IOException.class.getSimpleName() + " expected");
+        } catch (IOException expected) {
+        }
+        final EditorConfig config = cache.get(file, loader);
+        Assert.assertNotNull(config);
+        Assert.assertEquals(2, loader.loadCount.get());
+
+        Assert.assertSame(config, cache.get(file, loader));
+        cache.invalidate(file);
+        Assert.assertNotSame(config, cache.get(file, loader));
+        Assert.assertEquals(3, loader.loadCount.get());
+    }
+
+    @Test
+    public void validatingHashContent() throws IOException {
+        final Path file = tempDir.getRoot().toPath().resolve(".editorconfig");
+        write(file, "[*]\nindent_size = 2\n", 1000000L);
+        final Resource resource = Resources.ofPath(file, StandardCharsets.UTF_8);
+        final Cache cache = ValidatingCache.builder() //
+                .revalidateInterval(0, TimeUnit.NANOSECONDS) //
+                .hashContent(true) //
+                .build();
+        final EditorConfigLoader loader = EditorConfigLoader.default_();
+
+        final EditorConfig config = cache.get(resource, loader);
+        /* touch does not cause reloading */
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2000000L));
+        Assert.assertSame(config, cache.get(resource, loader));
+
+        /* same size, a different time and a different content: the hash differs, so the file is reloaded */
+        write(file, "[*]\nindent_size = 4\n", 3000000L);
+        final EditorConfig config2 = cache.get(resource, loader);
+        Assert.assertNotSame(config, config2);
+        Assert.assertEquals("4", config2.getSections().get(0).getProperties().get("indent_size").getSourceValue());
+    }
+
+    @Test
+    public void validatingReloadsChanged() throws IOException {
+        final Path file = tempDir.getRoot().toPath().resolve(".editorconfig");
+        write(file, "[*]\nindent_size = 2\n", 1000000L);
+        final Resource resource = Resources.ofPath(file, StandardCharsets.UTF_8);
+        final AtomicLong now = new AtomicLong();
+        final Cache cache = ValidatingCache.builder() //
+                .revalidateInterval(10, TimeUnit.NANOSECONDS) //
+                .ticker(new LongSupplier() {
+                    @Override
+                    public long getAsLong() {
+                        return now.get();
+                    }
+                }) //
+                .build();
+        final EditorConfigLoader loader = EditorConfigLoader.default_();
+
+        final EditorConfig config = cache.get(resource, loader);
+        Assert.assertSame(config, cache.get(resource, loader));
+
+        write(file, "[*]\nindent_size = 4\n", 2000000L);
+        /* Not checked within the interval */
+        now.set(9);
+        Assert.assertSame(config, cache.get(resource, loader));
+
+        now.set(10);
+        final EditorConfig config2 = cache.get(resource, loader);
+        Assert.assertNotSame(config, config2);
+        Assert.assertEquals("4", config2.getSections().get(0).getProperties().get("indent_size").getSourceValue());
+        Assert.assertSame(config2, cache.get(resource, loader));
+
+        /* The metadata did not change, so no reload */
+        now.set(20);
+        Assert.assertSame(config2, cache.get(resource, loader));
+    }
+
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.ec4j.core.Cache.Caches;
+import org.ec4j.core.Resource.Resources;
+import org.ec4j.core.SnapshotCacheTest.CountingLoader;
+import org.ec4j.core.model.EditorConfig;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryCacheTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private static void write(Path file, String content, long lastModified) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+    }
+
+    @Test
+    public void corruptedEntry() throws IOException {
+        final Path root = tempDir.getRoot().toPath();
+        final Path cacheDir = root.resolve("cache");
+        final Path editorConfigFile = root.resolve(".editorconfig");
+        write(editorConfigFile, "[*]\nindent_size = 4\n", 1000000L);
+        final Resource resource = Resources.ofPath(editorConfigFile, StandardCharsets.UTF_8);
+
+        final DirectoryCache cache = Caches.directory(cacheDir);
+        final Path entryFile = cache.entryFile(DirectoryCache.canonicalKey(resource));
+        Files.write(entryFile, new byte[] { 0x45, 0x43, 0x34, 0x44, 0, 0, 0, 1, 0, 0, 0, 5, 1, 2 });
+
+        final CountingLoader loader = new CountingLoader();
+        Assert.assertEquals("[*]\nindent_size = 4\ntab_width = 4", cache.get(resource, loader).toString());
+        Assert.assertEquals(1, loader.loadCount.get());
+
+        /* The corrupted entry file was overwritten */
+        final CountingLoader loader2 = new CountingLoader();
+        Assert.assertEquals("[*]\nindent_size = 4\ntab_width = 4",
+                Caches.directory(cacheDir).get(resource, loader2).toString());
+        Assert.assertEquals(0, loader2.loadCount.get());
+    }
+
+    @Test
+    public void sharedDirectory() throws IOException {
+        final Path root = tempDir.getRoot().toPath();
+        final Path cacheDir = root.resolve("cache");
+        final Path editorConfigFile = root.resolve(".editorconfig");
+        write(editorConfigFile, "root = true\n\n[*.{java,js}]\nindent_size = 4\n", 1000000L);
+        final Resource resource = Resources.ofPath(editorConfigFile, StandardCharsets.UTF_8);
+        /* A different path of the same file has the same canonical key */
+        final Resource otherPathResource = Resources.ofPath(root.resolve("sub/../.editorconfig"),
+                StandardCharsets.UTF_8);
+        Files.createDirectories(root.resolve("sub"));
+
+        final DirectoryCache cache1 = Caches.directory(cacheDir);
+        final CountingLoader loader1 = new CountingLoader();
+        final EditorConfig expected = cache1.get(resource, loader1);
+        Assert.assertSame(expected, cache1.get(resource, loader1));
+        Assert.assertEquals(1, loader1.loadCount.get());
+
+        /* A new cache, e.g. in a new JVM */
+        final DirectoryCache cache2 = Caches.directory(cacheDir);
+        final CountingLoader loader2 = new CountingLoader();
+        final EditorConfig actual = cache2.get(otherPathResource, loader2);
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.toString(), actual.toString());
+        Assert.assertEquals(0, loader2.loadCount.get());
+
+        /* A touch without changing the content does not cause a reload */
+        write(editorConfigFile, "root = true\n\n[*.{java,js}]\nindent_size = 4\n", 2000000L);
+        Assert.assertSame(actual, cache2.get(otherPathResource, loader2));
+        Assert.assertEquals(0, loader2.loadCount.get());
+
+        /* A change of the content is detected even if the modification time and the size stay the same */
+        write(editorConfigFile, "root = true\n\n[*.{java,js}]\nindent_size = 2\n", 2000000L);
+        final DirectoryCache cache3 = Caches.directory(cacheDir);
+        final CountingLoader loader3 = new CountingLoader();
+        Assert.assertEquals("root = true\n\n[*.{java,js}]\nindent_size = 2\ntab_width = 2",
+                cache3.get(resource, loader3).toString());
+        Assert.assertEquals(1, loader3.loadCount.get());
+
+        /* cache1 has an outdated entry in memory; it revalidates it against the content */
+        Assert.assertEquals("root = true\n\n[*.{java,js}]\nindent_size = 2\ntab_width = 2",
+                cache1.get(resource, loader1).toString());
+        Assert.assertEquals(1, loader1.loadCount.get());
+
+        cache1.invalidate(resource);
+        Assert.assertFalse(Files.exists(cache1.entryFile(DirectoryCache.canonicalKey(resource))));
+        cache1.get(resource, loader1);
+        Assert.assertEquals(2, loader1.loadCount.get());
+    }
+
+}
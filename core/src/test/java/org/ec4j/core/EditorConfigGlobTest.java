@@ -17,22 +17,51 @@
 package org.ec4j.core;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 
 import org.ec4j.core.Resource.Resources.StringResourceTree;
+import org.ec4j.core.model.Glob;
 import org.ec4j.core.model.Property;
+import org.ec4j.core.model.Version;
+import org.ec4j.core.parser.EditorConfigModelHandler;
+import org.ec4j.core.parser.ErrorHandler;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
 /**
  * Some glob test of https://github.com/editorconfig/editorconfig-core-test/tree/master/glob
  *
  * @author <a href="mailto:angelo.zerr@gmail.com">Angelo Zerr</a>
  */
+@RunWith(Parameterized.class)
 public class EditorConfigGlobTest {
     private static final boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
 
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> engines() {
+        return Arrays.asList(new Object[][] { { Glob.Engine.AUTOMATON }, { Glob.Engine.REGEX } });
+    }
+
+    private final ResourcePropertiesService service;
+
+    public EditorConfigGlobTest(final Glob.Engine engine) {
+        /* A non interning handler so that the Globs are compiled with the given engine rather than the default one */
+        final EditorConfigModelHandler handler = new EditorConfigModelHandler(PropertyTypeRegistry.default_(),
+                Version.CURRENT, false, null) {
+            @Override
+            protected Glob createGlob(String globSource) {
+                return new Glob(globSource, engine);
+            }
+        };
+        this.service = ResourcePropertiesService.builder()
+                .loader(new EditorConfigLoader(handler, ErrorHandler.THROW_SYNTAX_ERRORS_IGNORE_OTHERS)).build();
+    }
+
     @Test
     public void star_after_slash() throws IOException {
         String content = "; test *\r\n" //
@@ -53,8 +82,7 @@ public class EditorConfigGlobTest {
                 .touch(testFile) //
                 .build();
 
-        Collection<Property> properties = ResourcePropertiesService.default_()
-                .queryProperties(tree.getResource(testFile)).getProperties().values();
+        Collection<Property> properties = service.queryProperties(tree.getResource(testFile)).getProperties().values();
         Assert.assertEquals(1, properties.size());
         Assert.assertEquals("keyb = valueb", properties.iterator().next().toString());
     }
@@ -76,8 +104,7 @@ public class EditorConfigGlobTest {
                 .touch(testFile) //
                 .build();
 
-        Collection<Property> properties = ResourcePropertiesService.default_()
-                .queryProperties(tree.getResource(testFile)).getProperties().values();
+        Collection<Property> properties = service.queryProperties(tree.getResource(testFile)).getProperties().values();
         Assert.assertEquals(1, properties.size());
         Assert.assertEquals("key = value", properties.iterator().next().toString());
     }
@@ -156,8 +183,7 @@ public class EditorConfigGlobTest {
                 .touch(testFile) //
                 .build();
 
-        Collection<Property> properties = ResourcePropertiesService.default_()
-                .queryProperties(tree.getResource(testFile)).getProperties().values();
+        Collection<Property> properties = service.queryProperties(tree.getResource(testFile)).getProperties().values();
         Assert.assertEquals(1, properties.size());
         Assert.assertEquals("close_inside = true", properties.iterator().next().toString());
     }
@@ -171,8 +197,7 @@ public class EditorConfigGlobTest {
                 .touch(testFile) //
                 .build();
 
-        Collection<Property> properties = ResourcePropertiesService.default_()
-                .queryProperties(tree.getResource(testFile)).getProperties().values();
+        Collection<Property> properties = service.queryProperties(tree.getResource(testFile)).getProperties().values();
         Assert.assertEquals(1, properties.size());
         Assert.assertEquals("close_outside = true", properties.iterator().next().toString());
     }
@@ -264,8 +289,7 @@ public class EditorConfigGlobTest {
                 .touch(testFile) //
                 .build();
 
-        Collection<Property> properties = ResourcePropertiesService.default_()
-                .queryProperties(tree.getResource(testFile)).getProperties().values();
+        Collection<Property> properties = service.queryProperties(tree.getResource(testFile)).getProperties().values();
         Assert.assertEquals(1, properties.size());
         Assert.assertEquals("choice = true", properties.iterator().next().toString());
     }
@@ -298,8 +322,7 @@ public class EditorConfigGlobTest {
                 .touch(testFile) //
                 .build();
 
-        Collection<Property> properties = ResourcePropertiesService.default_()
-                .queryProperties(tree.getResource(testFile)).getProperties().values();
+        Collection<Property> properties = service.queryProperties(tree.getResource(testFile)).getProperties().values();
         Assert.assertEquals(1, properties.size());
         Assert.assertEquals("key2 = value2", properties.iterator().next().toString());
     }
@@ -313,8 +336,8 @@ public class EditorConfigGlobTest {
                     .touch(testFile) //
                     .build();
 
-            Collection<Property> properties = ResourcePropertiesService.default_()
-                    .queryProperties(tree.getResource(testFile)).getProperties().values();
+            Collection<Property> properties = service.queryProperties(tree.getResource(testFile)).getProperties()
+                    .values();
             Assert.assertEquals(1, properties.size());
             Assert.assertEquals("backslash = yes", properties.iterator().next().toString());
         }
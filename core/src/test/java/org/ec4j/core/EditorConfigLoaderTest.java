@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.ec4j.core.Resource.Resources.StringResourceTree;
+import org.ec4j.core.model.EditorConfig;
+import org.ec4j.core.model.Property;
+import org.ec4j.core.model.PropertyType;
+import org.ec4j.core.model.PropertyType.IndentStyleValue;
+import org.ec4j.core.model.Version;
+import org.ec4j.core.parser.EditorConfigModelHandler;
+import org.ec4j.core.parser.ErrorHandler;
+import org.ec4j.core.parser.ParseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EditorConfigLoaderTest {
+
+    private static final int FILE_COUNT = 64;
+    private static final int LOAD_COUNT = 4000;
+    private static final int THREAD_COUNT = 8;
+
+    private static String content(int i) {
+        final StringBuilder s = new StringBuilder();
+        s.append("root = ").append(i % 2 == 0).append("\n\n");
+        s.append("[*.f").append(i).append("]\n");
+        s.append("indent_size = ").append(i + 1).append('\n');
+        s.append("# a comment to make the file longer than the parser buffer ");
+        for (int j = 0; j < 100; j++) {
+            s.append(i);
+        }
+        s.append("\n\n[{a,b}/**/file").append(i).append(".txt]\n");
+        s.append("charset = utf-8\n");
+        s.append("custom_").append(i).append(" = value").append(i).append('\n');
+        return s.toString();
+    }
+
+    private static void stress(final EditorConfigLoader loader) throws Exception {
+        final StringResourceTree.Builder treeBuilder = StringResourceTree.builder();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            treeBuilder.resource("dir" + i + "/.editorconfig", content(i));
+        }
+        final StringResourceTree tree = treeBuilder.build();
+
+        final List<Callable<Void>> tasks = new ArrayList<>(LOAD_COUNT);
+        for (int i = 0; i < LOAD_COUNT; i++) {
+            final int fileIndex = i % FILE_COUNT;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    final EditorConfig config = loader.load(tree.getResource("dir" + fileIndex + "/.editorconfig"));
+                    Assert.assertEquals(fileIndex % 2 == 0, config.isRoot());
+                    Assert.assertEquals(2, config.getSections().size());
+                    Assert.assertEquals("*.f" + fileIndex, config.getSections().get(0).getGlob().toString());
+                    Assert.assertEquals(Integer.valueOf(fileIndex + 1), config.getSections().get(0).getProperties()
+                            .get(PropertyType.indent_size.getName()).getValueAs());
+                    Assert.assertEquals("value" + fileIndex, config.getSections().get(1).getProperties()
+                            .get("custom_" + fileIndex).getSourceValue());
+                    return null;
+                }
+            });
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentLoad() throws Exception {
+        stress(EditorConfigLoader.default_());
+    }
+
+    @Test
+    public void lazyValues() throws IOException {
+        final String content = "[*]\nindent_size = 4\nindent_style = Tab\ncustom = value\n\n[*.md]\nindent_size = x\n";
+        final Resource resource = StringResourceTree.builder().resource(".editorconfig", content).build()
+                .getResource(".editorconfig");
+
+        try {
+            EditorConfigLoader.of(Version.CURRENT, PropertyTypeRegistry.default_(), ErrorHandler.THROWING)
+                    .load(resource);
+            Assert.fail(ParseException.class.getSimpleName() + " expected");
+        } catch (ParseException expected) {
+        }
+
+        final EditorConfig lazy = EditorConfigLoader
+                .of(Version.CURRENT, PropertyTypeRegistry.default_(), ErrorHandler.THROWING, true).load(resource);
+        final Map<String, Property> star = lazy.getSections().get(0).getProperties();
+        Assert.assertEquals(Integer.valueOf(4), star.get(PropertyType.indent_size.getName()).getValueAs());
+        Assert.assertEquals(IndentStyleValue.tab, star.get(PropertyType.indent_style.getName()).getValueAs());
+        Assert.assertEquals("value", star.get("custom").getValueAs());
+        final Property invalid = lazy.getSections().get(1).getProperties().get(PropertyType.indent_size.getName());
+        Assert.assertEquals("x", invalid.getSourceValue());
+        Assert.assertFalse(invalid.isValid());
+        try {
+            invalid.getValueAs();
+            Assert.fail(RuntimeException.class.getSimpleName() + " expected");
+        } catch (RuntimeException expected) {
+        }
+
+        final EditorConfig eager = EditorConfigLoader
+                .of(Version.CURRENT, PropertyTypeRegistry.default_(), ErrorHandler.IGNORING).load(resource);
+        Assert.assertEquals(eager, lazy);
+        Assert.assertEquals(eager.hashCode(), lazy.hashCode());
+    }
+
+    @Test
+    public void concurrentLoadSharedHandler() throws Exception {
+        stress(new EditorConfigLoader(new EditorConfigModelHandler(PropertyTypeRegistry.default_(), Version.CURRENT),
+                ErrorHandler.THROW_SYNTAX_ERRORS_IGNORE_OTHERS));
+    }
+
+}
@@ -0,0 +1,626 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.ec4j.core.Cache.Caches;
+import org.ec4j.core.Cache.InvalidationListener;
+import org.ec4j.core.Resource.Resources;
+import org.ec4j.core.Resource.Resources.StringResourceTree;
+import org.ec4j.core.ResourcePath.ResourcePaths;
+import org.ec4j.core.model.EditorConfig;
+import org.ec4j.core.model.Property;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResourcePropertiesServiceTest {
+
+    /**
+     * A {@link Cache} counting the {@link #exists(Resource)} invocations.
+     */
+    static class CountingCache implements Cache {
+        private final Cache delegate = Caches.permanent();
+        final AtomicInteger existsCount = new AtomicInteger();
+        final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void addInvalidationListener(InvalidationListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeInvalidationListener(InvalidationListener listener) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public boolean exists(Resource editorConfigFile) {
+            existsCount.incrementAndGet();
+            return delegate.exists(editorConfigFile);
+        }
+
+        @Override
+        public EditorConfig get(Resource editorConfigFile, EditorConfigLoader loader) throws IOException {
+            return delegate.get(editorConfigFile, loader);
+        }
+
+        @Override
+        public void invalidate(Resource editorConfigFile) {
+            delegate.invalidate(editorConfigFile);
+            for (InvalidationListener listener : listeners) {
+                listener.invalidated(editorConfigFile);
+            }
+        }
+    }
+
+    private static final int FILE_COUNT = 10;
+
+    private static void write(Path path, String content, long lastModified) throws IOException {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(path, FileTime.fromMillis(lastModified));
+    }
+
+    private static StringResourceTree deepTree() {
+        final StringResourceTree.Builder builder = StringResourceTree.builder() //
+                .resource("root/.editorconfig", "root = true\n[*]\nindent_size = 3\n");
+        for (int i = 0; i < FILE_COUNT; i++) {
+            builder.touch("root/a/b/c/d/file" + i + ".txt");
+        }
+        return builder.build();
+    }
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private static void queryAll(ResourcePropertiesService service, StringResourceTree tree) throws IOException {
+        for (int i = 0; i < FILE_COUNT; i++) {
+            final Resource file = tree.getResource("root/a/b/c/d/file" + i + ".txt");
+            final ResourceProperties props = service.queryProperties(file);
+            Assert.assertEquals("3", props.getProperties().get("indent_size").getSourceValue());
+        }
+    }
+
+    @Test
+    public void cacheLookups() throws IOException {
+        final StringResourceTree tree = deepTree();
+        final CountingCache cache = new CountingCache();
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .cache(cache) //
+                .cacheLookups(true) //
+                .build();
+
+        queryAll(service, tree);
+        /* 5 lookups for the first file, the other files in the same directory reuse the chain */
+        Assert.assertEquals(5, cache.existsCount.get());
+
+        service.clearLookups();
+        cache.existsCount.set(0);
+        queryAll(service, tree);
+        Assert.assertEquals(5, cache.existsCount.get());
+    }
+
+    @Test
+    public void cacheLookupsInvalidated() throws IOException {
+        final StringResourceTree tree = StringResourceTree.builder() //
+                .resource("root/.editorconfig", "root = true\n[*]\nindent_size = 3\n") //
+                .touch("root/a/x/file.txt") //
+                .touch("root/b/y/file.txt") //
+                .build();
+        final CountingCache cache = new CountingCache();
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .cache(cache) //
+                .cacheLookups(true) //
+                .build();
+        final Resource a = tree.getResource("root/a/x/file.txt");
+        final Resource b = tree.getResource("root/b/y/file.txt");
+        service.queryProperties(a);
+        service.queryProperties(b);
+        Assert.assertEquals(6, cache.existsCount.get());
+
+        /* Only the lookups of root/a and of the directories under it are forgotten */
+        cache.invalidate(a.getParent().getParent().resolve(".editorconfig"));
+        cache.existsCount.set(0);
+        service.queryProperties(b);
+        Assert.assertEquals(0, cache.existsCount.get());
+        service.queryProperties(a);
+        /* root/a/x is still known to have no .editorconfig file */
+        Assert.assertEquals(2, cache.existsCount.get());
+    }
+
+    @Test
+    public void closeRemovesInvalidationListener() throws IOException {
+        final StringResourceTree tree = deepTree();
+        final CountingCache cache = new CountingCache();
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .cache(cache) //
+                .cacheLookups(true) //
+                .build();
+        Assert.assertEquals(1, cache.listeners.size());
+        queryAll(service, tree);
+
+        service.close();
+        Assert.assertTrue(cache.listeners.isEmpty());
+        /* The lookups are forgotten, but the service still works */
+        cache.existsCount.set(0);
+        queryAll(service, tree);
+        Assert.assertEquals(5, cache.existsCount.get());
+    }
+
+    @Test
+    public void cacheLookupsReloaded() throws IOException {
+        final Path root = tempDir.getRoot().toPath();
+        final Path dir = Files.createDirectories(root.resolve("a/b"));
+        final Path rootEditorConfig = root.resolve(".editorconfig");
+        final Path dirEditorConfig = root.resolve("a/.editorconfig");
+        write(rootEditorConfig, "root = true\n[*]\nindent_size = 3\n", 1000L);
+        write(dirEditorConfig, "[*]\ntab_width = 5\n", 1000L);
+        final Resource file = Resources.ofPath(dir.resolve("file.txt"), StandardCharsets.UTF_8);
+
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .cache(ValidatingCache.builder().revalidateInterval(0, TimeUnit.NANOSECONDS).build()) //
+                .cacheLookups(true) //
+                .build();
+        ResourceProperties props = service.queryProperties(file);
+        Assert.assertEquals("3", props.getProperties().get("indent_size").getSourceValue());
+        Assert.assertEquals("5", props.getProperties().get("tab_width").getSourceValue());
+
+        /* A reloaded EditorConfig is picked up by the cached chain */
+        write(dirEditorConfig, "[*]\ntab_width = 6\n", 2000L);
+        props = service.queryProperties(file);
+        Assert.assertEquals("3", props.getProperties().get("indent_size").getSourceValue());
+        Assert.assertEquals("6", props.getProperties().get("tab_width").getSourceValue());
+
+        /* A changed root flag shortens the chain */
+        write(dirEditorConfig, "root = true\n[*]\ntab_width = 7\n", 3000L);
+        props = service.queryProperties(file);
+        Assert.assertNull(props.getProperties().get("indent_size"));
+        Assert.assertEquals("7", props.getProperties().get("tab_width").getSourceValue());
+    }
+
+    @Test
+    public void queryPropertiesBatch() throws IOException {
+        final StringResourceTree.Builder builder = StringResourceTree.builder() //
+                .resource("root/.editorconfig", "root = true\n[*]\nindent_size = 3\n[src/**.java]\ntab_width = 4\n") //
+                .resource("root/src/.editorconfig", "[Foo.java]\ncharset = latin1\n[main/*.md]\nindent_size = 2\n");
+        final String[] paths = { "root/src/main/Foo.java", "root/README.md", "root/src/Foo.java", "root/src/main/a.md",
+                "root/src/Bar.java", "root/src/main/Bar.java", "root/other/Bar.java", "root/src/README.md",
+                "root/src/main/Baz.java" };
+        for (String path : paths) {
+            builder.touch(path);
+        }
+        final StringResourceTree tree = builder.build();
+        final List<Resource> resources = new ArrayList<>();
+        for (String path : paths) {
+            resources.add(tree.getResource(path));
+        }
+        final CountingCache cache = new CountingCache();
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .cache(cache) //
+                .build();
+
+        final Map<Resource, ResourceProperties> batch = service.queryProperties(resources);
+        /* One walk per directory up to the root: root/src/main 3, root/src 2, root/other 2 and root 1 */
+        Assert.assertEquals(8, cache.existsCount.get());
+        Assert.assertEquals(resources, new ArrayList<>(batch.keySet()));
+        for (Resource resource : resources) {
+            Assert.assertEquals(resource.toString(), service.queryProperties(resource).getProperties(),
+                    batch.get(resource).getProperties());
+        }
+        Assert.assertEquals("latin1",
+                batch.get(tree.getResource("root/src/Foo.java")).getProperties().get("charset").getSourceValue());
+        Assert.assertEquals("2",
+                batch.get(tree.getResource("root/src/main/a.md")).getProperties().get("indent_size").getSourceValue());
+        /* The files matched by the same sections share the result */
+        Assert.assertSame(batch.get(tree.getResource("root/src/main/Bar.java")),
+                batch.get(tree.getResource("root/src/main/Baz.java")));
+        Assert.assertNotSame(batch.get(tree.getResource("root/src/main/Foo.java")),
+                batch.get(tree.getResource("root/src/main/Bar.java")));
+    }
+
+    @Test
+    public void queryPropertiesBatchPaths() throws IOException {
+        final Path root = tempDir.getRoot().toPath();
+        final Path dir = Files.createDirectories(root.resolve("a/b"));
+        write(root.resolve(".editorconfig"), "root = true\n[*]\nindent_size = 3\n[a/b/*.java]\ntab_width = 5\n",
+                1000L);
+        write(dir.resolve(".editorconfig"), "[*.txt]\nindent_size = 7\n", 1000L);
+        final List<Resource> resources = new ArrayList<>();
+        for (String name : new String[] { "x.java", "y.txt", "z.md" }) {
+            resources.add(Resources.ofPath(dir.resolve(name), StandardCharsets.UTF_8));
+        }
+        resources.add(Resources.ofPath(root.resolve("w.java"), StandardCharsets.UTF_8));
+        final ResourcePropertiesService service = ResourcePropertiesService.default_();
+        final Map<Resource, ResourceProperties> batch = service.queryProperties(resources);
+        for (Resource resource : resources) {
+            Assert.assertEquals(resource.toString(), service.queryProperties(resource).getProperties(),
+                    batch.get(resource).getProperties());
+        }
+        Assert.assertEquals("5", batch.get(resources.get(0)).getProperties().get("tab_width").getSourceValue());
+        Assert.assertEquals("7", batch.get(resources.get(1)).getProperties().get("indent_size").getSourceValue());
+        /* tab_width defaults to indent_size */
+        Assert.assertEquals("3", batch.get(resources.get(3)).getProperties().get("tab_width").getSourceValue());
+    }
+
+    @Test
+    public void walk() throws IOException {
+        final Path top = tempDir.getRoot().toPath();
+        final Path root = Files.createDirectories(top.resolve("root"));
+        write(top.resolve(".editorconfig"), "root = true\n[*]\nindent_size = 3\n[root/src/**.java]\ntab_width = 4\n",
+                1000L);
+        write(root.resolve(".editorconfig"), "[*.md]\nindent_size = 2\n", 1000L);
+        final String[] paths = { "README.md", "src/Foo.java", "src/main/Bar.java", "src/main/a.md", "other/Baz.java",
+                "other/sub/x.txt", "standalone/Qux.java", "standalone/deep/y.md", "rooted/z.md", "rooted/w.java" };
+        for (String path : paths) {
+            final Path file = root.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.createFile(file);
+        }
+        write(root.resolve("src/.editorconfig"), "[Foo.java]\ncharset = latin1\n", 1000L);
+        write(root.resolve("standalone/.editorconfig"), "root = true\n[*.java]\nindent_size = 8\n", 1000L);
+        final ResourcePath rooted = ResourcePaths.ofPath(root.resolve("rooted"), StandardCharsets.UTF_8);
+
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .cache(Caches.permanent()) //
+                .rootDirectory(rooted) //
+                .build();
+        final Map<Resource, ResourceProperties> walked = new ConcurrentHashMap<>();
+        service.walk(ResourcePaths.ofPath(root, StandardCharsets.UTF_8),
+                new BiConsumer<Resource, ResourceProperties>() {
+                    @Override
+                    public void accept(Resource resource, ResourceProperties properties) {
+                        Assert.assertNull(walked.put(resource, properties));
+                    }
+                });
+
+        /* The .editorconfig files are not passed to the consumer */
+        Assert.assertEquals(paths.length, walked.size());
+        for (Map.Entry<Resource, ResourceProperties> entry : walked.entrySet()) {
+            Assert.assertEquals(entry.getKey().toString(), service.queryProperties(entry.getKey()).getProperties(),
+                    entry.getValue().getProperties());
+        }
+        final Resource foo = Resources.ofPath(root.resolve("src/Foo.java"), StandardCharsets.UTF_8);
+        Assert.assertEquals("latin1", walked.get(foo).getProperties().get("charset").getSourceValue());
+        Assert.assertEquals("4", walked.get(foo).getProperties().get("tab_width").getSourceValue());
+        final Resource qux = Resources.ofPath(root.resolve("standalone/Qux.java"), StandardCharsets.UTF_8);
+        Assert.assertEquals("8", walked.get(qux).getProperties().get("indent_size").getSourceValue());
+        Assert.assertEquals(1, walked.get(qux).getEditorConfigFiles().size());
+        final Resource z = Resources.ofPath(root.resolve("rooted/z.md"), StandardCharsets.UTF_8);
+        Assert.assertTrue(walked.get(z).getProperties().isEmpty());
+        final Resource x = Resources.ofPath(root.resolve("other/sub/x.txt"), StandardCharsets.UTF_8);
+        Assert.assertEquals("3", walked.get(x).getProperties().get("indent_size").getSourceValue());
+    }
+
+    @Test
+    public void walkLinks() throws IOException {
+        final Path root = tempDir.getRoot().toPath().toRealPath();
+        final Path dir = Files.createDirectories(root.resolve("dir"));
+        write(root.resolve(".editorconfig"), "root = true\n[*]\nindent_size = 3\n", 1000L);
+        Files.createFile(dir.resolve("a.txt"));
+        try {
+            Files.createSymbolicLink(root.resolve("link"), dir);
+            Files.createSymbolicLink(dir.resolve("b.txt"), dir.resolve("a.txt"));
+        } catch (UnsupportedOperationException | IOException e) {
+            Assume.assumeNoException(e);
+        }
+        final ResourcePropertiesService service = ResourcePropertiesService.default_();
+        final ResourcePath rootPath = ResourcePaths.ofPath(root, StandardCharsets.UTF_8);
+
+        final Set<String> walked = new TreeSet<>();
+        final BiConsumer<Resource, ResourceProperties> consumer = new BiConsumer<Resource, ResourceProperties>() {
+            @Override
+            public void accept(Resource resource, ResourceProperties properties) {
+                synchronized (walked) {
+                    walked.add(root.relativize(resource.getPath().getAdapter(Path.class)).toString()
+                            .replace('\\', '/'));
+                }
+            }
+        };
+        /* By default, the links are passed like files and not descended into */
+        service.walk(rootPath, consumer);
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("dir/a.txt", "dir/b.txt", "link")), walked);
+
+        walked.clear();
+        service.walk(rootPath, consumer, FileVisitOption.FOLLOW_LINKS);
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("dir/a.txt", "dir/b.txt", "link/a.txt", "link/b.txt")),
+                walked);
+
+        /* A cycle */
+        Files.createSymbolicLink(dir.resolve("up"), root);
+        try {
+            service.walk(rootPath, consumer, FileVisitOption.FOLLOW_LINKS);
+            Assert.fail(FileSystemLoopException.class.getSimpleName() + " expected");
+        } catch (FileSystemLoopException expected) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void walkUnsupportedRoot() throws IOException {
+        final StringResourceTree tree = deepTree();
+        ResourcePropertiesService.default_().walk(tree.getResource("root/.editorconfig").getParent(),
+                new BiConsumer<Resource, ResourceProperties>() {
+                    @Override
+                    public void accept(Resource resource, ResourceProperties properties) {
+                    }
+                });
+    }
+
+    @Test
+    public void queryPropertiesAsync() throws Exception {
+        final StringResourceTree tree = StringResourceTree.builder() //
+                .resource("root/.editorconfig", "root = true\n[*]\nindent_size = 3\n[*.java]\ntab_width = 4\n") //
+                .resource("root/src/.editorconfig", "[Foo.java]\ncharset = latin1\n") //
+                .touch("root/src/Foo.java") //
+                .touch("root/src/main/Bar.java") //
+                .touch("root/README.md") //
+                .build();
+        final CountingCache cache = new CountingCache();
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .cache(cache) //
+                .cacheLookups(true) //
+                .build();
+        final String[] paths = { "root/src/Foo.java", "root/src/main/Bar.java", "root/README.md" };
+        final List<CompletableFuture<ResourceProperties>> futures = new ArrayList<>();
+        for (String path : paths) {
+            futures.add(service.queryPropertiesAsync(tree.getResource(path)));
+        }
+        for (int i = 0; i < paths.length; i++) {
+            final Resource resource = tree.getResource(paths[i]);
+            Assert.assertEquals(paths[i], service.queryProperties(resource).getProperties(),
+                    futures.get(i).get().getProperties());
+        }
+        Assert.assertEquals("latin1", futures.get(0).get().getProperties().get("charset").getSourceValue());
+
+        /* The directories without any .editorconfig file are remembered */
+        cache.existsCount.set(0);
+        service.queryPropertiesAsync(tree.getResource("root/src/main/Bar.java")).get();
+        Assert.assertEquals(2, cache.existsCount.get());
+    }
+
+    @Test
+    public void queryPropertiesAsyncRejected() throws InterruptedException {
+        final Resource file = deepTree().getResource("root/a/b/c/d/file0.txt");
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final CompletableFuture<ResourceProperties> future = ResourcePropertiesService.default_()
+                .queryPropertiesAsync(file, executor);
+        try {
+            future.get();
+            Assert.fail(ExecutionException.class.getSimpleName() + " expected");
+        } catch (ExecutionException expected) {
+            Assert.assertTrue(expected.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void queryPropertiesConcurrently() throws IOException {
+        final StringResourceTree.Builder builder = StringResourceTree.builder() //
+                .resource("root/.editorconfig", "root = true\n[*]\nindent_size = 3\n[*.java]\ntab_width = 4\n") //
+                .resource("root/src/.editorconfig", "[Foo.java]\ncharset = latin1\n");
+        final List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            builder.touch("root/src/File" + i + ".java").touch("root/a/b/file" + i + ".txt");
+        }
+        builder.touch("root/src/Foo.java");
+        final StringResourceTree tree = builder.build();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            resources.add(tree.getResource("root/src/File" + i + ".java"));
+            resources.add(tree.getResource("root/a/b/file" + i + ".txt"));
+        }
+        resources.add(tree.getResource("root/src/Foo.java"));
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .cache(Caches.bounded(16)) //
+                .cacheLookups(true) //
+                .build();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final Map<Resource, ResourceProperties> pooled;
+        try {
+            pooled = service.queryProperties(resources, executor);
+        } finally {
+            executor.shutdown();
+        }
+        /* Falls back to the batch query on Java versions without virtual threads */
+        final Map<Resource, ResourceProperties> virtual = service.queryPropertiesOnVirtualThreads(resources);
+        Assert.assertEquals(resources, new ArrayList<>(pooled.keySet()));
+        Assert.assertEquals(resources, new ArrayList<>(virtual.keySet()));
+        for (Resource resource : resources) {
+            final Map<String, Property> expected = service.queryProperties(resource).getProperties();
+            Assert.assertEquals(resource.toString(), expected, pooled.get(resource).getProperties());
+            Assert.assertEquals(resource.toString(), expected, virtual.get(resource).getProperties());
+        }
+        Assert.assertEquals("latin1", pooled.get(tree.getResource("root/src/Foo.java")).getProperties()
+                .get("charset").getSourceValue());
+    }
+
+    @Test
+    public void queryPropertiesIterator() throws IOException {
+        final StringResourceTree tree = deepTree();
+        final List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            resources.add(tree.getResource("root/a/b/c/d/file" + i + ".txt"));
+        }
+        final AtomicInteger pulled = new AtomicInteger();
+        final Iterator<Resource> source = new Iterator<Resource>() {
+            private final Iterator<Resource> delegate = resources.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public Resource next() {
+                pulled.incrementAndGet();
+                return delegate.next();
+            }
+        };
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .cache(Caches.concurrent()) //
+                .cacheLookups(true) //
+                .build();
+        final int window = 3;
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Iterator<Map.Entry<Resource, ResourceProperties>> results = service.queryProperties(source,
+                    executor, window);
+            Assert.assertEquals(0, pulled.get());
+            int consumed = 0;
+            while (results.hasNext()) {
+                final Map.Entry<Resource, ResourceProperties> entry = results.next();
+                /* The results come in order and no more than window resources are pulled ahead */
+                Assert.assertSame(resources.get(consumed), entry.getKey());
+                consumed++;
+                Assert.assertTrue(pulled.get() <= consumed + window);
+                Assert.assertEquals("3", entry.getValue().getProperties().get("indent_size").getSourceValue());
+            }
+            Assert.assertEquals(FILE_COUNT, consumed);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void queryPropertiesExecutorRejected() {
+        final StringResourceTree tree = deepTree();
+        final List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            resources.add(tree.getResource("root/a/b/c/d/file" + i + ".txt"));
+        }
+        final List<Runnable> accepted = new ArrayList<>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (accepted.size() == 2) {
+                    throw new RejectedExecutionException();
+                }
+                accepted.add(command);
+            }
+        };
+        final CountingCache cache = new CountingCache();
+        try {
+            ResourcePropertiesService.builder().cache(cache).build().queryProperties(resources, executor);
+            Assert.fail(IOException.class.getSimpleName() + " expected");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getCause() instanceof RejectedExecutionException);
+        }
+        /* The queries accepted before were cancelled and do no work when they eventually run */
+        for (Runnable command : accepted) {
+            command.run();
+        }
+        Assert.assertEquals(0, cache.existsCount.get());
+    }
+
+    @Test
+    public void queryPropertiesIteratorRejected() throws IOException {
+        final StringResourceTree tree = deepTree();
+        final List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            resources.add(tree.getResource("root/a/b/c/d/file" + i + ".txt"));
+        }
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final Iterator<Map.Entry<Resource, ResourceProperties>> results = ResourcePropertiesService.default_()
+                .queryProperties(resources.iterator(), executor, 2);
+        for (Resource resource : resources) {
+            Assert.assertTrue(results.hasNext());
+            try {
+                results.next();
+                Assert.fail(RejectedExecutionException.class.getSimpleName() + " expected for " + resource);
+            } catch (RejectedExecutionException expected) {
+            }
+        }
+        Assert.assertFalse(results.hasNext());
+    }
+
+    @Test
+    public void shareResults() throws IOException {
+        final StringResourceTree tree = StringResourceTree.builder() //
+                .resource("root/.editorconfig", "root = true\n[*]\nindent_size = 3\n[*.java]\ntab_width = 4\n") //
+                .resource("root/src/.editorconfig", "[Foo.java]\ncharset = latin1\n") //
+                .touch("root/src/Foo.java") //
+                .touch("root/src/Bar.java") //
+                .touch("root/src/Baz.java") //
+                .touch("root/src/README.txt") //
+                .touch("root/other/Bar.java") //
+                .build();
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .shareResults(true) //
+                .build();
+
+        final ResourceProperties foo = service.queryProperties(tree.getResource("root/src/Foo.java"));
+        final ResourceProperties bar = service.queryProperties(tree.getResource("root/src/Bar.java"));
+        final ResourceProperties baz = service.queryProperties(tree.getResource("root/src/Baz.java"));
+        final ResourceProperties readme = service.queryProperties(tree.getResource("root/src/README.txt"));
+        final ResourceProperties otherBar = service.queryProperties(tree.getResource("root/other/Bar.java"));
+
+        Assert.assertSame(bar, baz);
+        Assert.assertNotSame(foo, bar);
+        Assert.assertNotSame(bar, readme);
+        Assert.assertNotSame(bar, otherBar);
+
+        Assert.assertEquals("latin1", foo.getProperties().get("charset").getSourceValue());
+        Assert.assertEquals("3", foo.getProperties().get("indent_size").getSourceValue());
+        Assert.assertEquals("4", foo.getProperties().get("tab_width").getSourceValue());
+        Assert.assertEquals("3", bar.getProperties().get("indent_size").getSourceValue());
+        Assert.assertEquals("4", bar.getProperties().get("tab_width").getSourceValue());
+        Assert.assertEquals("3", readme.getProperties().get("indent_size").getSourceValue());
+        Assert.assertEquals("3", readme.getProperties().get("tab_width").getSourceValue());
+        Assert.assertEquals(2, bar.getEditorConfigFiles().size());
+        Assert.assertEquals(1, otherBar.getEditorConfigFiles().size());
+    }
+
+    @Test
+    public void noCacheLookups() throws IOException {
+        final StringResourceTree tree = deepTree();
+        final CountingCache cache = new CountingCache();
+        final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                .cache(cache) //
+                .build();
+
+        queryAll(service, tree);
+        Assert.assertEquals(5 * FILE_COUNT, cache.existsCount.get());
+    }
+
+}
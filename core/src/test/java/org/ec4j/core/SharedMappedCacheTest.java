@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.ec4j.core.Cache.Caches;
+import org.ec4j.core.Resource.Resources;
+import org.ec4j.core.SnapshotCacheTest.CountingLoader;
+import org.ec4j.core.model.EditorConfig;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SharedMappedCacheTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private static void write(Path file, String content, long lastModified) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+    }
+
+    @Test
+    public void corruptedStore() throws IOException {
+        final Path root = tempDir.getRoot().toPath();
+        final Path storeFile = root.resolve("store.bin");
+        final Path editorConfigFile = root.resolve(".editorconfig");
+        write(editorConfigFile, "[*]\nindent_size = 4\n", 1000000L);
+        final Resource resource = Resources.ofPath(editorConfigFile, StandardCharsets.UTF_8);
+
+        Files.write(storeFile, new byte[] { 0x45, 0x43, 0x34, 0x4d, 0, 0, 0, 1, 0, 0, 0, 5, 1, 2 });
+        try (SharedMappedCache cache = Caches.sharedMapped(storeFile)) {
+            final CountingLoader loader = new CountingLoader();
+            Assert.assertEquals("[*]\nindent_size = 4\ntab_width = 4", cache.get(resource, loader).toString());
+            Assert.assertEquals(1, loader.loadCount.get());
+        }
+        try (SharedMappedCache cache = Caches.sharedMapped(storeFile)) {
+            final CountingLoader loader = new CountingLoader();
+            Assert.assertEquals("[*]\nindent_size = 4\ntab_width = 4", cache.get(resource, loader).toString());
+            Assert.assertEquals(0, loader.loadCount.get());
+        }
+    }
+
+    @Test
+    public void full() throws IOException {
+        final Path root = tempDir.getRoot().toPath();
+        final Path storeFile = root.resolve("store.bin");
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            content.append("[*.ext").append(i).append("]\nindent_size = ").append(i % 8 + 1).append('\n');
+        }
+        final Resource[] resources = new Resource[4];
+        for (int i = 0; i < resources.length; i++) {
+            final Path dir = Files.createDirectories(root.resolve("dir" + i));
+            final Path editorConfigFile = dir.resolve(".editorconfig");
+            write(editorConfigFile, content.toString(), 1000000L);
+            resources[i] = Resources.ofPath(editorConfigFile, StandardCharsets.UTF_8);
+        }
+        /* The minimal capacity of 64 KiB is enough for two but not all four files */
+        try (SharedMappedCache cache = Caches.sharedMapped(storeFile, 0, PropertyTypeRegistry.default_())) {
+            final CountingLoader loader = new CountingLoader();
+            for (Resource resource : resources) {
+                cache.get(resource, loader);
+            }
+            Assert.assertEquals(4, loader.loadCount.get());
+            /* The third file did not fit, so the store started over */
+            Assert.assertEquals(1, cache.getResetCount());
+        }
+        Assert.assertEquals(64 * 1024, Files.size(storeFile));
+        try (SharedMappedCache cache = Caches.sharedMapped(storeFile)) {
+            final CountingLoader loader = new CountingLoader();
+            /* Only the last two files are in the store */
+            Assert.assertEquals(400, cache.get(resources[2], loader).getSections().size());
+            Assert.assertEquals(400, cache.get(resources[3], loader).getSections().size());
+            Assert.assertEquals(0, loader.loadCount.get());
+            Assert.assertEquals(400, cache.get(resources[0], loader).getSections().size());
+            Assert.assertEquals(1, loader.loadCount.get());
+            /* Storing the first file started the full store over again */
+            Assert.assertEquals(1, cache.getResetCount());
+        }
+    }
+
+    @Test
+    public void shared() throws IOException {
+        final Path root = tempDir.getRoot().toPath();
+        final Path storeFile = root.resolve("store.bin");
+        final Path editorConfigFile = root.resolve(".editorconfig");
+        final Path otherEditorConfigFile = Files.createDirectories(root.resolve("sub")).resolve(".editorconfig");
+        write(editorConfigFile, "root = true\n\n[*.{java,js}]\nindent_size = 4\n", 1000000L);
+        write(otherEditorConfigFile, "[Makefile]\nindent_style = tab\n", 1000000L);
+        final Resource resource = Resources.ofPath(editorConfigFile, StandardCharsets.UTF_8);
+        final Resource otherResource = Resources.ofPath(otherEditorConfigFile, StandardCharsets.UTF_8);
+
+        /* Two caches standing for two processes */
+        try (SharedMappedCache cache1 = Caches.sharedMapped(storeFile);
+                SharedMappedCache cache2 = Caches.sharedMapped(storeFile)) {
+            final CountingLoader loader1 = new CountingLoader();
+            final EditorConfig expected = cache1.get(resource, loader1);
+            Assert.assertSame(expected, cache1.get(resource, loader1));
+            Assert.assertEquals(1, loader1.loadCount.get());
+
+            final CountingLoader loader2 = new CountingLoader();
+            final EditorConfig actual = cache2.get(resource, loader2);
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(expected.toString(), actual.toString());
+            Assert.assertEquals(0, loader2.loadCount.get());
+
+            cache2.get(otherResource, loader2);
+            Assert.assertEquals(1, loader2.loadCount.get());
+            Assert.assertEquals("[Makefile]\nindent_style = tab\nindent_size = tab",
+                    cache1.get(otherResource, loader1).toString());
+            Assert.assertEquals(1, loader1.loadCount.get());
+
+            /* A changed file is reloaded and the new record supersedes the old one */
+            write(otherEditorConfigFile, "[Makefile]\nindent_style = space\n", 2000000L);
+            Assert.assertEquals("[Makefile]\nindent_style = space", cache1.get(otherResource, loader1).toString());
+            Assert.assertEquals(2, loader1.loadCount.get());
+            Assert.assertEquals("[Makefile]\nindent_style = space", cache2.get(otherResource, loader2).toString());
+            Assert.assertEquals(1, loader2.loadCount.get());
+        }
+
+        try (SharedMappedCache cache = Caches.sharedMapped(storeFile)) {
+            final CountingLoader loader = new CountingLoader();
+            Assert.assertEquals("[Makefile]\nindent_style = space", cache.get(otherResource, loader).toString());
+            cache.get(resource, loader);
+            Assert.assertEquals(0, loader.loadCount.get());
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ec4j.core.Cache.Caches;
+import org.ec4j.core.Resource.Resources;
+import org.ec4j.core.model.EditorConfig;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SnapshotCacheTest {
+
+    /**
+     * An {@link EditorConfigLoader} counting the {@link #load(Resource)} invocations.
+     */
+    static class CountingLoader extends EditorConfigLoader {
+        final AtomicInteger loadCount = new AtomicInteger();
+
+        CountingLoader() {
+            super(PropertyTypeRegistry.default_(), org.ec4j.core.model.Version.CURRENT,
+                    org.ec4j.core.parser.ErrorHandler.THROW_SYNTAX_ERRORS_IGNORE_OTHERS);
+        }
+
+        @Override
+        public EditorConfig load(Resource configFile) throws IOException {
+            loadCount.incrementAndGet();
+            return super.load(configFile);
+        }
+    }
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private static void write(Path file, String content, long lastModified) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+    }
+
+    @Test
+    public void reuseSnapshot() throws IOException {
+        final Path root = tempDir.getRoot().toPath();
+        final Path snapshotFile = root.resolve("snapshot.bin");
+        final Path editorConfigFile = root.resolve(".editorconfig");
+        final Path otherEditorConfigFile = Files.createDirectories(root.resolve("sub")).resolve(".editorconfig");
+        write(editorConfigFile, "root = true\n\n[*.{java,js}]\nindent_size = 4\n", 1000000L);
+        write(otherEditorConfigFile, "[Makefile]\nindent_style = tab\n", 1000000L);
+        final Resource resource = Resources.ofPath(editorConfigFile, StandardCharsets.UTF_8);
+        final Resource otherResource = Resources.ofPath(otherEditorConfigFile, StandardCharsets.UTF_8);
+
+        final EditorConfig expected;
+        final EditorConfig otherExpected;
+        try (SnapshotCache cache = Caches.snapshot(snapshotFile)) {
+            final CountingLoader loader = new CountingLoader();
+            expected = cache.get(resource, loader);
+            Assert.assertSame(expected, cache.get(resource, loader));
+            otherExpected = cache.get(otherResource, loader);
+            Assert.assertEquals(2, loader.loadCount.get());
+        }
+        Assert.assertTrue(Files.exists(snapshotFile));
+
+        /* A new cache, e.g. in a new JVM */
+        try (SnapshotCache cache = Caches.snapshot(snapshotFile)) {
+            final CountingLoader loader = new CountingLoader();
+            final EditorConfig actual = cache.get(resource, loader);
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(expected.toString(), actual.toString());
+            Assert.assertEquals(0, loader.loadCount.get());
+
+            /* Change the other file: it must be reloaded */
+            write(otherEditorConfigFile, "[Makefile]\nindent_style = space\n", 2000000L);
+            final EditorConfig otherActual = cache.get(otherResource, loader);
+            Assert.assertNotEquals(otherExpected, otherActual);
+            Assert.assertEquals("[Makefile]\nindent_style = space", otherActual.toString());
+            Assert.assertEquals(1, loader.loadCount.get());
+        }
+
+        /* The third cache sees the reloaded file and the untouched entry copied over from the first snapshot */
+        try (SnapshotCache cache = Caches.snapshot(snapshotFile)) {
+            final CountingLoader loader = new CountingLoader();
+            Assert.assertEquals(expected, cache.get(resource, loader));
+            Assert.assertEquals("[Makefile]\nindent_style = space", cache.get(otherResource, loader).toString());
+            Assert.assertEquals(0, loader.loadCount.get());
+
+            cache.invalidate(resource);
+            Assert.assertEquals(expected, cache.get(resource, loader));
+            Assert.assertEquals(1, loader.loadCount.get());
+        }
+    }
+
+    @Test
+    public void changedContentSameMetadata() throws IOException {
+        final Path root = tempDir.getRoot().toPath();
+        final Path snapshotFile = root.resolve("snapshot.bin");
+        final Path editorConfigFile = root.resolve(".editorconfig");
+        write(editorConfigFile, "[*]\nindent_size = 4\n", 1000000L);
+        final Resource resource = Resources.ofPath(editorConfigFile, StandardCharsets.UTF_8);
+        try (SnapshotCache cache = Caches.snapshot(snapshotFile)) {
+            cache.get(resource, new CountingLoader());
+        }
+
+        /* Same size, same time, but a different content */
+        write(editorConfigFile, "[*]\nindent_size = 8\n", 1000000L);
+        try (SnapshotCache cache = Caches.snapshot(snapshotFile)) {
+            final CountingLoader loader = new CountingLoader();
+            Assert.assertEquals("[*]\nindent_size = 8\ntab_width = 8", cache.get(resource, loader).toString());
+            Assert.assertEquals(1, loader.loadCount.get());
+        }
+
+        /* Touched only */
+        write(editorConfigFile, "[*]\nindent_size = 8\n", 2000000L);
+        try (SnapshotCache cache = Caches.snapshot(snapshotFile)) {
+            final CountingLoader loader = new CountingLoader();
+            Assert.assertEquals("[*]\nindent_size = 8\ntab_width = 8", cache.get(resource, loader).toString());
+            Assert.assertEquals(0, loader.loadCount.get());
+        }
+    }
+
+    @Test
+    public void corruptedSnapshot() throws IOException {
+        final Path root = tempDir.getRoot().toPath();
+        final Path snapshotFile = root.resolve("snapshot.bin");
+        final Path editorConfigFile = root.resolve(".editorconfig");
+        write(editorConfigFile, "[*]\nindent_size = 4\n", 1000000L);
+        final Resource resource = Resources.ofPath(editorConfigFile, StandardCharsets.UTF_8);
+
+        Files.write(snapshotFile, new byte[] { 0x45, 0x43, 0x34, 0x53, 0, 0, 0, 1, 0, 0, 0, 5, 1, 2 });
+        try (SnapshotCache cache = Caches.snapshot(snapshotFile)) {
+            final CountingLoader loader = new CountingLoader();
+            Assert.assertEquals("[*]\nindent_size = 4\ntab_width = 4", cache.get(resource, loader).toString());
+            Assert.assertEquals(1, loader.loadCount.get());
+        }
+        try (SnapshotCache cache = Caches.snapshot(snapshotFile)) {
+            final CountingLoader loader = new CountingLoader();
+            Assert.assertEquals("[*]\nindent_size = 4\ntab_width = 4", cache.get(resource, loader).toString());
+            Assert.assertEquals(0, loader.loadCount.get());
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.ec4j.core.Cache.Caches;
+import org.ec4j.core.Resource.Resources;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WatchingCacheTest {
+
+    private static final long TIMEOUT_MILLIS = 30000;
+
+    /**
+     * Queries the {@code indent_size} of the given {@code file} until it is equal to {@code expected} or until
+     * {@link #TIMEOUT_MILLIS} elapses.
+     */
+    private static void awaitIndentSize(ResourcePropertiesService service, Resource file, String expected)
+            throws IOException, InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        Object actual;
+        do {
+            actual = service.queryProperties(file).<Object> getValue("indent_size", null, false);
+            if (expected == null ? actual == null : expected.equals(String.valueOf(actual))) {
+                return;
+            }
+            Thread.sleep(20);
+        } while (System.currentTimeMillis() < deadline);
+        Assert.assertEquals(expected, actual == null ? null : String.valueOf(actual));
+    }
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    @Test
+    public void createModifyDelete() throws IOException, InterruptedException {
+        assertCreateModifyDelete(false);
+    }
+
+    @Test
+    public void createModifyDeleteCacheLookups() throws IOException, InterruptedException {
+        assertCreateModifyDelete(true);
+    }
+
+    @Test
+    public void maxDirectories() throws IOException {
+        final Path root = tempDir.getRoot().toPath().toRealPath();
+        final Path editorConfigFile1 = Files.createDirectories(root.resolve("dir1")).resolve(".editorconfig");
+        final Path editorConfigFile2 = Files.createDirectories(root.resolve("dir2")).resolve(".editorconfig");
+        Files.write(editorConfigFile1, "root = true\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(editorConfigFile2, "root = true\n".getBytes(StandardCharsets.UTF_8));
+        final Resource resource1 = Resources.ofPath(editorConfigFile1, StandardCharsets.UTF_8);
+        final Resource resource2 = Resources.ofPath(editorConfigFile2, StandardCharsets.UTF_8);
+
+        try (WatchingCache cache = Caches.watching(Caches.concurrent(), 1)) {
+            final List<Resource> invalidated = new CopyOnWriteArrayList<>();
+            cache.addInvalidationListener(new Cache.InvalidationListener() {
+                @Override
+                public void invalidated(Resource editorConfigFile) {
+                    invalidated.add(editorConfigFile);
+                }
+            });
+            Assert.assertTrue(cache.exists(resource1));
+            Assert.assertEquals(1, cache.getWatchedDirectoryCount());
+
+            /* dir1 is not watched anymore and its file is invalidated */
+            Assert.assertTrue(cache.exists(resource2));
+            Assert.assertEquals(1, cache.getWatchedDirectoryCount());
+            Assert.assertTrue(invalidated.contains(resource1));
+
+            /* Thus the result for dir1 is not remembered anymore */
+            Files.delete(editorConfigFile1);
+            Assert.assertFalse(cache.exists(resource1));
+            Assert.assertEquals(1, cache.getWatchedDirectoryCount());
+            Assert.assertTrue(invalidated.contains(resource2));
+        }
+    }
+
+    private void assertCreateModifyDelete(boolean cacheLookups) throws IOException, InterruptedException {
+        final Path root = tempDir.getRoot().toPath().toRealPath();
+        final Path dir = Files.createDirectories(root.resolve("dir"));
+        final Path editorConfigFile = root.resolve(".editorconfig");
+        final Resource file = Resources.ofPath(dir.resolve("file.txt"), StandardCharsets.UTF_8);
+
+        try (WatchingCache cache = Caches.watching(Caches.concurrent())) {
+            final ResourcePropertiesService service = ResourcePropertiesService.builder() //
+                    .cache(cache) //
+                    .cacheLookups(cacheLookups) //
+                    .rootDirectory(ResourcePath.ResourcePaths.ofPath(root, StandardCharsets.UTF_8)) //
+                    .build();
+            Assert.assertTrue(service.queryProperties(file).getProperties().isEmpty());
+
+            /* A newly created file gets noticed */
+            Files.write(editorConfigFile, "[*]\nindent_size = 2\n".getBytes(StandardCharsets.UTF_8));
+            awaitIndentSize(service, file, "2");
+
+            Files.write(editorConfigFile, "[*]\nindent_size = 4\n".getBytes(StandardCharsets.UTF_8));
+            awaitIndentSize(service, file, "4");
+
+            Files.delete(editorConfigFile);
+            awaitIndentSize(service, file, null);
+        }
+    }
+
+}
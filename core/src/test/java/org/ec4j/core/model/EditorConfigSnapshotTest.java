@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.ec4j.core.EditorConfigLoader;
+import org.ec4j.core.PropertyTypeRegistry;
+import org.ec4j.core.Resource.Resources;
+import org.ec4j.core.model.Ec4jPath.Ec4jPaths;
+import org.ec4j.core.parser.EditorConfigModelHandler;
+import org.ec4j.core.parser.ErrorHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EditorConfigSnapshotTest {
+
+    private static final String CONTENT = "root = true\n" //
+            + "\n" //
+            + "[*]\n" //
+            + "end_of_line = lf\n" //
+            + "indent_size = 4\n" //
+            + "custom_property = Custom Value\n" //
+            + "\n" //
+            + "[*.{js,py}]\n" //
+            + "charset = utf-8\n" //
+            + "indent_size = invalid\n" //
+            + "\n" //
+            + "[src/**/*.java]\n" //
+            + "indent_style = tab\n" //
+            + "\n" //
+            + "[{1..3}.txt]\n" //
+            + "insert_final_newline = true\n" //
+            + "\n" //
+            + "[[]a].c]\n" //
+            + "trim_trailing_whitespace = unset\n" //
+            + "\n" //
+            + "[Makefile]\n" //
+            + "indent_style = tab\n" //
+            + "\n" //
+            + "[čeština/*.txt]\n" //
+            + "charset = latin1\n";
+
+    private static final String[] PATHS = { "Makefile", "a/Makefile", "Foo.java", "src/Foo.java",
+            "src/main/java/Foo.java", "x.js", "x.py", "x.ts", "2.txt", "4.txt", "a.c", "].c", "čeština/a.txt",
+            "čeština/b/a.txt", "x" };
+
+    private static EditorConfig load() throws IOException {
+        return EditorConfigLoader.of(Version.CURRENT, PropertyTypeRegistry.default_(), ErrorHandler.IGNORING)
+                .load(Resources.ofString(".editorconfig", CONTENT));
+    }
+
+    private static EditorConfig load(final Glob.Engine engine) throws IOException {
+        final GlobCache globCache = new GlobCache(64, new GlobCache.Compiler() {
+            @Override
+            public Glob compile(String source) {
+                return new Glob(source, engine);
+            }
+        });
+        final EditorConfigModelHandler handler = new EditorConfigModelHandler(PropertyTypeRegistry.default_(),
+                Version.CURRENT, false, new Interner(globCache));
+        return new EditorConfigLoader(handler, ErrorHandler.IGNORING)
+                .load(Resources.ofString(".editorconfig", CONTENT));
+    }
+
+    private static void assertCorrupted(byte[] bytes) {
+        try {
+            EditorConfigSnapshot.read(ByteBuffer.wrap(bytes), PropertyTypeRegistry.default_());
+            Assert.fail(IOException.class.getSimpleName() + " expected");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage().startsWith("Corrupted EditorConfig snapshot"));
+        }
+    }
+
+    private static byte[] write(EditorConfig editorConfig) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            EditorConfigSnapshot.write(editorConfig, out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void assertSame(EditorConfig expected, EditorConfig actual) {
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.toString(), actual.toString());
+        Assert.assertEquals(expected.isRoot(), actual.isRoot());
+        Assert.assertEquals(expected.getVersion(), actual.getVersion());
+        final List<Section> expectedSections = expected.getSections();
+        final List<Section> actualSections = actual.getSections();
+        for (int i = 0; i < expectedSections.size(); i++) {
+            final Glob expectedGlob = expectedSections.get(i).getGlob();
+            final Glob actualGlob = actualSections.get(i).getGlob();
+            Assert.assertEquals(expectedGlob.getEngine(), actualGlob.getEngine());
+            Assert.assertEquals(expectedGlob.isValid(), actualGlob.isValid());
+            for (Property property : expectedSections.get(i).getProperties().values()) {
+                final Property actualProperty = actualSections.get(i).getProperties().get(property.getName());
+                Assert.assertEquals(property.getType(), actualProperty.getType());
+                Assert.assertEquals(property.isValid(), actualProperty.isValid());
+            }
+        }
+        for (String path : PATHS) {
+            final Ec4jPath ec4jPath = Ec4jPaths.of(path);
+            Assert.assertEquals(path, expected.matchSections(ec4jPath), actual.matchSections(ec4jPath));
+            for (int i = 0; i < expectedSections.size(); i++) {
+                Assert.assertEquals(path, expectedSections.get(i).match(ec4jPath),
+                        actualSections.get(i).match(ec4jPath));
+            }
+        }
+    }
+
+    @Test
+    public void corrupted() throws IOException {
+        final byte[] bytes = write(load());
+        try {
+            EditorConfigSnapshot.read(ByteBuffer.wrap(bytes, 0, bytes.length / 2), PropertyTypeRegistry.default_());
+            Assert.fail(IOException.class.getSimpleName() + " expected");
+        } catch (IOException expected) {
+        }
+        bytes[3]++;
+        try {
+            EditorConfigSnapshot.read(ByteBuffer.wrap(bytes), PropertyTypeRegistry.default_());
+            Assert.fail(IOException.class.getSimpleName() + " expected");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage().startsWith("Unsupported EditorConfig snapshot format version"));
+        }
+    }
+
+    @Test
+    public void corruptedAutomaton() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            new Glob("*.java", Glob.Engine.AUTOMATON).getAutomaton().write(out);
+        }
+        final ByteBuffer valid = ByteBuffer.wrap(bytes.toByteArray());
+        Assert.assertTrue(GlobAutomaton.read(valid, 1).matches("Foo.java", 0, 8));
+        /* The last transition points to a nonexistent state */
+        final ByteBuffer invalid = ByteBuffer.wrap(bytes.toByteArray());
+        invalid.putInt(invalid.capacity() - 4, 1000);
+        try {
+            GlobAutomaton.read(invalid, 1);
+            Assert.fail(IOException.class.getSimpleName() + " expected");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage().contains("state index out of range"));
+        }
+        try {
+            GlobAutomaton.read(ByteBuffer.wrap(bytes.toByteArray()), 0);
+            Assert.fail(IOException.class.getSimpleName() + " expected");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage().contains("pattern index out of range"));
+        }
+    }
+
+    @Test
+    public void corruptedLengths() throws IOException {
+        final byte[] bytes = write(load(Glob.Engine.AUTOMATON));
+        /* The length of the version string right after the format version and the root flag */
+        final byte[] hugeString = bytes.clone();
+        ByteBuffer.wrap(hugeString).putInt(5, Integer.MAX_VALUE);
+        assertCorrupted(hugeString);
+        /* The section count right after the version string */
+        final byte[] hugeCount = bytes.clone();
+        final int versionLength = ByteBuffer.wrap(bytes).getInt(5);
+        ByteBuffer.wrap(hugeCount).putInt(9 + versionLength, Integer.MAX_VALUE);
+        assertCorrupted(hugeCount);
+        final byte[] negativeCount = bytes.clone();
+        ByteBuffer.wrap(negativeCount).putInt(9 + versionLength, -2);
+        assertCorrupted(negativeCount);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        for (Glob.Engine engine : Glob.Engine.values()) {
+            roundTrip(load(engine), engine);
+        }
+    }
+
+    private static void roundTrip(EditorConfig expected, Glob.Engine engine) throws IOException {
+        Assert.assertEquals(Glob.Engine.REGEX, expected.getSections().get(4).getGlob().getEngine());
+        final byte[] bytes = write(expected);
+
+        final ByteBuffer heap = ByteBuffer.wrap(bytes);
+        final EditorConfig fromHeap = EditorConfigSnapshot.read(heap, PropertyTypeRegistry.default_());
+        Assert.assertFalse(heap.hasRemaining());
+        /* Only the AUTOMATON Globs get a union, the REGEX ones are bucketed */
+        Assert.assertEquals(engine == Glob.Engine.AUTOMATON, fromHeap.getSectionIndex().getUnion() != null);
+        assertSame(expected, fromHeap);
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertSame(expected, EditorConfigSnapshot.read(direct, PropertyTypeRegistry.default_()));
+
+        /* Writing a deserialized EditorConfig again yields the same bytes */
+        Assert.assertArrayEquals(bytes, write(fromHeap));
+    }
+
+    @Test
+    public void roundTripEmpty() throws IOException {
+        final EditorConfig expected = EditorConfig.builder().build();
+        assertSame(expected, EditorConfigSnapshot.read(ByteBuffer.wrap(write(expected)),
+                PropertyTypeRegistry.default_()));
+    }
+
+}
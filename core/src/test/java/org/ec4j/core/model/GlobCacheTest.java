@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GlobCacheTest {
+
+    /**
+     * A {@link GlobCache.Compiler} counting the compiled {@link Glob}s.
+     */
+    static class CountingCompiler implements GlobCache.Compiler {
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Glob compile(String source) {
+            count.incrementAndGet();
+            return new Glob(source);
+        }
+    }
+
+    @Test
+    public void bounded() {
+        final CountingCompiler compiler = new CountingCompiler();
+        final GlobCache cache = new GlobCache(20, compiler);
+        for (int i = 0; i < 100; i++) {
+            cache.get("*.ext" + i);
+            Assert.assertTrue(cache.size() <= 20);
+        }
+        Assert.assertEquals(100, compiler.count.get());
+        Assert.assertTrue(String.valueOf(cache.size()), cache.size() > 0);
+
+        final GlobCache single = new GlobCache(1, compiler);
+        final Glob glob = single.get("*.java");
+        Assert.assertSame(glob, single.get("*.java"));
+        single.get("*.md");
+        Assert.assertEquals(1, single.size());
+        Assert.assertNotSame(glob, single.get("*.java"));
+    }
+
+    @Test
+    public void get() {
+        final CountingCompiler compiler = new CountingCompiler();
+        final GlobCache cache = new GlobCache(16, compiler);
+        final Glob glob = cache.get("*.{js,ts}");
+        Assert.assertEquals("*.{js,ts}", glob.getSource());
+        Assert.assertTrue(glob.match("src/index.ts"));
+        Assert.assertSame(glob, cache.get("*.{js,ts}"));
+        Assert.assertEquals(1, compiler.count.get());
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNotSame(glob, cache.get("*.{js,ts}"));
+        Assert.assertEquals(2, compiler.count.get());
+    }
+
+    @Test
+    public void interner() {
+        final CountingCompiler compiler = new CountingCompiler();
+        final GlobCache cache = new GlobCache(16, compiler);
+        final Glob glob = new Interner(cache).glob("Makefile");
+        /* A different Interner still gets the Glob compiled before */
+        Assert.assertSame(glob, new Interner(cache).glob("Makefile"));
+        Assert.assertEquals(1, compiler.count.get());
+    }
+
+}
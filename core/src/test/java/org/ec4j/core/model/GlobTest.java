@@ -22,6 +22,110 @@ import org.junit.Test;
 
 public class GlobTest {
 
+    private static final String[] GLOBS = { "*", "*.c", "a*e.c", "Bar/*", "**/z.c", "a/**/z.c", "**.c", "*.{c,h}",
+            "{a,b}.c", "{single}.b", "{}.c", "{,a}.c", "a{1..3}.c", "{3..120}", "{-3..3}.c", "{10..20}.txt", "[abc].c",
+            "[!abc].c", "[^abc].c", "[a-c].c", "[a-]x", "[-a]x", "a?c", "a\\*b", "\\[a\\]", "[a/b]", "{a,{b,c}}.d",
+            "**/{a,b,c}/**/*.{x,y,z}", "/top.c", "a/**/b/**/c", "{{a,b}", "{a,b}}", "a\\#b", "\u4e2d\u6587.txt",
+            "{word,{also},this}.g", "[\\]]", "a\\\\b", "{.,}c", "{a..z}", "{0..0}", "***.c", "{2..1}" };
+
+    private static final String[] PATHS = { "a.c", "abe.c", "ae.c", "Bar/foo.txt", "z.c", "x/z.c", "a/z.c", "a/b/z.c",
+            "a/b/c/z.c", "x.c", "x.h", "b.c", "single.b", "{single}.b", "{}.c", ".c", "a1.c", "a4.c", "a01.c", "3",
+            "120", "121", "02", "0.c", "1.c", "-1.c", "3.c", "10.txt", "20.txt", "21.txt", "9.txt", "d.c", "ax", "-x",
+            "abc", "a\nc", "a\u2028c", "a*b", "axb", "[a]", "a/b", "a.d", "b.d", "c.d", "q/a/w/e.z", "a/b/e.x",
+            "top.c", "a/b/c", "a/x/b/y/c", "[x", "]", "a", "a#b", "\u4e2d\u6587.txt", "word.g", "also.g", "{also}.g",
+            "this.g", "a\\b", "c", "q", "0", "1", "abc.c", "y/x.c", "\ud83d\ude00.c" };
+
+    @Test
+    public void automaton() {
+        for (String source : GLOBS) {
+            final Glob regex = new Glob(source, Glob.Engine.REGEX);
+            final Glob automaton = new Glob(source, Glob.Engine.AUTOMATON);
+            Assert.assertEquals(source, Glob.Engine.REGEX, regex.getEngine());
+            Assert.assertEquals(source, Glob.Engine.AUTOMATON, automaton.getEngine());
+            for (String path : PATHS) {
+                Assert.assertEquals(source + " vs. " + path, regex.match(Ec4jPaths.of(path)),
+                        automaton.match(Ec4jPaths.of(path)));
+            }
+        }
+    }
+
+    @Test
+    public void matchRegions() {
+        for (Glob.Engine engine : Glob.Engine.values()) {
+            for (String source : GLOBS) {
+                final Glob glob = new Glob(source, engine);
+                for (String path : PATHS) {
+                    final boolean expected = glob.match(Ec4jPaths.of(path));
+                    final String message = engine + ": " + source + " vs. " + path;
+                    Assert.assertEquals(message, expected, glob.match(path));
+                    Assert.assertEquals(message, expected, glob.match(new StringBuilder(path)));
+                    final String padded = "xy/" + path + "/z";
+                    Assert.assertEquals(message, expected, glob.match(padded, 3, padded.length() - 2));
+                    final char[] chars = padded.toCharArray();
+                    Assert.assertEquals(message, expected, glob.match(chars, 3, path.length()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void matchManyRegexGlobs() {
+        /* More Globs than the per thread Matcher cache slots, so that they evict each other */
+        final Glob[] globs = new Glob[100];
+        for (int i = 0; i < globs.length; i++) {
+            globs[i] = new Glob("file" + i + ".txt", Glob.Engine.REGEX);
+        }
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < globs.length; i++) {
+                Assert.assertTrue(globs[i].match("file" + i + ".txt"));
+                Assert.assertFalse(globs[i].match("file" + (i + 1) + ".txt"));
+            }
+        }
+    }
+
+    @Test
+    public void automatonFallback() {
+        /* Glob does not escape the ] right after [ and the automaton does not support the resulting regex */
+        final Glob glob = new Glob("[]a]", Glob.Engine.AUTOMATON);
+        Assert.assertEquals(Glob.Engine.REGEX, glob.getEngine());
+        final Glob regex = new Glob("[]a]", Glob.Engine.REGEX);
+        for (String path : new String[] { "]", "a", "]a]", "b" }) {
+            Assert.assertEquals(path, regex.match(Ec4jPaths.of(path)), glob.match(Ec4jPaths.of(path)));
+        }
+    }
+
+    @Test
+    public void automatonNumericRange() {
+        final Glob glob = new Glob("file{3..120}.txt", Glob.Engine.AUTOMATON);
+        Assert.assertEquals(Glob.Engine.AUTOMATON, glob.getEngine());
+        for (String matching : new String[] { "3", "9", "10", "50", "99", "100", "119", "120" }) {
+            Assert.assertTrue(matching, glob.match(Ec4jPaths.of("file" + matching + ".txt")));
+        }
+        for (String nonMatching : new String[] { "", "0", "2", "03", "121", "200", "1000", "-5", "x" }) {
+            Assert.assertFalse(nonMatching, glob.match(Ec4jPaths.of("file" + nonMatching + ".txt")));
+        }
+    }
+
+    @Test
+    public void automatonNumericRangeInAlternative() {
+        /* The regex engine rejects the paths where the range group did not participate in the match */
+        final Glob glob = new Glob("{a,b{1..3}}.x", Glob.Engine.AUTOMATON);
+        Assert.assertTrue(glob.match(Ec4jPaths.of("a.x")));
+        Assert.assertTrue(glob.match(Ec4jPaths.of("b2.x")));
+        Assert.assertFalse(glob.match(Ec4jPaths.of("b4.x")));
+        Assert.assertFalse(new Glob("{a,b{1..3}}.x", Glob.Engine.REGEX).match(Ec4jPaths.of("a.x")));
+    }
+
+    @Test
+    public void engineDefault() {
+        Assert.assertEquals(Glob.Engine.REGEX, new Glob("*.java").getEngine());
+        Assert.assertEquals(Glob.Engine.AUTOMATON, Glob.Engine.parse(" automaton ", Glob.Engine.REGEX));
+        Assert.assertEquals(Glob.Engine.REGEX, Glob.Engine.parse("Regex", Glob.Engine.AUTOMATON));
+        /* Unknown values fall back to the default instead of failing */
+        Assert.assertEquals(Glob.Engine.REGEX, Glob.Engine.parse("dfa", Glob.Engine.REGEX));
+        Assert.assertEquals(Glob.Engine.REGEX, Glob.Engine.parse(null, Glob.Engine.REGEX));
+    }
+
     @Test
     public void braces_alpha_range1() {
         Glob glob = new Glob("{aardvark..antelope}");
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.model;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+
+import org.ec4j.core.EditorConfigLoader;
+import org.ec4j.core.PropertyTypeRegistry;
+import org.ec4j.core.Resource;
+import org.ec4j.core.Resource.Resources;
+import org.ec4j.core.model.PropertyType.PropertyValue;
+import org.ec4j.core.parser.EditorConfigModelHandler;
+import org.ec4j.core.parser.ErrorHandler;
+import org.ec4j.core.parser.LocationAwareModelHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InternerTest {
+
+    private static Property property(EditorConfig editorConfig, int section, String name) {
+        return editorConfig.getSections().get(section).getProperties().get(name);
+    }
+
+    @Test
+    public void shared() throws IOException {
+        final Interner interner = new Interner();
+        final EditorConfigLoader loader = new EditorConfigLoader(
+                new EditorConfigModelHandler(PropertyTypeRegistry.default_(), Version.CURRENT, false, interner),
+                ErrorHandler.THROW_SYNTAX_ERRORS_IGNORE_OTHERS);
+        final Resource resource1 = Resources.ofString("/a/.editorconfig",
+                "[*.java]\nindent_style = space\nindent_size = 4\ncustom = x\n");
+        final Resource resource2 = Resources.ofString("/b/.editorconfig",
+                "[*.java]\nindent_style = space\nindent_size = 2\ncustom = x\n\n[*.md]\nindent_style = space\n");
+        final EditorConfig ec1 = loader.load(resource1);
+        final EditorConfig ec2 = loader.load(resource2);
+
+        Assert.assertSame(ec1.getSections().get(0).getGlob(), ec2.getSections().get(0).getGlob());
+        Assert.assertSame(property(ec1, 0, "indent_style"), property(ec2, 0, "indent_style"));
+        Assert.assertSame(property(ec1, 0, "indent_style"), property(ec2, 1, "indent_style"));
+        Assert.assertSame(property(ec1, 0, "custom"), property(ec2, 0, "custom"));
+        Assert.assertNotSame(property(ec1, 0, "indent_size"), property(ec2, 0, "indent_size"));
+        /* tab_width added by Section.Builder.applyDefaults() */
+        Assert.assertEquals("4", property(ec1, 0, "tab_width").getSourceValue());
+        Assert.assertSame(property(ec1, 0, "tab_width").getValue(), interner.value(PropertyType.tab_width, "4", false));
+
+        /* The sharing is invisible for equals() */
+        final EditorConfig uninterned = new EditorConfigLoader(
+                new EditorConfigModelHandler(PropertyTypeRegistry.default_(), Version.CURRENT, false, null),
+                ErrorHandler.THROW_SYNTAX_ERRORS_IGNORE_OTHERS).load(resource2);
+        Assert.assertEquals(uninterned, ec2);
+        Assert.assertNotSame(uninterned.getSections().get(0).getGlob(), ec2.getSections().get(0).getGlob());
+
+        /* Lazy values are interned separately and they stay unparsed */
+        final PropertyValue<Integer> lazy = interner.value(PropertyType.indent_size, "4", true);
+        Assert.assertSame(lazy, interner.value(PropertyType.indent_size, "4", true));
+        Assert.assertNotSame(lazy, interner.value(PropertyType.indent_size, "4", false));
+        Assert.assertEquals(Integer.valueOf(4), lazy.getParsed());
+    }
+
+    @Test
+    public void locationAware() throws IOException {
+        final Resource resource = Resources.ofString("/.editorconfig", "[*.java]\nindent_style = space\n");
+        final EditorConfigLoader loader = new EditorConfigLoader(
+                new LocationAwareModelHandler(PropertyTypeRegistry.default_(), Version.CURRENT,
+                        ErrorHandler.THROW_SYNTAX_ERRORS_IGNORE_OTHERS, new Interner()),
+                ErrorHandler.THROW_SYNTAX_ERRORS_IGNORE_OTHERS);
+        final EditorConfig ec1 = loader.load(resource);
+        final EditorConfig ec2 = loader.load(resource);
+        /* The properties having adapters are not shared */
+        Assert.assertNotSame(property(ec1, 0, "indent_style"), property(ec2, 0, "indent_style"));
+        Assert.assertSame(property(ec1, 0, "indent_style").getValue(), property(ec2, 0, "indent_style").getValue());
+        Assert.assertSame(ec1.getSections().get(0), property(ec1, 0, "indent_style").getAdapter(Section.class));
+    }
+
+    @Test
+    public void sharedByLoaderOnly() throws IOException {
+        final Resource resource = Resources.ofString("/.editorconfig", "[*.interned]\nindent_style = space\n");
+        final EditorConfig ec1 = EditorConfigLoader.default_().load(resource);
+        final EditorConfig ec2 = EditorConfigLoader.default_().load(resource);
+        Assert.assertSame(ec1.getSections().get(0).getGlob(), ec2.getSections().get(0).getGlob());
+
+        /* A handler created without any Interner does not share anything */
+        final EditorConfigLoader loader = new EditorConfigLoader(
+                new EditorConfigModelHandler(PropertyTypeRegistry.default_(), Version.CURRENT),
+                ErrorHandler.THROW_SYNTAX_ERRORS_IGNORE_OTHERS);
+        final EditorConfig ec3 = loader.load(resource);
+        Assert.assertEquals(ec1, ec3);
+        Assert.assertNotSame(ec1.getSections().get(0).getGlob(), ec3.getSections().get(0).getGlob());
+        Assert.assertNotSame(property(ec1, 0, "indent_style"), property(ec3, 0, "indent_style"));
+    }
+
+    @Test
+    public void weak() throws InterruptedException {
+        final GlobCache globCache = new GlobCache(16, GlobCache.DEFAULT_COMPILER);
+        final Interner interner = new Interner(globCache);
+        Glob glob = interner.glob("*.weak");
+        final WeakReference<Glob> ref = new WeakReference<>(glob);
+        Assert.assertSame(glob, interner.glob("*.weak"));
+        Assert.assertEquals(1, interner.globs.size());
+        glob = null;
+        /* The GlobCache references the Glob strongly */
+        globCache.clear();
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+        }
+        Assert.assertNull(ref.get());
+        /* The cleared reference gets enqueued asynchronously */
+        for (int i = 0; i < 100 && interner.globs.size() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, interner.globs.size());
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.ec4j.core.model.Ec4jPath.Ec4jPaths;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SectionIndexTest {
+
+    private static final String[] GLOBS = { "*", "Makefile", "*.java", "*.{js,ts}", "*.{c}", "*.tar.gz", "*.",
+            "*.{a,}", "src/**/*.java", "/src/*.c", "/top.c", "src/main", "**/test/**", "{a,b}/x", "[ab].c", "*.c/d",
+            "a\\#b", "Bar/*", "x/**", "**.md", "README.*", "*.{js,py}", "//a", "😀.c", "{1..3}.txt", "a?c" };
+
+    private static final String[] PATHS = { "Makefile", "a/Makefile", "Makefile.in", "Foo.java", "src/Foo.java",
+            "src/main/java/Foo.java", "x.js", "x.ts", "x.tsx", "x.{c}", "x.c", "a.tar.gz", "a.gz", "a.", "a.a", "top.c",
+            "src/top.c", "src/x.c", "src/main", "test/a", "a/test/b", "a/x", "b/x", "c/x", "a.c", "x/y.c", "x/d",
+            "a#b", "Bar/foo.txt", "x/y/z", "doc/README.md", "README.txt", "x.py", "a", "😀.c", "2.txt",
+            "abc", ".java", "src" };
+
+    private static EditorConfig editorConfig() {
+        return editorConfig(Glob.Engine.AUTOMATON);
+    }
+
+    private static EditorConfig editorConfig(Glob.Engine engine) {
+        final EditorConfig.Builder builder = EditorConfig.builder();
+        for (String glob : GLOBS) {
+            builder.openSection().glob(new Glob(glob, engine)).closeSection();
+        }
+        /* A null Glob matches all */
+        builder.openSection().closeSection();
+        /* A Glob evaluated separately */
+        builder.openSection().glob(new Glob("*.java", Glob.Engine.REGEX)).closeSection();
+        return builder.build();
+    }
+
+    private static void assertMatches(List<Section> sections, SectionIndex index) {
+        for (String path : PATHS) {
+            final Ec4jPath ec4jPath = Ec4jPaths.of(path);
+            final BitSet expected = new BitSet();
+            for (int i = 0; i < sections.size(); i++) {
+                if (sections.get(i).match(ec4jPath)) {
+                    expected.set(i);
+                }
+            }
+            final BitSet actual = new BitSet();
+            index.match(path, actual, 0);
+            Assert.assertEquals(path, expected, actual);
+
+            final BitSet shifted = new BitSet();
+            index.match(path, shifted, 5);
+            Assert.assertEquals(path, expected, shifted.get(5, 5 + sections.size()));
+            Assert.assertEquals(path, expected.cardinality(), shifted.cardinality());
+        }
+    }
+
+    @Test
+    public void buckets() {
+        final List<Section> sections = editorConfig().getSections();
+        assertMatches(sections, SectionIndex.ofBuckets(sections));
+    }
+
+    @Test
+    public void matchSections() {
+        final EditorConfig editorConfig = editorConfig();
+        final SectionIndex index = SectionIndex.ofBuckets(editorConfig.getSections());
+        for (String path : PATHS) {
+            final Ec4jPath ec4jPath = Ec4jPaths.of(path);
+            final BitSet expected = new BitSet();
+            index.match(path, expected, 0);
+            Assert.assertEquals(path, expected, editorConfig.matchSections(ec4jPath));
+        }
+    }
+
+    @Test
+    public void union() {
+        final List<Section> sections = editorConfig().getSections();
+        final List<Glob> globs = new ArrayList<>();
+        for (String glob : GLOBS) {
+            globs.add(new Glob(glob));
+        }
+        Assert.assertNotNull(GlobAutomaton.compileUnion(globs, SectionIndex.MAX_UNION_TRANSITIONS));
+        final SectionIndex index = SectionIndex.of(sections);
+        Assert.assertNotNull(index.getUnion());
+        /* The REGEX *.java is bucketed rather than evaluated one by one */
+        Assert.assertArrayEquals(new int[0], index.getGeneral());
+        assertMatches(sections, index);
+    }
+
+    @Test
+    public void unionAndBuckets() {
+        final EditorConfig.Builder builder = EditorConfig.builder();
+        for (int i = 0; i < GLOBS.length; i++) {
+            final Glob.Engine engine = i % 2 == 0 ? Glob.Engine.AUTOMATON : Glob.Engine.REGEX;
+            builder.openSection().glob(new Glob(GLOBS[i], engine)).closeSection();
+        }
+        final List<Section> sections = builder.build().getSections();
+        final SectionIndex index = SectionIndex.of(sections);
+        Assert.assertNotNull(index.getUnion());
+        assertMatches(sections, index);
+    }
+
+    @Test
+    public void regexEngineBuckets() {
+        final List<Section> sections = editorConfig(Glob.Engine.REGEX).getSections();
+        final SectionIndex index = SectionIndex.of(sections);
+        /* No union of nothing, the Globs like Makefile, *.java or *.{js,ts} are bucketed instead */
+        Assert.assertNull(index.getUnion());
+        Assert.assertArrayEquals(SectionIndex.ofBuckets(sections).getGeneral(), index.getGeneral());
+        Assert.assertTrue(index.getGeneral().length < sections.size());
+        assertMatches(sections, index);
+    }
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.parser;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ec4j.core.Resource;
+import org.ec4j.core.Resource.Charsets;
+import org.ec4j.core.Resource.Resources;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EditorConfigParserUtf8Test {
+
+    private static final String[] CONTENTS = { //
+            "", //
+            "root = true\n\n[*]\nindent_style = space\n", //
+            "; comment\r\n[*.{js,py}]\r\ncharset = utf-8 ; inline\r\n\r\n  key  =   value  \r\n", //
+            "\ufeff[*]\nend_of_line = lf", //
+            "[čeština/**]\nkey = hodnota žluťoučká\n# komentář ěščř\n[日本語.txt]\n名前 = 値\n", //
+            "[😀.md]\nemoji = 😀 👍\n# 😀\n", //
+            "[x] # [y]\nkey value\n= empty name\nkey:colon\n", //
+            "[*]\n" + repeat("long_property_name_", 100) + " = " + repeat("long value ", 200) + "\n" //
+    };
+
+    private static String repeat(String s, int count) {
+        final StringBuilder sb = new StringBuilder(s.length() * count);
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Records the parse events together with their {@link Location}s and {@link String} arguments.
+     *
+     * @param events the list to add the events to
+     * @return a new recording {@link EditorConfigHandler}
+     */
+    private static EditorConfigHandler recordingHandler(final List<String> events) {
+        return (EditorConfigHandler) Proxy.newProxyInstance(EditorConfigHandler.class.getClassLoader(),
+                new Class<?>[] { EditorConfigHandler.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        final ParseContext context = (ParseContext) args[0];
+                        final StringBuilder event = new StringBuilder(method.getName()).append(' ')
+                                .append(context.getLocation());
+                        if (args.length > 1) {
+                            event.append(" '").append(args[1]).append('\'');
+                        }
+                        events.add(event.toString());
+                        return null;
+                    }
+                });
+    }
+
+    private static ErrorHandler recordingErrorHandler(final List<String> events) {
+        return new ErrorHandler() {
+            @Override
+            public void error(ParseContext context, ErrorEvent errorEvent) {
+                events.add("error " + errorEvent.getErrorType() + " " + errorEvent.getStart() + " "
+                        + errorEvent.getMessage());
+            }
+        };
+    }
+
+    private static List<String> parse(Resource resource, ByteBuffer utf8) throws IOException {
+        final List<String> events = new ArrayList<>();
+        final EditorConfigParser parser = EditorConfigParser.builder().bufferSize(16).build();
+        if (utf8 == null) {
+            parser.parse(resource, recordingHandler(events), recordingErrorHandler(events));
+        } else {
+            parser.parse(resource, utf8, recordingHandler(events), recordingErrorHandler(events));
+        }
+        return events;
+    }
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    @Test
+    public void bom() throws IOException {
+        final Path file = tempDir.getRoot().toPath().resolve(".editorconfig");
+        final byte[] content = "[*]\nkey = žluťoučký\n".getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer withBom = ByteBuffer.allocate(content.length + 3);
+        withBom.put((byte) 0xEF).put((byte) 0xBB).put((byte) 0xBF).put(content);
+        Files.write(file, withBom.array());
+
+        final Resource utf8BomResource = Resources.ofPath(file, Charsets.forName("utf-8-bom"));
+        final ByteBuffer utf8 = utf8BomResource.openUtf8Buffer();
+        Assert.assertEquals(3, utf8.position());
+        Assert.assertEquals(content.length, utf8.remaining());
+        Assert.assertEquals(parse(Resources.ofString(".editorconfig", new String(content, StandardCharsets.UTF_8)),
+                null), parse(utf8BomResource, null));
+
+        /* utf-8 sees the BOM as U+FEFF which is then ignored by the parser */
+        final Resource utf8Resource = Resources.ofPath(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(0, utf8Resource.openUtf8Buffer().position());
+        Assert.assertNull(Resources.ofPath(file, StandardCharsets.ISO_8859_1).openUtf8Buffer());
+    }
+
+    @Test
+    public void bigFileNotMapped() throws IOException {
+        final Path file = tempDir.getRoot().toPath().resolve(".editorconfig");
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; content.length() < 128 * 1024; i++) {
+            content.append("[*.ext").append(i).append("]\nindent_size = ").append(i % 8).append('\n');
+        }
+        final byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(file, bytes);
+
+        final Resource resource = Resources.ofPath(file, StandardCharsets.UTF_8);
+        final ByteBuffer utf8 = resource.openUtf8Buffer();
+        Assert.assertFalse(utf8.isDirect());
+        Assert.assertEquals(bytes.length, utf8.remaining());
+        Assert.assertEquals(parse(Resources.ofString(".editorconfig", content.toString()), null),
+                parse(resource, null));
+        /* No mapping keeps the file open */
+        Files.delete(file);
+    }
+
+    @Test
+    public void malformed() throws IOException {
+        final byte[] content = "[*]\nkey = value\n".getBytes(StandardCharsets.UTF_8);
+        content[content.length - 3] = (byte) 0xC3;
+        final Resource resource = Resources.ofString(".editorconfig", "");
+        try {
+            parse(resource, ByteBuffer.wrap(content));
+            Assert.fail(MalformedInputException.class.getSimpleName() + " expected");
+        } catch (MalformedInputException expected) {
+        }
+    }
+
+    @Test
+    public void sameEventsAsReader() throws IOException {
+        for (String content : CONTENTS) {
+            final Resource resource = Resources.ofString(".editorconfig", content);
+            final List<String> expected = parse(resource, null);
+            final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+            Assert.assertEquals(content, expected, parse(resource, ByteBuffer.wrap(bytes)));
+
+            final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+            direct.put((byte) 'x').put(bytes).put((byte) 'y');
+            direct.position(1).limit(bytes.length + 1);
+            Assert.assertEquals(content, expected, parse(resource, direct));
+            Assert.assertEquals(1, direct.position());
+            Assert.assertEquals(bytes.length + 1, direct.limit());
+        }
+    }
+
+    @Test
+    public void sameEventsAsReaderFromPath() throws IOException {
+        for (String content : CONTENTS) {
+            final Path file = tempDir.getRoot().toPath().resolve(".editorconfig");
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            final Resource resource = Resources.ofPath(file, StandardCharsets.UTF_8);
+            Assert.assertNotNull(resource.openUtf8Buffer());
+            Assert.assertEquals(content, parse(Resources.ofString(".editorconfig", content), null),
+                    parse(resource, null));
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2017 Angelo Zerr and other contributors as
+ * indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ec4j.core.parser;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.ec4j.core.Resource;
+import org.ec4j.core.Resource.Resources;
+import org.ec4j.core.parser.EditorConfigPullParser.EventType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EditorConfigPullParserTest {
+
+    private static final String CONTENT = "# preamble\n" //
+            + "root = true\n" //
+            + "\n" //
+            + "[*]\n" //
+            + "end_of_line = lf ; inline\r\n" //
+            + "\r\n" //
+            + "[*.{js,py}]\n" //
+            + "  Charset =   utf-8  \n" //
+            + "# trailing comment";
+
+    private static String event(String name, Location location, String text) {
+        return name + " " + location + (text == null ? "" : " '" + text + "'");
+    }
+
+    private static List<String> push(Resource resource) throws IOException {
+        final List<String> events = new ArrayList<>();
+        final EditorConfigHandler handler = (EditorConfigHandler) Proxy.newProxyInstance(
+                EditorConfigHandler.class.getClassLoader(), new Class<?>[] { EditorConfigHandler.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        final ParseContext context = (ParseContext) args[0];
+                        events.add(event(method.getName(), context.getLocation(),
+                                args.length > 1 ? (String) args[1] : null));
+                        return null;
+                    }
+                });
+        EditorConfigParser.default_().parse(resource, handler, ErrorHandler.THROWING);
+        return events;
+    }
+
+    private static String methodName(EventType type) {
+        final StringBuilder result = new StringBuilder();
+        for (String part : type.name().toLowerCase().split("_")) {
+            result.append(result.length() == 0 ? part : Character.toUpperCase(part.charAt(0)) + part.substring(1));
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void rootProbe() throws IOException {
+        final StringBuilder content = new StringBuilder("root = true\n\n[*]\n");
+        for (int i = 0; i < 1000; i++) {
+            content.append("key").append(i).append(" = value").append(i).append('\n');
+        }
+        /* A syntax error that must not be hit because we stop reading early */
+        content.append("[unclosed\n");
+        final Resource resource = Resources.ofString(".editorconfig", content.toString());
+
+        try (EditorConfigPullParser pullParser = EditorConfigParser.builder().bufferSize(16).build().pull(resource,
+                ErrorHandler.THROWING)) {
+            String root = null;
+            /* The preamble is a section without a glob, so the first glob ends it */
+            while (pullParser.next() != EventType.START_GLOB) {
+                if (pullParser.getEventType() == EventType.END_PROPERTY_NAME && "root".equals(pullParser.getText())) {
+                    Assert.assertTrue(pullParser.nextEvent(EventType.END_PROPERTY_VALUE));
+                    root = pullParser.getText();
+                }
+            }
+            Assert.assertEquals("true", root);
+            Assert.assertTrue(pullParser.hasNext());
+        }
+    }
+
+    @Test
+    public void sameEventsAsPush() throws IOException {
+        final Resource resource = Resources.ofString(".editorconfig", CONTENT);
+        final List<String> actual = new ArrayList<>();
+        try (EditorConfigPullParser pullParser = EditorConfigParser.builder().bufferSize(8).build().pull(resource,
+                ErrorHandler.THROWING)) {
+            Assert.assertNull(pullParser.getEventType());
+            while (pullParser.hasNext()) {
+                final EventType type = pullParser.next();
+                Assert.assertEquals(type, pullParser.getEventType());
+                actual.add(event(methodName(type), pullParser.getLocation(), pullParser.getText()));
+            }
+            Assert.assertEquals(EventType.END_DOCUMENT, pullParser.getEventType());
+            try {
+                pullParser.next();
+                Assert.fail(NoSuchElementException.class.getSimpleName() + " expected");
+            } catch (NoSuchElementException expected) {
+            }
+        }
+        Assert.assertEquals(push(resource), actual);
+    }
+
+    @Test
+    public void nextEvent() throws IOException {
+        final Resource resource = Resources.ofString(".editorconfig", CONTENT);
+        final List<String> globs = new ArrayList<>();
+        try (EditorConfigPullParser pullParser = EditorConfigParser.default_().pull(resource, ErrorHandler.THROWING)) {
+            while (pullParser.nextEvent(EventType.END_GLOB)) {
+                globs.add(pullParser.getText());
+            }
+            Assert.assertFalse(pullParser.hasNext());
+        }
+        Assert.assertEquals(2, globs.size());
+        Assert.assertEquals("*", globs.get(0));
+        Assert.assertEquals("*.{js,py}", globs.get(1));
+    }
+
+}